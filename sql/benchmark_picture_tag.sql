@@ -0,0 +1,57 @@
+-- 标签筛选前后对比（MySQL 8.0.18+，需要 EXPLAIN ANALYZE）
+-- 在测试库执行：生成约 300 万张图片（每张 3 个标签，标签池 2000 个），
+-- 分别用 JSON 字符串 LIKE（旧）和 picture_tag 半连接（新）查询同一组标签
+
+SET SESSION cte_max_recursion_depth = 10000000;
+
+-- 1. 造数据（只填必填列）
+INSERT INTO picture (url, name, tags, userId, reviewStatus)
+WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 3000000)
+SELECT CONCAT('https://example.com/', n),
+       CONCAT('picture_', n),
+       CONCAT('["tag_', n % 2000, '","tag_', (n * 7) % 2000, '","tag_', (n * 13) % 2000, '"]'),
+       1,
+       1
+FROM seq;
+
+-- 2. 回填标签表（与 POST /api/picture/tag/backfill 等价）
+INSERT IGNORE INTO picture_tag (tag, pictureId)
+SELECT jt.tag, p.id
+FROM picture p,
+     JSON_TABLE(p.tags, '$[*]' COLUMNS (tag VARCHAR(128) PATH '$')) jt
+WHERE p.tags IS NOT NULL;
+
+ANALYZE TABLE picture, picture_tag;
+
+-- 3. 旧：JSON 字符串模糊匹配（idx_tags 用不上，全表扫描）
+EXPLAIN ANALYZE
+SELECT id, url, name, createTime FROM picture
+WHERE isDelete = 0 AND reviewStatus = 1
+  AND tags LIKE '%"tag_7"%' AND tags LIKE '%"tag_49"%'
+ORDER BY createTime DESC LIMIT 20;
+
+-- 4. 新：包含全部标签（AND）
+EXPLAIN ANALYZE
+SELECT id, url, name, createTime FROM picture
+WHERE isDelete = 0 AND reviewStatus = 1
+  AND id IN (SELECT pictureId FROM picture_tag WHERE tag IN ('tag_7', 'tag_49')
+             GROUP BY pictureId HAVING COUNT(*) = 2)
+ORDER BY createTime DESC LIMIT 20;
+
+-- 5. 新：包含任一标签（OR）
+EXPLAIN ANALYZE
+SELECT id, url, name, createTime FROM picture
+WHERE isDelete = 0 AND reviewStatus = 1
+  AND id IN (SELECT pictureId FROM picture_tag WHERE tag IN ('tag_7', 'tag_49'))
+ORDER BY createTime DESC LIMIT 20;
+
+-- 旧查询的 COUNT（分页插件每页都会执行）
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM picture
+WHERE isDelete = 0 AND reviewStatus = 1 AND tags LIKE '%"tag_7"%' AND tags LIKE '%"tag_49"%';
+
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM picture
+WHERE isDelete = 0 AND reviewStatus = 1
+  AND id IN (SELECT pictureId FROM picture_tag WHERE tag IN ('tag_7', 'tag_49')
+             GROUP BY pictureId HAVING COUNT(*) = 2);
@@ -60,3 +60,54 @@ ALTER TABLE picture
     ADD COLUMN reviewTime DATETIME NULL COMMENT '审核时间';
 -- 创建基于 reviewStatus 列的索引
 CREATE INDEX idx_reviewStatus ON picture (reviewStatus);
+
+-- 图片内容哈希（用于去重）
+ALTER TABLE picture
+    ADD COLUMN contentHash VARCHAR(64) NULL COMMENT '图片内容哈希（SHA-256）';
+CREATE INDEX idx_contentHash ON picture (contentHash);
+
+-- 衍生图（缩略图、压缩图）
+ALTER TABLE picture
+    ADD COLUMN thumbnailUrl VARCHAR(512) NULL COMMENT '缩略图 url',
+    ADD COLUMN compressUrl  VARCHAR(512) NULL COMMENT '压缩图 url';
+
+-- 游标分页（按审核状态过滤后按创建时间倒序滚动）
+CREATE INDEX idx_reviewStatus_createTime ON picture (reviewStatus, createTime);
+
+-- 图片标签（由 picture.tags 拆分而来，按标签筛选走索引半连接；开启 picture.query.tag-table-sync-enabled 前创建）
+create table if not exists picture_tag
+(
+    tag        varchar(128)                       not null comment '标签',
+    pictureId  bigint                             not null comment '图片 id',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    primary key (tag, pictureId),              -- 按标签查图片
+    INDEX idx_pictureId (pictureId)            -- 按图片维护标签
+) comment '图片标签' collate = utf8mb4_unicode_ci;
+
+-- 公开图片读模型（只保存审核通过且未删除的图片，冗余作者信息，由图片审核、编辑、删除同步维护；开启 picture.query.public-picture-sync-enabled 前创建）
+create table if not exists public_picture
+(
+    id           bigint                             not null comment '图片 id' primary key,
+    url          varchar(512)                       not null comment '图片 url',
+    thumbnailUrl varchar(512)                       null comment '缩略图 url',
+    compressUrl  varchar(512)                       null comment '压缩图 url',
+    name         varchar(128)                       not null comment '图片名称',
+    introduction varchar(512)                       null comment '简介',
+    category     varchar(64)                        null comment '分类',
+    tags         varchar(512)                       null comment '标签（JSON 数组）',
+    picSize      bigint                             null comment '图片体积',
+    picWidth     int                                null comment '图片宽度',
+    picHeight    int                                null comment '图片高度',
+    picScale     double                             null comment '图片宽高比例',
+    picFormat    varchar(32)                        null comment '图片格式',
+    userId       bigint                             not null comment '创建用户 id',
+    userName     varchar(256)                       null comment '作者昵称',
+    userAvatar   varchar(1024)                      null comment '作者头像',
+    createTime   datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    editTime     datetime default CURRENT_TIMESTAMP not null comment '编辑时间',
+    updateTime   datetime default CURRENT_TIMESTAMP not null comment '更新时间',
+    INDEX idx_createTime (createTime, id),                   -- 默认按创建时间倒序
+    INDEX idx_editTime (editTime, id),                       -- 按编辑时间排序
+    INDEX idx_category_createTime (category, createTime, id), -- 分类下按创建时间排序
+    INDEX idx_userId_createTime (userId, createTime, id)     -- 作者主页、同步作者信息
+) comment '公开图片' collate = utf8mb4_unicode_ci;
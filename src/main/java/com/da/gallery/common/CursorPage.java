@@ -0,0 +1,31 @@
+package com.da.gallery.common;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 不统计总数的分页结果（游标分页，或不统计总数的偏移分页），total 恒为 0
+ *
+ * @param <T>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CursorPage<T> extends Page<T> {
+
+    /**
+     * 下一页游标（没有更多数据或偏移分页时为 null）
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+
+    private static final long serialVersionUID = 1L;
+
+    public CursorPage(long current, long size) {
+        super(current, size, false);
+    }
+}
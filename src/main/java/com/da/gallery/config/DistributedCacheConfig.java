@@ -0,0 +1,24 @@
+package com.da.gallery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分布式缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cache.distributed")
+@Data
+public class DistributedCacheConfig {
+
+    /**
+     * 缓存类型：local-本地内存（单节点或测试）; redis-Redis（须先开启 Redis 配置）
+     */
+    private String type = "local";
+
+    /**
+     * 键前缀
+     */
+    private String keyPrefix = "gallery:";
+}
@@ -0,0 +1,85 @@
+package com.da.gallery.config;
+
+import com.da.gallery.manager.http.PublicAddressDnsResolver;
+import lombok.Data;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 外部 HTTP 请求客户端（连接池）
+ * <p>
+ * 每个目标主机的并发连接数受 maxPerRoute 限制，超出的请求最多等待 connectionRequestTimeout；
+ * 建立连接时只允许解析到公网地址
+ */
+@Configuration
+@ConfigurationProperties(prefix = "http.client")
+@Data
+public class HttpClientConfig {
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxTotal = 200;
+
+    /**
+     * 单个主机最大并发连接数
+     */
+    private int maxPerRoute = 10;
+
+    /**
+     * 建立连接超时时间（毫秒）
+     */
+    private int connectTimeout = 3000;
+
+    /**
+     * 读取数据超时时间（毫秒）
+     */
+    private int socketTimeout = 10000;
+
+    /**
+     * 从连接池获取连接的超时时间（毫秒）
+     */
+    private int connectionRequestTimeout = 3000;
+
+    /**
+     * 空闲连接存活时间（秒）
+     */
+    private long idleTimeout = 60;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pictureHttpClient(PictureUploadConfig pictureUploadConfig) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                        .build(),
+                new PublicAddressDnsResolver(pictureUploadConfig));
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(socketTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.SECONDS)
+                .disableCookieManagement()
+                // 不自动跟随重定向，防止跳转到内网地址绕过校验
+                .disableRedirectHandling()
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.da.gallery.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+/**
+ * 会话配置：启用紧凑会话存储时由 Spring Session 接管 HttpSession
+ */
+@Configuration
+@ConditionalOnExpression(SessionStoreConfig.ENABLED_CONDITION)
+@EnableSpringHttpSession
+public class HttpSessionConfig {
+}
@@ -0,0 +1,114 @@
+package com.da.gallery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图片查询配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.query")
+@Data
+public class PictureQueryConfig {
+
+    /**
+     * 公开图片列表的总数统计方式：exact-精确; cached-缓存; approximate-近似; none-不统计
+     */
+    private String feedTotalMode = "cached";
+
+    /**
+     * 总数缓存时间（秒），图片新增、审核、修改、删除时提前失效
+     */
+    private long countCacheSeconds = 60;
+
+    /**
+     * 近似总数缓存时间（秒），期间不随写入失效
+     */
+    private long approximateCountSeconds = 600;
+
+    /**
+     * 近似总数的精确统计阈值：执行计划估算的行数低于该值时改为精确统计
+     */
+    private long approximateExactThreshold = 1000;
+
+    /**
+     * 每种缓存最多保存的查询条件数
+     */
+    private long countCacheMaxSize = 10000;
+
+    /**
+     * 是否启用审核通过图片的内存位图索引（按分类、标签、格式筛选公开图片）
+     */
+    private boolean bitmapIndexEnabled = true;
+
+    /**
+     * 是否启用最新图片信息流（按创建时间倒序浏览时从有序集合取 id）
+     */
+    private boolean feedSortedSetEnabled = true;
+
+    /**
+     * 信息流全量重建的 cron 表达式
+     */
+    private String feedRebuildCron = "0 0 4 * * ?";
+
+    /**
+     * 图片写入时是否维护 picture_tag 标签表（须先建表；开启 tagTableEnabled 时总是维护）
+     */
+    private boolean tagTableSyncEnabled = false;
+
+    /**
+     * 标签筛选是否走 picture_tag 标签表（须先开启 tagTableSyncEnabled 并调用 /picture/tag/backfill 回填再开启，否则按 tags 列模糊匹配）
+     */
+    private boolean tagTableEnabled = false;
+
+    /**
+     * 图片写入时是否维护 public_picture 读模型（须先建表；开启 publicPictureEnabled 时总是维护）
+     */
+    private boolean publicPictureSyncEnabled = false;
+
+    /**
+     * 公开图片列表是否读取 public_picture 读模型（须先开启 publicPictureSyncEnabled 并调用 /picture/public/backfill 回填再开启）
+     */
+    private boolean publicPictureEnabled = false;
+
+    /**
+     * 是否启用公开图片列表两级缓存（L1 本地 + L2 分布式缓存）
+     */
+    private boolean listCacheEnabled = true;
+
+    /**
+     * 列表 L1 缓存时间（秒）
+     */
+    private long listCacheLocalSeconds = 10;
+
+    /**
+     * 列表 L2 缓存时间（秒）
+     */
+    private long listCacheRemoteSeconds = 60;
+
+    /**
+     * 列表缓存时间的随机抖动比例（0.2 表示在缓存时间基础上随机增加 0~20%）
+     */
+    private double listCacheJitterRatio = 0.2;
+
+    /**
+     * 列表 L1 最多保存的查询条件数
+     */
+    private long listCacheLocalMaxSize = 1000;
+
+    /**
+     * 是否启用图片详情缓存
+     */
+    private boolean detailCacheEnabled = true;
+
+    /**
+     * 详情缓存时间（秒），图片修改、审核、删除时按 id 提前失效
+     */
+    private long detailCacheSeconds = 300;
+
+    /**
+     * 详情缓存最多保存的图片数
+     */
+    private long detailCacheMaxSize = 10000;
+}
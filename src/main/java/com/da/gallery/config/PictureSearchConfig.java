@@ -0,0 +1,34 @@
+package com.da.gallery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图片全文检索配置（内嵌 Lucene 索引）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.search")
+@Data
+public class PictureSearchConfig {
+
+    /**
+     * 是否启用（关闭或索引不可用时，搜索词退回数据库模糊查询）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 索引目录
+     */
+    private String indexDir = "search-index";
+
+    /**
+     * 索引提交间隔（秒），提交前的写入已可被搜索，只是进程崩溃时需要从数据库重建
+     */
+    private long commitIntervalSeconds = 30;
+
+    /**
+     * 最多可翻到的结果条数（深分页需要收集全部前序结果）
+     */
+    private int maxResultWindow = 10000;
+}
@@ -0,0 +1,51 @@
+package com.da.gallery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图片存储配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.storage")
+@Data
+public class PictureStorageConfig {
+
+    /**
+     * 存储类型：cos-腾讯云对象存储; local-本地磁盘
+     */
+    private String type = "cos";
+
+    /**
+     * 本地磁盘存储配置
+     */
+    private Local local = new Local();
+
+    /**
+     * 本地磁盘存储配置
+     */
+    @Data
+    public static class Local {
+
+        /**
+         * 存储根目录
+         */
+        private String root = "storage";
+
+        /**
+         * 访问地址前缀（拼接对象键得到图片 url）
+         */
+        private String urlPrefix = "http://localhost:8081/api/picture/file";
+
+        /**
+         * 刷盘策略：none-依赖操作系统; data-写完刷文件数据; all-同时刷元数据和目录
+         */
+        private String fsync = "data";
+
+        /**
+         * 图片文件的浏览器缓存时间（秒），对象键唯一且内容不会修改，可以长期缓存
+         */
+        private long cacheMaxAge = 365 * 24 * 60 * 60L;
+    }
+}
@@ -0,0 +1,207 @@
+package com.da.gallery.config;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片上传配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.upload")
+@Data
+public class PictureUploadConfig {
+
+    /**
+     * 上传模式：file-先落临时文件再上传; stream-multipart 流直传对象存储
+     */
+    private String mode = "stream";
+
+    /**
+     * 分片上传配置
+     */
+    private Multipart multipart = new Multipart();
+
+    /**
+     * 批量上传配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 异步上传配置
+     */
+    private Async async = new Async();
+
+    /**
+     * 缩略图等衍生图配置
+     */
+    private Derivative derivative = new Derivative();
+
+    /**
+     * 是否允许从内网地址（回环、局域网等）导入图片，仅用于本地调试
+     */
+    private boolean urlAllowPrivateAddress = false;
+
+    /**
+     * 批量上传线程池
+     * <p>
+     * 多个批量请求共享，队列满时由请求线程自己执行，形成背压
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pictureBatchUploadExecutor() {
+        int threads = batch.getThreads() > 0 ? batch.getThreads() : Runtime.getRuntime().availableProcessors() * 2;
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(batch.getQueueCapacity()),
+                ThreadFactoryBuilder.create().setNamePrefix("picture-batch-upload-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 异步上传线程池
+     * <p>
+     * 图片内容已在请求线程读入内存，队列满时直接拒绝，避免无限堆积
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pictureAsyncUploadExecutor() {
+        return new ThreadPoolExecutor(async.getThreads(), async.getThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(async.getQueueCapacity()),
+                ThreadFactoryBuilder.create().setNamePrefix("picture-async-upload-").build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 分片上传配置
+     */
+    @Data
+    public static class Multipart {
+
+        /**
+         * 分片大小（对象存储要求除最后一片外不小于 1MB）
+         */
+        private long partSize = 5 * 1024 * 1024L;
+
+        /**
+         * 允许的最大文件大小
+         */
+        private long maxFileSize = 100 * 1024 * 1024L;
+
+        /**
+         * 并行上传分片的线程数
+         */
+        private int threads = 8;
+
+        /**
+         * 等待上传的分片队列容量（队列满时拒绝，由客户端稍后重试）
+         * 分片在内存中排队，内存占用上限约为 (threads + queueCapacity) * partSize
+         */
+        private int queueCapacity = 16;
+
+        /**
+         * 未完成的分片上传任务过期时间（分钟），过期后取消
+         */
+        private long expireMinutes = 24 * 60;
+    }
+
+    /**
+     * 批量上传配置
+     */
+    @Data
+    public static class Batch {
+
+        /**
+         * 单次最多上传的文件数
+         */
+        private int maxCount = 200;
+
+        /**
+         * 上传线程数（小于等于 0 时取 CPU 核数 * 2，上传以网络 IO 为主）
+         */
+        private int threads = 0;
+
+        /**
+         * 等待上传的文件队列容量
+         */
+        private int queueCapacity = 256;
+    }
+
+    /**
+     * 异步上传配置
+     */
+    @Data
+    public static class Async {
+
+        /**
+         * 后台上传线程数
+         */
+        private int threads = 4;
+
+        /**
+         * 等待上传的任务队列容量（内存占用上限约为 (threads + queueCapacity) * 2MB）
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * 已结束的任务保留时间（分钟），过期后无法再查询
+         */
+        private long expireMinutes = 30;
+
+        /**
+         * 未结束的任务最长保留时间（分钟，从创建算起），避免任务丢失或卡住时一直占用内存
+         */
+        private long unfinishedExpireMinutes = 24 * 60;
+    }
+
+    /**
+     * 衍生图（缩略图、压缩图）配置
+     */
+    @Data
+    public static class Derivative {
+
+        /**
+         * 是否在上传后生成衍生图
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缩略图最长边（像素）
+         */
+        private int thumbnailSize = 256;
+
+        /**
+         * 缩略图质量（0 ~ 1）
+         */
+        private float thumbnailQuality = 0.8f;
+
+        /**
+         * 压缩图最长边（像素），原图更小时保持原尺寸
+         */
+        private int compressSize = 1920;
+
+        /**
+         * 压缩图质量（0 ~ 1）
+         */
+        private float compressQuality = 0.75f;
+
+        /**
+         * 生成线程数（小于等于 0 时取 CPU 核数，缩放编码以 CPU 为主；内存预算放不下时相应减少）
+         */
+        private int threads = 0;
+
+        /**
+         * 解码原图最多占用的堆内存比例，由各生成线程平分，超出单线程份额的原图跳过
+         */
+        private double heapRatio = 0.25;
+
+        /**
+         * 等待生成的任务队列容量（任务只包含图片 id 和地址，原图在执行时再下载）
+         */
+        private int queueCapacity = 10000;
+    }
+}
@@ -0,0 +1,45 @@
+package com.da.gallery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 会话存储配置（会话保存在分布式缓存中，存储类型跟随 cache.distributed.type）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "session.store")
+@Data
+public class SessionStoreConfig {
+
+    /**
+     * 启用条件：显式开启，或未配置时跟随分布式缓存是否为 Redis（本地缓存下会话只在本进程，默认仍用容器会话）
+     */
+    public static final String ENABLED_CONDITION = "'${session.store.enabled:}' == 'true' or "
+            + "('${session.store.enabled:}' == '' and '${cache.distributed.type:local}' == 'redis')";
+
+    /**
+     * 是否启用紧凑会话存储（不配置时仅在 cache.distributed.type 为 redis 时启用，关闭时使用容器内存会话）
+     */
+    private Boolean enabled;
+
+    /**
+     * 会话过期时间（秒）
+     */
+    private long timeoutSeconds = 2592000;
+
+    /**
+     * 本地近缓存时间（秒），其他节点修改、删除会话时广播失效
+     */
+    private long nearCacheSeconds = 5;
+
+    /**
+     * 本地近缓存最多保存的会话数
+     */
+    private long nearCacheMaxSize = 10000;
+
+    /**
+     * 会话内容不变时，最后访问时间至少间隔多久（秒）才写回，避免每个请求都写一次
+     */
+    private long touchIntervalSeconds = 300;
+}
@@ -0,0 +1,34 @@
+package com.da.gallery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 登录认证配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "user.auth")
+@Data
+public class UserAuthConfig {
+
+    /**
+     * 认证方式：session-服务端会话；token-签名令牌
+     */
+    private String mode = "session";
+
+    /**
+     * 令牌签名密钥（HMAC-SHA256，令牌认证方式必须配置，至少 32 个字符）
+     */
+    private String tokenSecret;
+
+    /**
+     * 令牌有效期（秒）
+     */
+    private long tokenExpireSeconds = 1800;
+
+    /**
+     * 令牌签发后多久内可以刷新（秒），过期但仍在此期限内的令牌可以换新
+     */
+    private long tokenRefreshSeconds = 604800;
+}
@@ -0,0 +1,44 @@
+package com.da.gallery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "user.cache")
+@Data
+public class UserCacheConfig {
+
+    /**
+     * 用户封装缓存时间（秒），用户信息修改、删除时提前失效
+     */
+    private long voCacheSeconds = 600;
+
+    /**
+     * 用户封装缓存最多保存的用户数
+     */
+    private long voCacheMaxSize = 10000;
+
+    /**
+     * 跨请求合并查询的等待窗口（毫秒），0 表示只合并同一次调用内的查询
+     */
+    private long batchWindowMillis = 0;
+
+    /**
+     * 单次批量查询最多的用户数
+     */
+    private int batchMaxSize = 500;
+
+    /**
+     * 登录用户缓存时间（秒），用户修改、删除、封禁时提前失效
+     */
+    private long loginCacheSeconds = 300;
+
+    /**
+     * 登录用户缓存最多保存的用户数
+     */
+    private long loginCacheMaxSize = 10000;
+}
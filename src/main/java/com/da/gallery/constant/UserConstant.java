@@ -13,6 +13,11 @@ public interface UserConstant {
      */
     String USER_LOGIN_STATE = "user_login";
 
+    /**
+     * 请求属性中已解析的登录用户键（同一请求内只解析一次）
+     */
+    String LOGIN_USER_ATTRIBUTE = "login_user";
+
     //  region 权限
 
     /**
@@ -14,17 +14,27 @@ import com.da.gallery.exception.ThrowUtils;
 import com.da.gallery.model.dto.picture.*;
 import com.da.gallery.model.entity.Picture;
 import com.da.gallery.model.entity.User;
-import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import com.da.gallery.model.enums.PictureTotalModeEnum;
+import com.da.gallery.model.vo.PictureBatchUploadItemVO;
+import com.da.gallery.model.vo.PictureMultipartUploadVO;
 import com.da.gallery.model.vo.PictureTagCategory;
+import com.da.gallery.model.vo.PictureUploadJobVO;
 import com.da.gallery.model.vo.PictureVO;
 import com.da.gallery.service.PictureService;
+import com.da.gallery.service.PictureTagService;
+import com.da.gallery.service.PublicPictureService;
 import com.da.gallery.service.UserService;
 import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -37,6 +47,10 @@ public class PictureController {
     private PictureService pictureService;
     @Resource
     private UserService userService;
+    @Resource
+    private PictureTagService pictureTagService;
+    @Resource
+    private PublicPictureService publicPictureService;
 
     /**
      * 上传图片（可重新上传）
@@ -51,6 +65,122 @@ public class PictureController {
         return ResultUtils.success(pictureVO);
     }
 
+    /**
+     * 异步上传图片（立即返回任务 id，通过 /upload/status 查询结果）
+     */
+    @PostMapping("/upload/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BaseResponse<PictureUploadJobVO> uploadPictureAsync(
+            @RequestPart("file") MultipartFile multipartFile,
+            PictureUploadRequest pictureUploadRequest,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.uploadPictureAsync(multipartFile, pictureUploadRequest, loginUser));
+    }
+
+    /**
+     * 查询异步上传任务
+     */
+    @GetMapping("/upload/status")
+    public BaseResponse<PictureUploadJobVO> getPictureUploadJob(String jobId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.getPictureUploadJob(jobId, loginUser));
+    }
+
+    /**
+     * 通过 URL 导入图片
+     */
+    @PostMapping("/upload/url")
+    public BaseResponse<PictureVO> uploadPictureByUrl(
+            @RequestBody PictureUploadRequest pictureUploadRequest,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        PictureVO pictureVO = pictureService.uploadPictureByUrl(pictureUploadRequest, loginUser);
+        return ResultUtils.success(pictureVO);
+    }
+
+    /**
+     * 读取本地存储的图片文件（支持 Range）
+     */
+    @RequestMapping(value = "/file/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getPictureFile(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String key = "/" + new AntPathMatcher().extractPathWithinPattern(pattern, path);
+        pictureService.writePictureFile(key, request, response);
+    }
+
+    /**
+     * 批量上传图片
+     */
+    @PostMapping("/upload/batch")
+    public BaseResponse<List<PictureBatchUploadItemVO>> uploadPictureBatch(
+            @RequestPart("files") List<MultipartFile> multipartFileList,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.uploadPictureBatch(multipartFileList, loginUser));
+    }
+
+    /**
+     * 初始化分片上传（大图）
+     */
+    @PostMapping("/upload/multipart/init")
+    public BaseResponse<PictureMultipartUploadVO> initPictureMultipartUpload(
+            @RequestBody PictureMultipartInitRequest pictureMultipartInitRequest,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.initPictureMultipartUpload(pictureMultipartInitRequest, loginUser));
+    }
+
+    /**
+     * 上传分片（可并发上传多个分片，已上传的分片会被跳过）
+     */
+    @PostMapping("/upload/multipart/part")
+    public BaseResponse<PictureMultipartUploadVO> uploadPicturePart(
+            @RequestPart("file") MultipartFile multipartFile,
+            PictureMultipartPartRequest pictureMultipartPartRequest,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.uploadPicturePart(multipartFile, pictureMultipartPartRequest, loginUser));
+    }
+
+    /**
+     * 查询分片上传进度（断点续传）
+     */
+    @GetMapping("/upload/multipart/status")
+    public BaseResponse<PictureMultipartUploadVO> getPictureMultipartUploadStatus(String uploadId,
+                                                                                  HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.getPictureMultipartUploadStatus(uploadId, loginUser));
+    }
+
+    /**
+     * 完成分片上传
+     */
+    @PostMapping("/upload/multipart/complete")
+    public BaseResponse<PictureVO> completePictureMultipartUpload(
+            @RequestBody PictureMultipartCompleteRequest pictureMultipartCompleteRequest,
+            HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureMultipartCompleteRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        PictureVO pictureVO = pictureService.completePictureMultipartUpload(pictureMultipartCompleteRequest.getUploadId(),
+                loginUser);
+        return ResultUtils.success(pictureVO);
+    }
+
+    /**
+     * 取消分片上传
+     */
+    @PostMapping("/upload/multipart/abort")
+    public BaseResponse<Boolean> abortPictureMultipartUpload(
+            @RequestBody PictureMultipartCompleteRequest pictureMultipartCompleteRequest,
+            HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureMultipartCompleteRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        pictureService.abortPictureMultipartUpload(pictureMultipartCompleteRequest.getUploadId(), loginUser);
+        return ResultUtils.success(true);
+    }
+
 
     /**
      * 删除
@@ -120,15 +250,7 @@ public class PictureController {
         if (id <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
-        Picture picture = pictureService.getById(id);
-        if (picture == null) {
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
-        }
-        // 普通用户未过审的图片不允许查看
-        if(!userService.isAdmin(request) && !picture.getReviewStatus().equals(PictureReviewStatusEnum.PASS.getValue())){
-            throw new BusinessException(ErrorCode.NO_AUTH_ERROR,"图片未过审");
-        }
-        return ResultUtils.success(pictureService.getPictureVO(picture, request));
+        return ResultUtils.success(pictureService.getPictureVOById(id, request));
     }
 
     /**
@@ -140,11 +262,8 @@ public class PictureController {
     @PostMapping("/list/page")
     @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
     public BaseResponse<Page<Picture>> listPictureByPage(@RequestBody PictureQueryRequest pictureQueryRequest) {
-        long current = pictureQueryRequest.getCurrent();
-        long size = pictureQueryRequest.getPageSize();
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, size),
-                pictureService.getQueryWrapper(pictureQueryRequest));
-        return ResultUtils.success(picturePage);
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(pictureService.listPictureByPage(pictureQueryRequest, PictureTotalModeEnum.CACHED));
     }
 
     /**
@@ -157,15 +276,8 @@ public class PictureController {
     @PostMapping("/list/page/vo")
     public BaseResponse<Page<PictureVO>> listPictureVOByPage(@RequestBody PictureQueryRequest pictureQueryRequest,
                                                              HttpServletRequest request) {
-        long current = pictureQueryRequest.getCurrent();
-        long size = pictureQueryRequest.getPageSize();
-        // 限制爬虫
-        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        // 普通用户只能看到审核通过的数据
-        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, size),
-                pictureService.getQueryWrapper(pictureQueryRequest));
-        return ResultUtils.success(pictureService.getPictureVOPage(picturePage, request));
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(pictureService.listPublicPictureVOByPage(pictureQueryRequest, request));
     }
 
     /**
@@ -183,13 +295,8 @@ public class PictureController {
         }
         User loginUser = userService.getLoginUser(request);
         pictureQueryRequest.setUserId(loginUser.getId());
-        long current = pictureQueryRequest.getCurrent();
-        long size = pictureQueryRequest.getPageSize();
-        // 限制爬虫
-        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, size),
-                pictureService.getQueryWrapper(pictureQueryRequest));
-        return ResultUtils.success(pictureService.getPictureVOPage(picturePage, request));
+        return ResultUtils.success(pictureService.listPictureVOByPage(pictureQueryRequest,
+                PictureTotalModeEnum.CACHED, request));
     }
 
     // endregion
@@ -249,6 +356,28 @@ public class PictureController {
         return ResultUtils.success(result);
     }
 
+    /**
+     * 从图片标签 JSON 回填标签表（仅管理员，可重复执行）
+     *
+     * @return 写入的标签记录数
+     */
+    @PostMapping("/tag/backfill")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Long> backfillPictureTags() {
+        return ResultUtils.success(pictureTagService.backfillPictureTags());
+    }
+
+    /**
+     * 从图片表回填公开图片读模型（仅管理员，可重复执行）
+     *
+     * @return 扫描的图片数
+     */
+    @PostMapping("/public/backfill")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Long> backfillPublicPictures() {
+        return ResultUtils.success(publicPictureService.backfillPublicPictures());
+    }
+
     /**
      * 获取标签分类列表
      * @return
@@ -102,6 +102,17 @@ public class UserController {
         return ResultUtils.success(result);
     }
 
+    /**
+     * 刷新登录令牌（令牌认证方式）
+     *
+     * @param request
+     * @return
+     */
+    @PostMapping("/token/refresh")
+    public BaseResponse<LoginUserVO> refreshToken(HttpServletRequest request) {
+        return ResultUtils.success(userService.refreshToken(request));
+    }
+
     /**
      * 获取当前登录用户
      *
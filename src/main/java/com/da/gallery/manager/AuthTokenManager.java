@@ -0,0 +1,148 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.jwt.JWT;
+import cn.hutool.jwt.JWTValidator;
+import cn.hutool.jwt.RegisteredPayload;
+import cn.hutool.jwt.signers.JWTSigner;
+import cn.hutool.jwt.signers.JWTSignerUtil;
+import com.da.gallery.config.UserAuthConfig;
+import com.da.gallery.model.dto.user.LoginUserState;
+import com.da.gallery.model.enums.UserAuthModeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录令牌（HMAC-SHA256 签名）
+ * <p>
+ * 令牌携带用户 id、角色和用户信息版本，验证只需要密钥，不访问会话存储。
+ * 用户修改、删除、封禁、注销时版本自增，持有旧版本的令牌立即失效，需要刷新换新
+ */
+@Component
+@Slf4j
+public class AuthTokenManager {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final String USER_ID = "uid";
+
+    private static final String USER_ROLE = "role";
+
+    private static final String VERSION = "ver";
+
+    /**
+     * 签名密钥最短长度
+     */
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    /**
+     * 曾经作为默认值公开过的密钥，不能使用
+     */
+    private static final String PUBLIC_SECRET = "gallery-token-secret";
+
+    @Resource
+    private UserAuthConfig userAuthConfig;
+
+    private JWTSigner signer;
+
+    /**
+     * 令牌认证方式下校验密钥，未配置或使用公开的默认值时拒绝启动；会话方式下没有密钥时使用随机密钥
+     */
+    @PostConstruct
+    public void init() {
+        String secret = userAuthConfig.getTokenSecret();
+        boolean weakSecret = StrUtil.isBlank(secret) || PUBLIC_SECRET.equals(secret)
+                || secret.length() < MIN_SECRET_LENGTH;
+        if (isTokenMode() && weakSecret) {
+            throw new IllegalStateException("user.auth.token-secret must be configured (at least "
+                    + MIN_SECRET_LENGTH + " characters) when user.auth.mode is token");
+        }
+        byte[] key = StrUtil.isBlank(secret) ? RandomUtil.randomBytes(MIN_SECRET_LENGTH)
+                : secret.getBytes(StandardCharsets.UTF_8);
+        signer = JWTSignerUtil.hs256(key);
+    }
+
+    /**
+     * 是否使用令牌认证
+     *
+     * @return
+     */
+    public boolean isTokenMode() {
+        return UserAuthModeEnum.TOKEN.equals(UserAuthModeEnum.getEnumByValue(userAuthConfig.getMode()));
+    }
+
+    /**
+     * 签发令牌
+     *
+     * @param state 登录态
+     * @return
+     */
+    public String createToken(LoginUserState state) {
+        Date now = new Date();
+        return JWT.create()
+                .setPayload(USER_ID, String.valueOf(state.getUserId()))
+                .setPayload(USER_ROLE, state.getUserRole())
+                .setPayload(VERSION, state.getVersion())
+                .setIssuedAt(now)
+                .setExpiresAt(DateUtil.offsetSecond(now, (int) userAuthConfig.getTokenExpireSeconds()))
+                .sign(signer);
+    }
+
+    /**
+     * 校验令牌
+     *
+     * @param token        令牌
+     * @param allowExpired 是否接受已过期但仍在刷新期限内的令牌（刷新时）
+     * @return 登录态；签名错误、已过期时返回 null
+     */
+    public LoginUserState parseToken(String token, boolean allowExpired) {
+        if (StrUtil.isBlank(token)) {
+            return null;
+        }
+        try {
+            JWT jwt = JWT.of(token);
+            JWTValidator validator = JWTValidator.of(jwt).validateAlgorithm(signer);
+            Date now = new Date();
+            if (allowExpired) {
+                // 签发时间以秒为单位
+                Long issuedAt = Convert.toLong(jwt.getPayload(RegisteredPayload.ISSUED_AT));
+                if (issuedAt == null || now.getTime() - TimeUnit.SECONDS.toMillis(issuedAt)
+                        > TimeUnit.SECONDS.toMillis(userAuthConfig.getTokenRefreshSeconds())) {
+                    return null;
+                }
+            } else {
+                validator.validateDate(now);
+            }
+            return new LoginUserState(Convert.toLong(jwt.getPayload(USER_ID)),
+                    Convert.toStr(jwt.getPayload(USER_ROLE)), Convert.toLong(jwt.getPayload(VERSION)));
+        } catch (Exception e) {
+            log.debug("invalid token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 从请求头读取令牌
+     *
+     * @param request
+     * @return 没有令牌时返回 null
+     */
+    public String getToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        return authorization.substring(BEARER_PREFIX.length()).trim();
+    }
+}
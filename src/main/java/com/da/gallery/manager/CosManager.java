@@ -1,10 +1,24 @@
 package com.da.gallery.manager;
 
 import com.qcloud.cos.COSClient;
+import com.qcloud.cos.model.AbortMultipartUploadRequest;
+import com.qcloud.cos.model.COSObject;
+import com.qcloud.cos.model.CompleteMultipartUploadRequest;
+import com.qcloud.cos.model.CompleteMultipartUploadResult;
+import com.qcloud.cos.model.InitiateMultipartUploadRequest;
+import com.qcloud.cos.model.ListPartsRequest;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PartETag;
+import com.qcloud.cos.model.PartListing;
+import com.qcloud.cos.model.PartSummary;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.model.PutObjectResult;
+import com.qcloud.cos.model.UploadPartRequest;
 import com.da.gallery.config.CosClientConfig;
 import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Resource;
 
 import com.qcloud.cos.model.ciModel.persistence.PicOperations;
@@ -51,6 +65,49 @@ public class CosManager {
         return cosClient.putObject(putObjectRequest);
     }
 
+    /**
+     * 上传对象（流式）
+     *
+     * @param key         唯一键
+     * @param inputStream 输入流
+     * @param metadata    对象元信息（必须包含 content-length，否则 SDK 会把整个流缓存到内存）
+     * @return
+     */
+    public PutObjectResult putObject(String key, InputStream inputStream, ObjectMetadata metadata) {
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key,
+                inputStream, metadata);
+        return cosClient.putObject(putObjectRequest);
+    }
+
+    /**
+     * 下载对象
+     *
+     * @param key 唯一键
+     * @return 对象（调用方负责关闭）
+     */
+    public COSObject getObject(String key) {
+        return cosClient.getObject(cosClientConfig.getBucket(), key);
+    }
+
+    /**
+     * 获取对象元信息
+     *
+     * @param key 唯一键
+     * @return
+     */
+    public ObjectMetadata getObjectMetadata(String key) {
+        return cosClient.getObjectMetadata(cosClientConfig.getBucket(), key);
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param key 唯一键
+     */
+    public void deleteObject(String key) {
+        cosClient.deleteObject(cosClientConfig.getBucket(), key);
+    }
+
     /**
      * 上传图片（附带图片信息）
      *
@@ -69,5 +126,78 @@ public class CosManager {
         return cosClient.putObject(putObjectRequest);
     }
 
+    /**
+     * 初始化分片上传
+     *
+     * @param key 唯一键
+     * @return uploadId
+     */
+    public String initiateMultipartUpload(String key) {
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(cosClientConfig.getBucket(), key);
+        return cosClient.initiateMultipartUpload(request).getUploadId();
+    }
+
+    /**
+     * 上传分片
+     *
+     * @param key         唯一键
+     * @param uploadId    分片上传 id
+     * @param partNumber  分片序号（从 1 开始）
+     * @param inputStream 分片内容
+     * @param partSize    分片大小
+     * @return
+     */
+    public PartETag uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        UploadPartRequest request = new UploadPartRequest();
+        request.setBucketName(cosClientConfig.getBucket());
+        request.setKey(key);
+        request.setUploadId(uploadId);
+        request.setPartNumber(partNumber);
+        request.setInputStream(inputStream);
+        request.setPartSize(partSize);
+        return cosClient.uploadPart(request).getPartETag();
+    }
 
+    /**
+     * 查询已上传的分片（自动翻页）
+     *
+     * @param key      唯一键
+     * @param uploadId 分片上传 id
+     * @return
+     */
+    public List<PartSummary> listParts(String key, String uploadId) {
+        List<PartSummary> partSummaryList = new ArrayList<>();
+        ListPartsRequest request = new ListPartsRequest(cosClientConfig.getBucket(), key, uploadId);
+        PartListing partListing;
+        do {
+            partListing = cosClient.listParts(request);
+            partSummaryList.addAll(partListing.getParts());
+            request.setPartNumberMarker(partListing.getNextPartNumberMarker());
+        } while (partListing.isTruncated());
+        return partSummaryList;
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * @param key          唯一键
+     * @param uploadId     分片上传 id
+     * @param partETagList 所有分片（按序号升序）
+     * @return
+     */
+    public CompleteMultipartUploadResult completeMultipartUpload(String key, String uploadId, List<PartETag> partETagList) {
+        CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest(cosClientConfig.getBucket(), key,
+                uploadId, partETagList);
+        return cosClient.completeMultipartUpload(request);
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param key      唯一键
+     * @param uploadId 分片上传 id
+     */
+    public void abortMultipartUpload(String key, String uploadId) {
+        cosClient.abortMultipartUpload(new AbortMultipartUploadRequest(cosClientConfig.getBucket(), key, uploadId));
+    }
 }
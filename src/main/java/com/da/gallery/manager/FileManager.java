@@ -2,41 +2,65 @@ package com.da.gallery.manager;
 
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.io.NullOutputStream;
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.http.HttpResponse;
 import cn.hutool.http.HttpStatus;
-import cn.hutool.http.HttpUtil;
-import cn.hutool.http.Method;
 import com.da.gallery.common.ErrorCode;
-import com.da.gallery.config.CosClientConfig;
+import com.da.gallery.config.PictureUploadConfig;
 import com.da.gallery.exception.BusinessException;
 import com.da.gallery.exception.ThrowUtils;
+import com.da.gallery.manager.http.PublicAddressDnsResolver.BlockedAddressException;
+import com.da.gallery.manager.storage.PictureStorage;
 import com.da.gallery.model.dto.file.UploadPictureResult;
-import com.qcloud.cos.model.PutObjectResult;
-import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
+import com.da.gallery.model.enums.PictureUploadModeEnum;
+import com.da.gallery.utils.DigestCountingInputStream;
+import com.da.gallery.utils.ImageHeaderUtils;
+import com.da.gallery.utils.ImageHeaderUtils.ImageHeader;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Function;
 
 @Service
 @Slf4j
 public class FileManager {
 
+    /**
+     * 单张图片大小上限（2MB）
+     */
+    private static final long MAX_PICTURE_SIZE = 2 * 1024 * 1024L;
+
     @Resource
-    private CosManager cosManager;
+    private PictureStorage pictureStorage;
 
     @Resource
-    private CosClientConfig cosClientConfig;
+    private PictureUploadConfig pictureUploadConfig;
+
+    @Resource
+    private CloseableHttpClient pictureHttpClient;
 
     /**
      * 上传图片
@@ -46,35 +70,117 @@ public class FileManager {
      * @return
      */
     public UploadPictureResult uploadPicture(MultipartFile multipartFile, String uploadPathPrefix) {
+        return uploadPicture(multipartFile, uploadPathPrefix, contentHash -> null);
+    }
+
+    /**
+     * 按内容去重上传图片：算出内容哈希后先查找已有图片，命中时不再上传
+     *
+     * @param multipartFile    文件
+     * @param uploadPathPrefix 上传路径前缀
+     * @param deduplicator     按内容哈希（SHA-256）查找已有图片，未命中时返回 null
+     * @return 结果中带有内容哈希
+     */
+    public UploadPictureResult uploadPicture(MultipartFile multipartFile, String uploadPathPrefix,
+                                             Function<String, UploadPictureResult> deduplicator) {
         // 校验图片
         validPicture(multipartFile);
         // 图片上传地址
-        String uuid = RandomUtil.randomString(16);
-        String originFilename = multipartFile.getOriginalFilename();
-        String uploadFilename = String.format("%s_%s.%s", DateUtil.formatDate(new Date()), uuid,
-                FileUtil.getSuffix(originFilename));
-        String uploadPath = String.format("/%s/%s", uploadPathPrefix, uploadFilename);
+        String uploadPath = buildUploadPath(uploadPathPrefix, multipartFile.getOriginalFilename());
+        PictureUploadModeEnum uploadModeEnum = PictureUploadModeEnum.getEnumByValue(pictureUploadConfig.getMode());
+        if (PictureUploadModeEnum.FILE.equals(uploadModeEnum)) {
+            return uploadPictureByTempFile(multipartFile, uploadPath, deduplicator);
+        }
+        return uploadPictureByStream(multipartFile, uploadPath, deduplicator);
+    }
+
+    /**
+     * 流式上传：先解析图片头并算出内容哈希，未命中去重时把 multipart 输入流直接写入对象存储，边传边统计大小和 MD5
+     *
+     * @param multipartFile 文件
+     * @param uploadPath    上传路径
+     * @param deduplicator  按内容哈希查找已有图片
+     * @return
+     */
+    private UploadPictureResult uploadPictureByStream(MultipartFile multipartFile, String uploadPath,
+                                                      Function<String, UploadPictureResult> deduplicator) {
+        long contentLength = multipartFile.getSize();
+        try {
+            // 解析图片信息，同一遍读完剩余内容算出哈希（去重须在上传前完成）
+            ImageHeader imageHeader;
+            String contentHash;
+            try (DigestCountingInputStream headerStream = new DigestCountingInputStream(
+                    multipartFile.getInputStream(), MessageDigest.getInstance("SHA-256"))) {
+                imageHeader = parseImageHeader(headerStream);
+                contentHash = digestRemaining(headerStream);
+            }
+            UploadPictureResult duplicateResult = deduplicator.apply(contentHash);
+            if (duplicateResult != null) {
+                duplicateResult.setContentHash(contentHash);
+                return duplicateResult;
+            }
+            try (DigestCountingInputStream inputStream = new DigestCountingInputStream(multipartFile.getInputStream(),
+                    MessageDigest.getInstance("MD5"))) {
+                // 上传图片
+                String eTag = pictureStorage.put(uploadPath, inputStream, contentLength, multipartFile.getContentType());
+                // 校验实际传输的字节数和内容摘要，防止写入不完整的对象
+                ThrowUtils.throwIf(inputStream.getCount() != contentLength, ErrorCode.SYSTEM_ERROR, "上传数据不完整");
+                String md5 = HexUtil.encodeHexStr(inputStream.getMessageDigest().digest());
+                if (StrUtil.isNotBlank(eTag) && !StrUtil.equalsIgnoreCase(md5, eTag)) {
+                    log.error("picture md5 mismatch, key = {}, md5 = {}, etag = {}", uploadPath, md5, eTag);
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传数据校验失败");
+                }
+                UploadPictureResult uploadPictureResult = buildUploadPictureResult(imageHeader,
+                        multipartFile.getOriginalFilename(), inputStream.getCount(), uploadPath);
+                uploadPictureResult.setContentHash(contentHash);
+                return uploadPictureResult;
+            }
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("图片上传到对象存储失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+        }
+    }
+
+    /**
+     * 临时文件上传：先落盘再上传
+     *
+     * @param multipartFile 文件
+     * @param uploadPath    上传路径
+     * @param deduplicator  按内容哈希查找已有图片
+     * @return
+     */
+    private UploadPictureResult uploadPictureByTempFile(MultipartFile multipartFile, String uploadPath,
+                                                        Function<String, UploadPictureResult> deduplicator) {
         File file = null;
         try {
             // 创建临时文件
             file = File.createTempFile(uploadPath, null);
             multipartFile.transferTo(file);
+            // 解析图片信息，同一遍读完剩余内容算出哈希
+            ImageHeader imageHeader;
+            String contentHash;
+            try (DigestCountingInputStream headerStream = new DigestCountingInputStream(
+                    FileUtil.getInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+                imageHeader = parseImageHeader(headerStream);
+                contentHash = digestRemaining(headerStream);
+            }
+            UploadPictureResult duplicateResult = deduplicator.apply(contentHash);
+            if (duplicateResult != null) {
+                duplicateResult.setContentHash(contentHash);
+                return duplicateResult;
+            }
             // 上传图片
-            PutObjectResult putObjectResult = cosManager.putPictureObject(uploadPath, file);
-            ImageInfo imageInfo = putObjectResult.getCiUploadResult().getOriginalInfo().getImageInfo();
-            // 封装返回结果
-            UploadPictureResult uploadPictureResult = new UploadPictureResult();
-            int picWidth = imageInfo.getWidth();
-            int picHeight = imageInfo.getHeight();
-            double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
-            uploadPictureResult.setName(FileUtil.mainName(originFilename));
-            uploadPictureResult.setPicWidth(picWidth);
-            uploadPictureResult.setPicHeight(picHeight);
-            uploadPictureResult.setPicScale(picScale);
-            uploadPictureResult.setPicFormat(imageInfo.getFormat());
-            uploadPictureResult.setPicSize(FileUtil.size(file));
-            uploadPictureResult.setUrl(cosClientConfig.getHost() + "/" + uploadPath);
+            try (InputStream inputStream = FileUtil.getInputStream(file)) {
+                pictureStorage.put(uploadPath, inputStream, file.length(), multipartFile.getContentType());
+            }
+            UploadPictureResult uploadPictureResult = buildUploadPictureResult(imageHeader,
+                    multipartFile.getOriginalFilename(), FileUtil.size(file), uploadPath);
+            uploadPictureResult.setContentHash(contentHash);
             return uploadPictureResult;
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("图片上传到对象存储失败", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
@@ -83,6 +189,72 @@ public class FileManager {
         }
     }
 
+    /**
+     * 读完摘要流中剩余的内容，返回整个内容的摘要
+     *
+     * @param inputStream 已读过图片头的摘要流
+     * @return 十六进制摘要
+     * @throws IOException
+     */
+    private static String digestRemaining(DigestCountingInputStream inputStream) throws IOException {
+        IoUtil.copy(inputStream, new NullOutputStream());
+        return HexUtil.encodeHexStr(inputStream.getMessageDigest().digest());
+    }
+
+    /**
+     * 生成上传路径
+     *
+     * @param uploadPathPrefix 上传路径前缀
+     * @param originFilename   原始文件名
+     * @return
+     */
+    public String buildUploadPath(String uploadPathPrefix, String originFilename) {
+        String uuid = RandomUtil.randomString(16);
+        String uploadFilename = String.format("%s_%s.%s", DateUtil.formatDate(new Date()), uuid,
+                FileUtil.getSuffix(originFilename));
+        return String.format("/%s/%s", uploadPathPrefix, uploadFilename);
+    }
+
+    /**
+     * 本地解析图片头，获取宽高和格式（无需对象存储的数据万象处理）
+     *
+     * @param inputStream 图片输入流
+     * @return
+     * @throws IOException
+     */
+    public ImageHeader parseImageHeader(InputStream inputStream) throws IOException {
+        ImageHeader imageHeader = ImageHeaderUtils.parse(inputStream);
+        ThrowUtils.throwIf(imageHeader == null, ErrorCode.PARAMS_ERROR, "无法识别的图片格式");
+        ThrowUtils.throwIf(imageHeader.getWidth() <= 0 || imageHeader.getHeight() <= 0,
+                ErrorCode.PARAMS_ERROR, "图片尺寸不合法");
+        return imageHeader;
+    }
+
+    /**
+     * 封装返回结果
+     *
+     * @param imageHeader    图片头信息
+     * @param originFilename 原始文件名
+     * @param picSize        图片体积
+     * @param uploadPath     上传路径
+     * @return
+     */
+    public UploadPictureResult buildUploadPictureResult(ImageHeader imageHeader, String originFilename, long picSize,
+                                                        String uploadPath) {
+        UploadPictureResult uploadPictureResult = new UploadPictureResult();
+        int picWidth = imageHeader.getWidth();
+        int picHeight = imageHeader.getHeight();
+        double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
+        uploadPictureResult.setName(FileUtil.mainName(originFilename));
+        uploadPictureResult.setPicWidth(picWidth);
+        uploadPictureResult.setPicHeight(picHeight);
+        uploadPictureResult.setPicScale(picScale);
+        uploadPictureResult.setPicFormat(imageHeader.getFormat());
+        uploadPictureResult.setPicSize(picSize);
+        uploadPictureResult.setUrl(pictureStorage.getUrl(uploadPath));
+        return uploadPictureResult;
+    }
+
     /**
      * 校验文件
      *
@@ -92,10 +264,18 @@ public class FileManager {
         ThrowUtils.throwIf(multipartFile == null, ErrorCode.PARAMS_ERROR, "文件不能为空");
         // 1. 校验文件大小
         long fileSize = multipartFile.getSize();
-        final long ONE_M = 1024 * 1024L;
-        ThrowUtils.throwIf(fileSize > 2 * ONE_M, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+        ThrowUtils.throwIf(fileSize > MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
         // 2. 校验文件后缀
-        String fileSuffix = FileUtil.getSuffix(multipartFile.getOriginalFilename());
+        validPictureSuffix(multipartFile.getOriginalFilename());
+    }
+
+    /**
+     * 校验文件后缀
+     *
+     * @param originFilename 原始文件名
+     */
+    public void validPictureSuffix(String originFilename) {
+        String fileSuffix = FileUtil.getSuffix(originFilename);
         // 允许上传的文件后缀
         final List<String> ALLOW_FORMAT_LIST = Arrays.asList("jpeg", "jpg", "png", "webp");
         ThrowUtils.throwIf(!ALLOW_FORMAT_LIST.contains(fileSuffix), ErrorCode.PARAMS_ERROR, "文件类型错误");
@@ -116,6 +296,73 @@ public class FileManager {
     }
 
 
+    /**
+     * 上传图片（已读入内存的图片，如按 URL 导入）
+     *
+     * @param bytes            图片内容
+     * @param originFilename   原始文件名（后缀以实际解析出的格式为准）
+     * @param uploadPathPrefix 上传路径前缀
+     * @return
+     */
+    public UploadPictureResult uploadPicture(byte[] bytes, String originFilename, String uploadPathPrefix) {
+        try {
+            ImageHeader imageHeader = parseImageHeader(new ByteArrayInputStream(bytes));
+            String filename = FileUtil.mainName(originFilename) + "." + imageHeader.getFormat();
+            String uploadPath = buildUploadPath(uploadPathPrefix, filename);
+            String contentType = "image/" + ("jpg".equals(imageHeader.getFormat()) ? "jpeg" : imageHeader.getFormat());
+            pictureStorage.put(uploadPath, new ByteArrayInputStream(bytes), bytes.length, contentType);
+            return buildUploadPictureResult(imageHeader, filename, bytes.length, uploadPath);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("图片上传到对象存储失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+        }
+    }
+
+    /**
+     * 下载网络图片（先 HEAD 校验，再流式读取，超过大小限制立即中断，不依赖 Content-Length）
+     *
+     * @param fileUrl 文件地址
+     * @return 图片内容
+     */
+    public byte[] downloadPicture(String fileUrl) {
+        validPicture(fileUrl);
+        HttpGet httpGet = new HttpGet(fileUrl);
+        try (CloseableHttpResponse response = pictureHttpClient.execute(httpGet)) {
+            ThrowUtils.throwIf(response.getStatusLine().getStatusCode() != HttpStatus.HTTP_OK,
+                    ErrorCode.PARAMS_ERROR, "文件下载失败");
+            HttpEntity entity = response.getEntity();
+            ThrowUtils.throwIf(entity == null, ErrorCode.PARAMS_ERROR, "文件下载失败");
+            validPictureContentType(entity.getContentType() == null ? null : entity.getContentType().getValue());
+            long contentLength = entity.getContentLength();
+            ThrowUtils.throwIf(contentLength > MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(
+                    contentLength > 0 ? (int) contentLength : 64 * 1024);
+            byte[] buffer = new byte[8192];
+            try (InputStream inputStream = entity.getContent()) {
+                int n;
+                while ((n = inputStream.read(buffer)) != -1) {
+                    if (outputStream.size() + n > MAX_PICTURE_SIZE) {
+                        // 中断连接，不再读完剩余数据
+                        httpGet.abort();
+                        throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+                    }
+                    outputStream.write(buffer, 0, n);
+                }
+            }
+            ThrowUtils.throwIf(outputStream.size() == 0, ErrorCode.PARAMS_ERROR, "文件不能为空");
+            return outputStream.toByteArray();
+        } catch (BusinessException e) {
+            throw e;
+        } catch (BlockedAddressException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "不支持的文件地址");
+        } catch (IOException e) {
+            log.error("download picture error, url = {}", fileUrl, e);
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件下载失败");
+        }
+    }
+
     /**
      * 根据 url 检验文件
      * @param fileUrl
@@ -133,40 +380,45 @@ public class FileManager {
         ThrowUtils.throwIf(!(fileUrl.startsWith("http://") || fileUrl.startsWith("https://")),
                 ErrorCode.PARAMS_ERROR, "仅支持 HTTP 或 HTTPS 协议的文件地址");
 
-        // 3. 发送 HEAD 请求以验证文件是否存在
-        HttpResponse response = null;
-        try {
-            response = HttpUtil.createRequest(Method.HEAD, fileUrl).execute();
-            // 未正常返回，无需执行其他判断
-            if (response.getStatus() != HttpStatus.HTTP_OK) {
+        // 3. 发送 HEAD 请求以验证文件是否存在（连接池建立连接时拒绝内网地址）
+        try (CloseableHttpResponse response = pictureHttpClient.execute(new HttpHead(fileUrl))) {
+            // 未正常返回（部分服务不支持 HEAD），无需执行其他判断
+            if (response.getStatusLine().getStatusCode() != HttpStatus.HTTP_OK) {
                 return;
             }
             // 4. 校验文件类型
-            String contentType = response.header("Content-Type");
-            if (StrUtil.isNotBlank(contentType)) {
-                // 允许的图片类型
-                final List<String> ALLOW_CONTENT_TYPES = Arrays.asList("image/jpeg", "image/jpg", "image/png", "image/webp");
-                ThrowUtils.throwIf(!ALLOW_CONTENT_TYPES.contains(contentType.toLowerCase()),
-                        ErrorCode.PARAMS_ERROR, "文件类型错误");
-            }
+            Header contentType = response.getFirstHeader("Content-Type");
+            validPictureContentType(contentType == null ? null : contentType.getValue());
             // 5. 校验文件大小
-            String contentLengthStr = response.header("Content-Length");
-            if (StrUtil.isNotBlank(contentLengthStr)) {
+            Header contentLength = response.getFirstHeader("Content-Length");
+            if (contentLength != null && StrUtil.isNotBlank(contentLength.getValue())) {
                 try {
-                    long contentLength = Long.parseLong(contentLengthStr);
-                    final long TWO_MB = 2 * 1024 * 1024L; // 限制文件大小为 2MB
-                    ThrowUtils.throwIf(contentLength > TWO_MB, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+                    ThrowUtils.throwIf(Long.parseLong(contentLength.getValue()) > MAX_PICTURE_SIZE,
+                            ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
                 } catch (NumberFormatException e) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小格式错误");
                 }
             }
-        } finally {
-            if (response != null) {
-                response.close();
-            }
+        } catch (BlockedAddressException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "不支持的文件地址");
+        } catch (IOException e) {
+            log.error("head picture error, url = {}", fileUrl, e);
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件地址无法访问");
         }
     }
 
-
-
+    /**
+     * 校验文件类型（响应头没有类型时跳过，以实际解析的图片头为准）
+     *
+     * @param contentType Content-Type 响应头
+     */
+    private void validPictureContentType(String contentType) {
+        if (StrUtil.isBlank(contentType)) {
+            return;
+        }
+        // 允许的图片类型（去掉 charset 等参数）
+        final List<String> ALLOW_CONTENT_TYPES = Arrays.asList("image/jpeg", "image/jpg", "image/png", "image/webp");
+        String mimeType = StrUtil.subBefore(contentType, ";", false).trim().toLowerCase();
+        ThrowUtils.throwIf(!ALLOW_CONTENT_TYPES.contains(mimeType), ErrorCode.PARAMS_ERROR, "文件类型错误");
+    }
 }
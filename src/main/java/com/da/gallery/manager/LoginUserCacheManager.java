@@ -0,0 +1,186 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.util.NumberUtil;
+import com.da.gallery.config.UserCacheConfig;
+import com.da.gallery.manager.cache.DistributedCache;
+import com.da.gallery.mapper.UserMapper;
+import com.da.gallery.model.dto.user.LoginUserState;
+import com.da.gallery.model.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录用户缓存
+ * <p>
+ * 每个用户有一个全局递增的版本号，修改、删除、封禁用户时自增并广播失效。
+ * 本地缓存按用户 id 保存用户和读取时的版本；会话中记录已知的最新版本，
+ * 某个节点错过失效通知时，会话版本比本地缓存新，也会重新读取
+ */
+@Component
+@Slf4j
+public class LoginUserCacheManager {
+
+    private static final String VERSION_KEY_PREFIX = "user:login:version:";
+
+    /**
+     * 登录用户失效通知的频道
+     */
+    private static final String INVALIDATE_CHANNEL = "user:login:invalidate";
+
+    @Resource
+    private UserCacheConfig userCacheConfig;
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private DistributedCache distributedCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, VersionedUser> loginUserCache;
+
+    @PostConstruct
+    public void init() {
+        loginUserCache = Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getLoginCacheMaxSize())
+                .expireAfterWrite(userCacheConfig.getLoginCacheSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, loginUserCache, "user.login");
+        distributedCache.subscribe(INVALIDATE_CHANNEL,
+                message -> loginUserCache.invalidate(Long.valueOf(message)));
+    }
+
+    /**
+     * 登录时生成会话中的登录态
+     *
+     * @param user 登录用户
+     * @return 登录态
+     */
+    public LoginUserState createState(User user) {
+        long version = getVersion(user.getId());
+        loginUserCache.put(user.getId(), new VersionedUser(copy(user), version));
+        return new LoginUserState(user.getId(), user.getUserRole(), version);
+    }
+
+    /**
+     * 根据登录态获取用户
+     *
+     * @param state 会话中的登录态，读到更新的版本时会更新其中的版本号和角色
+     * @return 用户不存在时返回 null
+     */
+    public User getUser(LoginUserState state) {
+        VersionedUser versionedUser = getVersionedUser(state);
+        if (versionedUser == null) {
+            return null;
+        }
+        long stateVersion = state.getVersion() == null ? 0 : state.getVersion();
+        if (versionedUser.getVersion() > stateVersion) {
+            state.setVersion(versionedUser.getVersion());
+            state.setUserRole(versionedUser.getUser().getUserRole());
+        }
+        return copy(versionedUser.getUser());
+    }
+
+    /**
+     * 根据令牌中的登录态获取用户，用户版本已经变化（令牌被吊销）时返回 null
+     *
+     * @param state 令牌中的登录态
+     * @return
+     */
+    public User getCurrentUser(LoginUserState state) {
+        VersionedUser versionedUser = getVersionedUser(state);
+        if (versionedUser == null || !Long.valueOf(versionedUser.getVersion()).equals(state.getVersion())) {
+            return null;
+        }
+        return copy(versionedUser.getUser());
+    }
+
+    /**
+     * 读取本地缓存的用户，缓存版本比登录态旧时重新查询
+     */
+    private VersionedUser getVersionedUser(LoginUserState state) {
+        Long userId = state.getUserId();
+        VersionedUser versionedUser = loginUserCache.getIfPresent(userId);
+        long stateVersion = state.getVersion() == null ? 0 : state.getVersion();
+        if (versionedUser == null || versionedUser.getVersion() < stateVersion) {
+            // 先读版本再读用户，读取期间发生的修改会通过失效通知清掉这条缓存
+            long version = getVersion(userId);
+            User user = userMapper.selectById(userId);
+            if (user == null) {
+                loginUserCache.invalidate(userId);
+                return null;
+            }
+            versionedUser = new VersionedUser(user, version);
+            loginUserCache.put(userId, versionedUser);
+        }
+        return versionedUser;
+    }
+
+    /**
+     * 用户修改、删除、封禁后自增版本并失效所有节点的缓存
+     * <p>
+     * 分布式缓存失败时只记录日志（用户已经更新，其他节点的旧数据等待本地缓存过期）
+     *
+     * @param userId 用户 id
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        loginUserCache.invalidate(userId);
+        try {
+            distributedCache.increment(VERSION_KEY_PREFIX + userId);
+            distributedCache.publish(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.error("publish login user invalidation failed, userId = {}", userId, e);
+        }
+    }
+
+    /**
+     * 读取用户版本，读取失败时按 0 处理（令牌视为已吊销，会话登录态不升级）
+     */
+    private long getVersion(Long userId) {
+        String version = null;
+        try {
+            version = distributedCache.get(VERSION_KEY_PREFIX + userId);
+        } catch (Exception e) {
+            log.warn("read login user version failed, userId = {}", userId, e);
+        }
+        return NumberUtil.isLong(version) ? Long.parseLong(version) : 0;
+    }
+
+    /**
+     * 返回副本，调用方修改不影响缓存
+     */
+    private static User copy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+
+    /**
+     * 带版本的用户
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class VersionedUser {
+
+        private final User user;
+
+        private final long version;
+    }
+}
@@ -0,0 +1,342 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.da.gallery.common.ErrorCode;
+import com.da.gallery.config.PictureUploadConfig;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.exception.ThrowUtils;
+import com.da.gallery.manager.storage.PictureStorage;
+import com.da.gallery.model.dto.file.UploadPictureResult;
+import com.da.gallery.model.vo.PictureMultipartUploadVO;
+import com.da.gallery.utils.ImageHeaderUtils.ImageHeader;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * 图片分片上传（支持断点续传）
+ * <p>
+ * 上传任务只保存在当前节点内存中，多节点部署时需要按 uploadId 做会话保持
+ */
+@Component
+@Slf4j
+public class MultipartUploadManager {
+
+    /**
+     * 完成上传时等待在途分片的最长时间（秒）
+     */
+    private static final long PENDING_PART_TIMEOUT_SECONDS = 60;
+
+    @Resource
+    private PictureStorage pictureStorage;
+
+    @Resource
+    private FileManager fileManager;
+
+    @Resource
+    private PictureUploadConfig pictureUploadConfig;
+
+    /**
+     * 进行中的分片上传任务（uploadId => 任务）
+     */
+    private final Map<String, MultipartUploadSession> sessionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 分片上传线程池（有界队列，满了直接拒绝，不占用 Tomcat 线程排队）
+     */
+    private ThreadPoolExecutor partUploadExecutor;
+
+    @PostConstruct
+    public void init() {
+        PictureUploadConfig.Multipart multipartConfig = pictureUploadConfig.getMultipart();
+        partUploadExecutor = new ThreadPoolExecutor(multipartConfig.getThreads(), multipartConfig.getThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(multipartConfig.getQueueCapacity()),
+                ThreadFactoryBuilder.create().setNamePrefix("picture-part-upload-").build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        partUploadExecutor.shutdown();
+    }
+
+    /**
+     * 初始化分片上传
+     *
+     * @param originFilename   原始文件名
+     * @param fileSize         文件大小
+     * @param uploadPathPrefix 上传路径前缀
+     * @param userId           上传用户 id
+     * @param pictureId        图片 id（更新图片时不为空）
+     * @return
+     */
+    public PictureMultipartUploadVO initUpload(String originFilename, long fileSize, String uploadPathPrefix,
+                                               Long userId, Long pictureId) {
+        PictureUploadConfig.Multipart multipartConfig = pictureUploadConfig.getMultipart();
+        ThrowUtils.throwIf(fileSize <= 0, ErrorCode.PARAMS_ERROR, "文件不能为空");
+        ThrowUtils.throwIf(fileSize > multipartConfig.getMaxFileSize(), ErrorCode.PARAMS_ERROR,
+                String.format("文件大小不能超过 %sM", multipartConfig.getMaxFileSize() / 1024 / 1024));
+        fileManager.validPictureSuffix(originFilename);
+        String uploadPath = fileManager.buildUploadPath(uploadPathPrefix, originFilename);
+        String uploadId = pictureStorage.initiateMultipartUpload(uploadPath);
+        MultipartUploadSession session = new MultipartUploadSession(uploadId, uploadPath, originFilename, fileSize,
+                multipartConfig.getPartSize(), userId, pictureId);
+        sessionMap.put(uploadId, session);
+        return toVO(session);
+    }
+
+    /**
+     * 上传分片（异步写入对象存储，已确认的分片直接跳过）
+     *
+     * @param uploadId   分片上传 id
+     * @param partNumber 分片序号
+     * @param part       分片内容
+     * @param userId     上传用户 id
+     * @return
+     */
+    public PictureMultipartUploadVO uploadPart(String uploadId, Integer partNumber, MultipartFile part, Long userId) {
+        MultipartUploadSession session = getSession(uploadId, userId);
+        ThrowUtils.throwIf(partNumber == null || partNumber < 1 || partNumber > session.getPartCount(),
+                ErrorCode.PARAMS_ERROR, "分片序号错误");
+        ThrowUtils.throwIf(part == null || part.getSize() != session.getPartSize(partNumber),
+                ErrorCode.PARAMS_ERROR, "分片大小错误");
+        // 断点续传：已确认的分片不再重复上传
+        if (session.getPartETagMap().containsKey(partNumber)) {
+            return toVO(session);
+        }
+        byte[] bytes;
+        try {
+            bytes = part.getBytes();
+            // 第一个分片包含文件头，提前解析，格式不对直接拒绝
+            if (partNumber == 1) {
+                session.setImageHeader(fileManager.parseImageHeader(new ByteArrayInputStream(bytes)));
+            }
+        } catch (IOException e) {
+            log.error("read picture part error, uploadId = {}, partNumber = {}", uploadId, partNumber, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "分片读取失败");
+        }
+        // 同一分片正在上传时不重复提交
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (session.getPendingMap().putIfAbsent(partNumber, future) != null) {
+            return toVO(session);
+        }
+        try {
+            partUploadExecutor.execute(() -> {
+                try {
+                    String partETag = pictureStorage.uploadPart(session.getUploadPath(), uploadId, partNumber,
+                            new ByteArrayInputStream(bytes), bytes.length);
+                    session.getPartETagMap().put(partNumber, partETag);
+                    future.complete(null);
+                } catch (Exception e) {
+                    log.error("upload picture part error, uploadId = {}, partNumber = {}", uploadId, partNumber, e);
+                    future.completeExceptionally(e);
+                } finally {
+                    session.getPendingMap().remove(partNumber, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            session.getPendingMap().remove(partNumber, future);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "上传繁忙，请稍后重试");
+        }
+        return toVO(session);
+    }
+
+    /**
+     * 查询上传进度
+     *
+     * @param uploadId 分片上传 id
+     * @param userId   上传用户 id
+     * @return
+     */
+    public PictureMultipartUploadVO getUploadStatus(String uploadId, Long userId) {
+        return toVO(getSession(uploadId, userId));
+    }
+
+    /**
+     * 获取上传任务
+     *
+     * @param uploadId 分片上传 id
+     * @param userId   上传用户 id
+     * @return
+     */
+    public MultipartUploadSession getSession(String uploadId, Long userId) {
+        ThrowUtils.throwIf(uploadId == null, ErrorCode.PARAMS_ERROR, "分片上传 id 不能为空");
+        MultipartUploadSession session = sessionMap.get(uploadId);
+        ThrowUtils.throwIf(session == null, ErrorCode.NOT_FOUND_ERROR, "上传任务不存在或已过期");
+        ThrowUtils.throwIf(!session.getUserId().equals(userId), ErrorCode.NO_AUTH_ERROR);
+        return session;
+    }
+
+    /**
+     * 完成分片上传（等待在途分片，合并对象）
+     *
+     * @param uploadId 分片上传 id
+     * @param userId   上传用户 id
+     * @return
+     */
+    public UploadPictureResult completeUpload(String uploadId, Long userId) {
+        MultipartUploadSession session = getSession(uploadId, userId);
+        synchronized (session) {
+            ThrowUtils.throwIf(!sessionMap.containsKey(uploadId), ErrorCode.NOT_FOUND_ERROR, "上传任务已完成");
+            // 等待仍在上传中的分片
+            for (CompletableFuture<Void> future : session.getPendingMap().values()) {
+                try {
+                    future.get(PENDING_PART_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传被中断");
+                } catch (ExecutionException | TimeoutException e) {
+                    // 失败的分片会体现在缺失列表中，由客户端重传
+                }
+            }
+            List<Integer> missingPartList = new ArrayList<>();
+            for (int partNumber = 1; partNumber <= session.getPartCount(); partNumber++) {
+                if (!session.getPartETagMap().containsKey(partNumber)) {
+                    missingPartList.add(partNumber);
+                }
+            }
+            ThrowUtils.throwIf(!missingPartList.isEmpty(), ErrorCode.PARAMS_ERROR, "分片未上传完成：" + missingPartList);
+            try {
+                pictureStorage.completeMultipartUpload(session.getUploadPath(), uploadId,
+                        new TreeMap<>(session.getPartETagMap()));
+            } catch (Exception e) {
+                log.error("complete multipart upload error, uploadId = {}", uploadId, e);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+            }
+            sessionMap.remove(uploadId);
+            return fileManager.buildUploadPictureResult(session.getImageHeader(), session.getOriginFilename(),
+                    session.getFileSize(), session.getUploadPath());
+        }
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param uploadId 分片上传 id
+     * @param userId   上传用户 id
+     */
+    public void abortUpload(String uploadId, Long userId) {
+        MultipartUploadSession session = getSession(uploadId, userId);
+        abort(session);
+    }
+
+    /**
+     * 定时清理过期的上传任务
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000)
+    public void cleanExpiredUpload() {
+        long expireMillis = TimeUnit.MINUTES.toMillis(pictureUploadConfig.getMultipart().getExpireMinutes());
+        long now = System.currentTimeMillis();
+        for (MultipartUploadSession session : sessionMap.values()) {
+            if (now - session.getCreateTime() > expireMillis) {
+                log.info("multipart upload expired, uploadId = {}", session.getUploadId());
+                abort(session);
+            }
+        }
+    }
+
+    private void abort(MultipartUploadSession session) {
+        sessionMap.remove(session.getUploadId());
+        try {
+            pictureStorage.abortMultipartUpload(session.getUploadPath(), session.getUploadId());
+        } catch (Exception e) {
+            log.error("abort multipart upload error, uploadId = {}", session.getUploadId(), e);
+        }
+    }
+
+    private PictureMultipartUploadVO toVO(MultipartUploadSession session) {
+        PictureMultipartUploadVO uploadVO = new PictureMultipartUploadVO();
+        uploadVO.setUploadId(session.getUploadId());
+        uploadVO.setPartSize(session.getPartSize());
+        uploadVO.setPartCount(session.getPartCount());
+        uploadVO.setUploadedPartList(session.getPartETagMap().keySet().stream().sorted().collect(Collectors.toList()));
+        return uploadVO;
+    }
+
+    /**
+     * 分片上传任务
+     */
+    @Getter
+    public static class MultipartUploadSession {
+
+        private final String uploadId;
+
+        private final String uploadPath;
+
+        private final String originFilename;
+
+        private final long fileSize;
+
+        private final long partSize;
+
+        private final int partCount;
+
+        private final Long userId;
+
+        /**
+         * 图片 id（更新图片时不为空）
+         */
+        private final Long pictureId;
+
+        private final long createTime = System.currentTimeMillis();
+
+        /**
+         * 已确认的分片
+         */
+        private final Map<Integer, String> partETagMap = new ConcurrentHashMap<>();
+
+        /**
+         * 上传中的分片
+         */
+        private final Map<Integer, CompletableFuture<Void>> pendingMap = new ConcurrentHashMap<>();
+
+        /**
+         * 图片头信息（由第一个分片解析）
+         */
+        private volatile ImageHeader imageHeader;
+
+        public MultipartUploadSession(String uploadId, String uploadPath, String originFilename, long fileSize,
+                                      long partSize, Long userId, Long pictureId) {
+            this.uploadId = uploadId;
+            this.uploadPath = uploadPath;
+            this.originFilename = originFilename;
+            this.fileSize = fileSize;
+            this.partSize = partSize;
+            this.partCount = (int) ((fileSize + partSize - 1) / partSize);
+            this.userId = userId;
+            this.pictureId = pictureId;
+        }
+
+        /**
+         * 指定分片的大小（最后一片可能不足 partSize）
+         */
+        public long getPartSize(int partNumber) {
+            return partNumber < partCount ? partSize : fileSize - partSize * (partCount - 1);
+        }
+
+        public void setImageHeader(ImageHeader imageHeader) {
+            this.imageHeader = imageHeader;
+        }
+    }
+}
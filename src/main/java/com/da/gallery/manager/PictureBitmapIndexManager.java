@@ -0,0 +1,378 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.constant.CommonConstant;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import com.da.gallery.model.enums.PictureTagMatchModeEnum;
+import com.da.gallery.utils.PictureTagUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 审核通过图片的内存位图索引
+ * <p>
+ * 每个分类、标签、格式各维护一个图片 id 的压缩位图（Roaring），公开图片列表只按这几个条件筛选时，
+ * 直接在内存中求交/并得到 id 集合并按 id 切出当前页，再用一次 listByIds 取数据，不再查询 COUNT。
+ * 启动时全量重建，图片新增、审核、编辑、删除后按 id 增量更新
+ */
+@Component
+@Slf4j
+public class PictureBitmapIndexManager {
+
+    /**
+     * 重建时每批扫描的图片数
+     */
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    /**
+     * 可以用 id 顺序代替的排序字段（雪花 id 随创建时间递增）
+     */
+    private static final List<String> ID_ORDERED_SORT_FIELDS = CollUtil.newArrayList("id", "createTime");
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 当前索引（重建完成后整体替换）
+     */
+    private volatile BitmapIndex index;
+
+    /**
+     * 重建期间发生变更的图片 id（重建完成后补做增量更新）
+     */
+    private final Set<Long> pendingIdSet = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean rebuilding;
+
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    public void init() {
+        rebuildTimer = Timer.builder("picture.bitmap.index.rebuild")
+                .description("位图索引全量重建耗时")
+                .register(meterRegistry);
+        Gauge.builder("picture.bitmap.index.memory", this, PictureBitmapIndexManager::getMemoryBytes)
+                .description("位图索引占用内存（字节）")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("picture.bitmap.index.pictures", this, PictureBitmapIndexManager::getPictureCount)
+                .description("位图索引中的审核通过图片数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动完成后在后台重建，重建完成前查询走数据库
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (pictureQueryConfig.isBitmapIndexEnabled()) {
+            ThreadUtil.newThread(this::rebuild, "picture-bitmap-index-rebuild", true).start();
+        }
+    }
+
+    /**
+     * 全量重建：按 id 分批扫描审核通过的图片
+     */
+    public void rebuild() {
+        rebuilding = true;
+        try {
+            BitmapIndex newIndex = rebuildTimer.recordCallable(this::loadIndex);
+            lock.writeLock().lock();
+            try {
+                index = newIndex;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("picture bitmap index rebuilt, pictures = {}, memory = {} bytes",
+                    getPictureCount(), getMemoryBytes());
+        } catch (Exception e) {
+            log.error("picture bitmap index rebuild error", e);
+        } finally {
+            rebuilding = false;
+            // 补做重建期间的变更
+            for (Iterator<Long> iterator = pendingIdSet.iterator(); iterator.hasNext(); ) {
+                Long pictureId = iterator.next();
+                iterator.remove();
+                reindex(pictureId);
+            }
+        }
+    }
+
+    /**
+     * 图片变更后按 id 更新索引
+     *
+     * @param pictureIdList 图片 id
+     */
+    public void onPictureChanged(Collection<Long> pictureIdList) {
+        if (!pictureQueryConfig.isBitmapIndexEnabled() || CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        pictureIdList.stream().filter(Objects::nonNull).forEach(this::reindex);
+    }
+
+    /**
+     * 按 id 重新读取图片并更新索引
+     *
+     * @param pictureId 图片 id
+     */
+    public void reindex(Long pictureId) {
+        if (rebuilding) {
+            pendingIdSet.add(pictureId);
+        }
+        BitmapIndex currentIndex = index;
+        if (currentIndex == null) {
+            return;
+        }
+        Picture picture;
+        try {
+            picture = pictureMapper.selectOne(new QueryWrapper<Picture>()
+                    .select("id", "category", "tags", "picFormat", "reviewStatus")
+                    .eq("id", pictureId));
+        } catch (Exception e) {
+            log.error("picture bitmap index reindex error, pictureId = {}", pictureId, e);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            currentIndex.remove(pictureId);
+            if (picture != null && Integer.valueOf(PictureReviewStatusEnum.PASS.getValue()).equals(picture.getReviewStatus())) {
+                currentIndex.add(picture);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用索引分页查询图片 id
+     *
+     * @param pictureQueryRequest 查询条件
+     * @return 当前页的图片 id（按排序顺序）和总数；查询条件无法由索引回答时返回 null
+     */
+    public Page<Long> pagePictureIds(PictureQueryRequest pictureQueryRequest) {
+        BitmapIndex currentIndex = index;
+        if (!pictureQueryConfig.isBitmapIndexEnabled() || currentIndex == null || !supports(pictureQueryRequest)) {
+            return null;
+        }
+        Roaring64NavigableMap bitmap;
+        lock.readLock().lock();
+        try {
+            bitmap = currentIndex.filter(pictureQueryRequest);
+        } finally {
+            lock.readLock().unlock();
+        }
+        long current = pictureQueryRequest.getCurrent();
+        long size = pictureQueryRequest.getPageSize();
+        long total = bitmap.getLongCardinality();
+        Page<Long> idPage = new Page<>(current, size, total);
+        boolean asc = CommonConstant.SORT_ORDER_ASC.equals(pictureQueryRequest.getSortOrder())
+                || pictureQueryRequest.getSortField() == null;
+        List<Long> idList = new ArrayList<>();
+        for (long i = (current - 1) * size; i < Math.min(current * size, total); i++) {
+            // select(j) 返回第 j 小的 id
+            idList.add(bitmap.select(asc ? i : total - 1 - i));
+        }
+        idPage.setRecords(idList);
+        return idPage;
+    }
+
+    /**
+     * 只有审核通过、按分类/标签/格式筛选、按 id 顺序排序的查询可以走索引
+     */
+    private boolean supports(PictureQueryRequest q) {
+        if (q == null || q.getCurrent() <= 0 || q.getPageSize() <= 0
+                || !Integer.valueOf(PictureReviewStatusEnum.PASS.getValue()).equals(q.getReviewStatus())) {
+            return false;
+        }
+        if (q.getSortField() != null && !ID_ORDERED_SORT_FIELDS.contains(q.getSortField())) {
+            return false;
+        }
+        return ObjectUtils.allNull(q.getId(), q.getPicSize(), q.getPicWidth(), q.getPicHeight(), q.getPicScale(),
+                q.getUserId(), q.getReviewerId(), q.getCursor())
+                && StrUtil.isAllBlank(q.getName(), q.getIntroduction(), q.getSearchText(), q.getReviewMessage());
+    }
+
+    public long getMemoryBytes() {
+        BitmapIndex currentIndex = index;
+        if (currentIndex == null) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return currentIndex.getMemoryBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getPictureCount() {
+        BitmapIndex currentIndex = index;
+        if (currentIndex == null) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return currentIndex.approved.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitmapIndex loadIndex() {
+        long startTime = System.nanoTime();
+        BitmapIndex newIndex = new BitmapIndex();
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                    .select("id", "category", "tags", "picFormat")
+                    .eq("reviewStatus", PictureReviewStatusEnum.PASS.getValue())
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("limit " + REBUILD_BATCH_SIZE));
+            if (CollUtil.isEmpty(pictureList)) {
+                break;
+            }
+            pictureList.forEach(newIndex::add);
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+            if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        newIndex.runOptimize();
+        log.info("picture bitmap index loaded in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return newIndex;
+    }
+
+    /**
+     * 位图索引数据（读写都在外部加锁）
+     */
+    private static class BitmapIndex {
+
+        /**
+         * 全部审核通过的图片
+         */
+        private final Roaring64NavigableMap approved = new Roaring64NavigableMap();
+
+        private final Map<String, Roaring64NavigableMap> categoryMap = new HashMap<>();
+
+        private final Map<String, Roaring64NavigableMap> tagMap = new HashMap<>();
+
+        private final Map<String, Roaring64NavigableMap> formatMap = new HashMap<>();
+
+        void add(Picture picture) {
+            long id = picture.getId();
+            approved.addLong(id);
+            if (StrUtil.isNotBlank(picture.getCategory())) {
+                categoryMap.computeIfAbsent(picture.getCategory(), key -> new Roaring64NavigableMap()).addLong(id);
+            }
+            if (StrUtil.isNotBlank(picture.getPicFormat())) {
+                formatMap.computeIfAbsent(picture.getPicFormat(), key -> new Roaring64NavigableMap()).addLong(id);
+            }
+            for (String tag : PictureTagUtils.parseTags(picture.getTags())) {
+                tagMap.computeIfAbsent(tag, key -> new Roaring64NavigableMap()).addLong(id);
+            }
+        }
+
+        void remove(long id) {
+            if (!approved.contains(id)) {
+                return;
+            }
+            approved.removeLong(id);
+            removeFrom(categoryMap, id);
+            removeFrom(formatMap, id);
+            removeFrom(tagMap, id);
+        }
+
+        private void removeFrom(Map<String, Roaring64NavigableMap> bitmapMap, long id) {
+            bitmapMap.values().removeIf(bitmap -> {
+                bitmap.removeLong(id);
+                return bitmap.isEmpty();
+            });
+        }
+
+        /**
+         * 求出满足条件的 id 集合（返回新位图，可在锁外使用）
+         */
+        Roaring64NavigableMap filter(PictureQueryRequest q) {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            result.or(approved);
+            if (StrUtil.isNotBlank(q.getCategory())) {
+                result.and(categoryMap.getOrDefault(q.getCategory(), new Roaring64NavigableMap()));
+            }
+            if (StrUtil.isNotBlank(q.getPicFormat())) {
+                result.and(formatMap.getOrDefault(q.getPicFormat(), new Roaring64NavigableMap()));
+            }
+            List<String> tagList = PictureTagUtils.normalizeTags(q.getTagList());
+            if (!tagList.isEmpty()) {
+                if (PictureTagMatchModeEnum.OR.getValue().equals(q.getTagMatchMode())) {
+                    Roaring64NavigableMap anyTag = new Roaring64NavigableMap();
+                    tagList.stream().map(tagMap::get).filter(Objects::nonNull).forEach(anyTag::or);
+                    result.and(anyTag);
+                } else {
+                    for (String tag : tagList) {
+                        result.and(tagMap.getOrDefault(tag, new Roaring64NavigableMap()));
+                    }
+                }
+            }
+            return result;
+        }
+
+        void runOptimize() {
+            approved.runOptimize();
+            categoryMap.values().forEach(Roaring64NavigableMap::runOptimize);
+            formatMap.values().forEach(Roaring64NavigableMap::runOptimize);
+            tagMap.values().forEach(Roaring64NavigableMap::runOptimize);
+        }
+
+        long getMemoryBytes() {
+            long bytes = approved.getLongSizeInBytes();
+            for (Map<String, Roaring64NavigableMap> bitmapMap : CollUtil.newArrayList(categoryMap, formatMap, tagMap)) {
+                for (Map.Entry<String, Roaring64NavigableMap> entry : bitmapMap.entrySet()) {
+                    // 键按 UTF-16 粗略估算
+                    bytes += entry.getValue().getLongSizeInBytes() + entry.getKey().length() * 2L;
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.da.gallery.manager;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.enums.PictureTotalModeEnum;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 图片分页总数缓存
+ * <p>
+ * 以查询条件（不含排序和分页）归一化后的哈希为键缓存 COUNT 结果，避免翻页时重复统计；
+ * 近似总数取执行计划（EXPLAIN）估算的行数，估算结果较小时才精确统计
+ */
+@Component
+@Slf4j
+public class PictureCountManager {
+
+    /**
+     * 条件片段中的参数占位符，如 #{ew.paramNameValuePairs.MPGENVAL1}
+     */
+    private static final Pattern PARAM_PATTERN = Pattern.compile("#\\{ew\\.paramNameValuePairs\\.(\\w+)}");
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    /**
+     * 总数缓存（写入时全部失效）
+     */
+    private Cache<String, Long> countCache;
+
+    /**
+     * 近似总数缓存（只按时间过期，写入时不失效）
+     */
+    private Cache<String, Long> approximateCountCache;
+
+    @PostConstruct
+    public void init() {
+        countCache = Caffeine.newBuilder()
+                .maximumSize(pictureQueryConfig.getCountCacheMaxSize())
+                .expireAfterWrite(pictureQueryConfig.getCountCacheSeconds(), TimeUnit.SECONDS)
+                .build();
+        approximateCountCache = Caffeine.newBuilder()
+                .maximumSize(pictureQueryConfig.getCountCacheMaxSize())
+                .expireAfterWrite(pictureQueryConfig.getApproximateCountSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 获取总数
+     *
+     * @param table        统计的表（picture 或 public_picture，同样的条件在不同表上结果不同）
+     * @param queryWrapper 查询条件
+     * @param totalMode    统计方式（exact、cached、approximate）
+     * @param counter      未命中缓存时执行的统计
+     * @param estimator    近似统计时执行的 EXPLAIN，返回执行计划各行
+     * @return
+     */
+    public long count(String table, QueryWrapper<Picture> queryWrapper, PictureTotalModeEnum totalMode,
+                      Supplier<Long> counter, Supplier<List<Map<String, Object>>> estimator) {
+        if (PictureTotalModeEnum.CACHED.equals(totalMode)) {
+            return countCache.get(getCacheKey(table, queryWrapper), key -> counter.get());
+        }
+        if (PictureTotalModeEnum.APPROXIMATE.equals(totalMode)) {
+            return approximateCountCache.get(getCacheKey(table, queryWrapper), key -> estimate(counter, estimator));
+        }
+        return counter.get();
+    }
+
+    /**
+     * 按执行计划估算总数，估算值低于阈值或无法估算时精确统计
+     *
+     * @param counter
+     * @param estimator
+     * @return
+     */
+    private long estimate(Supplier<Long> counter, Supplier<List<Map<String, Object>>> estimator) {
+        Long estimated = null;
+        try {
+            estimated = getEstimatedRows(estimator.get());
+        } catch (Exception e) {
+            log.warn("explain picture count error, fall back to exact count", e);
+        }
+        if (estimated == null || estimated < pictureQueryConfig.getApproximateExactThreshold()) {
+            return counter.get();
+        }
+        return estimated;
+    }
+
+    /**
+     * 从执行计划取估算行数：驱动表（第一行）的 rows × filtered%
+     *
+     * @param planList EXPLAIN 结果
+     * @return 无法估算时返回 null
+     */
+    static Long getEstimatedRows(List<Map<String, Object>> planList) {
+        if (planList == null || planList.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> plan = planList.get(0);
+        Object rows = plan.get("rows");
+        if (!(rows instanceof Number)) {
+            return null;
+        }
+        Object filtered = plan.get("filtered");
+        double ratio = filtered instanceof Number ? ((Number) filtered).doubleValue() / 100 : 1;
+        return Math.round(((Number) rows).longValue() * ratio);
+    }
+
+    /**
+     * 图片新增、审核、修改、删除后失效总数缓存（近似总数除外）
+     */
+    public void invalidate() {
+        countCache.invalidateAll();
+    }
+
+    /**
+     * 缓存键：把 WHERE 条件中的参数占位符替换为实际值后取 SHA-256，
+     * 同样的筛选条件（无论页号、页大小、排序如何）得到同一个键
+     *
+     * @param table
+     * @param queryWrapper
+     * @return
+     */
+    public String getCacheKey(String table, QueryWrapper<Picture> queryWrapper) {
+        String sqlSegment = queryWrapper.getExpression().getNormal().getSqlSegment();
+        Map<String, Object> paramMap = queryWrapper.getParamNameValuePairs();
+        Matcher matcher = PARAM_PATTERN.matcher(sqlSegment);
+        StringBuffer normalized = new StringBuffer();
+        while (matcher.find()) {
+            Object value = paramMap.get(matcher.group(1));
+            String text = value == null ? "null" : value.getClass().getSimpleName() + ":" + value;
+            matcher.appendReplacement(normalized, Matcher.quoteReplacement("'" + text.replace("'", "''") + "'"));
+        }
+        matcher.appendTail(normalized);
+        return DigestUtil.sha256Hex(table + ":" + normalized);
+    }
+}
@@ -0,0 +1,361 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.img.ImgUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.da.gallery.config.PictureUploadConfig;
+import com.da.gallery.manager.storage.PictureStorage;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.service.PublicPictureService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 图片衍生图生成（缩略图、压缩图）
+ * <p>
+ * 上传成功后异步执行：读取原图、缩放编码、写回存储（与原图同目录），最后回写图片记录。
+ * 缩略图为 JPEG，压缩图为 WebP（由 webp-imageio 编码，本地库不可用时退化为 JPEG）。
+ * 秒传复用同一原图的记录共用一份衍生图：同一地址同时只生成一次，已有衍生图时直接复用
+ */
+@Component
+@Slf4j
+public class PictureDerivativeManager {
+
+    /**
+     * 允许解码的最大像素数，超过则跳过（避免大图解码占满内存）
+     */
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+
+    /**
+     * 每个原图像素在生成期间的内存估算（解码后 4 字节，加上逐级缩放的中间图和解码缓冲）
+     */
+    private static final long BYTES_PER_PIXEL = 6;
+
+    @Resource
+    private PictureStorage pictureStorage;
+
+    @Resource
+    private PictureUploadConfig pictureUploadConfig;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private PictureDetailCacheManager pictureDetailCacheManager;
+
+    @Resource
+    private PublicPictureService publicPictureService;
+
+    /**
+     * 衍生图生成线程池（CPU 密集，与上传线程池隔离）
+     */
+    private ThreadPoolExecutor derivativeExecutor;
+
+    /**
+     * 压缩图格式：WebP 编码器可用时为 webp，否则退化为 jpg
+     */
+    private String compressFormat;
+
+    /**
+     * 按堆内存预算和线程数计算出的最大原图像素数
+     */
+    private long maxSourcePixels;
+
+    /**
+     * 正在生成衍生图的原图（原图地址 => 等待回写的图片 id）
+     */
+    private final Map<String, Set<Long>> pendingPictureMap = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        PictureUploadConfig.Derivative derivativeConfig = pictureUploadConfig.getDerivative();
+        // 所有线程同时解码时合计不超过内存预算：自动线程数保证每个线程放得下最大原图，指定线程数时相应降低像素上限
+        long memoryBudget = (long) (Runtime.getRuntime().maxMemory() * derivativeConfig.getHeapRatio());
+        int threads = derivativeConfig.getThreads() > 0 ? derivativeConfig.getThreads()
+                : (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                memoryBudget / (MAX_SOURCE_PIXELS * BYTES_PER_PIXEL)));
+        maxSourcePixels = Math.min(MAX_SOURCE_PIXELS, memoryBudget / threads / BYTES_PER_PIXEL);
+        log.info("picture derivative threads = {}, max source pixels = {}", threads, maxSourcePixels);
+        derivativeExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(derivativeConfig.getQueueCapacity()),
+                ThreadFactoryBuilder.create().setNamePrefix("picture-derivative-").build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        compressFormat = isWebpWritable() ? "webp" : "jpg";
+    }
+
+    @PreDestroy
+    public void destroy() {
+        derivativeExecutor.shutdown();
+    }
+
+    /**
+     * 提交衍生图生成任务（队列满时放弃，列表回退使用原图）
+     *
+     * @param pictureId 图片 id
+     * @param url       原图地址
+     */
+    public void submit(Long pictureId, String url) {
+        if (!pictureUploadConfig.getDerivative().isEnabled() || pictureId == null || StrUtil.isBlank(url)) {
+            return;
+        }
+        try {
+            derivativeExecutor.execute(() -> generate(pictureId, url));
+        } catch (RejectedExecutionException e) {
+            log.warn("picture derivative queue is full, skip pictureId = {}", pictureId);
+        }
+    }
+
+    /**
+     * 生成衍生图并回写图片记录
+     * <p>
+     * 同一原图已在生成时只登记图片 id，由正在执行的任务结束时一并回写
+     *
+     * @param pictureId 图片 id
+     * @param url       原图地址
+     */
+    public void generate(Long pictureId, String url) {
+        if (!addPending(pictureId, url)) {
+            return;
+        }
+        Picture derivative = null;
+        try {
+            derivative = getExistingDerivative(url);
+            if (derivative == null) {
+                derivative = createDerivative(pictureId, url);
+            }
+        } catch (Exception e) {
+            log.error("picture derivative error, pictureId = {}", pictureId, e);
+        }
+        // 先回写再移除登记，之后登记的任务能查到已回写的衍生图
+        Set<Long> pictureIdSet = removePending(url, Collections.emptySet());
+        while (!pictureIdSet.isEmpty()) {
+            if (derivative != null) {
+                updateDerivative(derivative, url, pictureIdSet);
+            }
+            pictureIdSet = removePending(url, pictureIdSet);
+        }
+    }
+
+    /**
+     * 登记等待回写的图片
+     *
+     * @return 该原图此前没有任务在生成时返回 true，由当前任务负责生成
+     */
+    private boolean addPending(Long pictureId, String url) {
+        AtomicBoolean first = new AtomicBoolean(false);
+        pendingPictureMap.compute(url, (key, pictureIdSet) -> {
+            if (pictureIdSet == null) {
+                pictureIdSet = new HashSet<>();
+                first.set(true);
+            }
+            pictureIdSet.add(pictureId);
+            return pictureIdSet;
+        });
+        return first.get();
+    }
+
+    /**
+     * 移除已回写的图片
+     *
+     * @return 仍在等待回写的图片 id，为空时登记已移除
+     */
+    private Set<Long> removePending(String url, Set<Long> updatedIdSet) {
+        Set<Long> remainIdSet = new HashSet<>();
+        pendingPictureMap.computeIfPresent(url, (key, pictureIdSet) -> {
+            pictureIdSet.removeAll(updatedIdSet);
+            remainIdSet.addAll(pictureIdSet);
+            return pictureIdSet.isEmpty() ? null : pictureIdSet;
+        });
+        return remainIdSet;
+    }
+
+    /**
+     * 查询同一原图已生成的衍生图（秒传复用原图时）
+     */
+    private Picture getExistingDerivative(String url) {
+        return pictureMapper.selectOne(new QueryWrapper<Picture>()
+                .select("thumbnailUrl", "compressUrl")
+                .eq("url", url)
+                .isNotNull("thumbnailUrl")
+                .last("limit 1"));
+    }
+
+    /**
+     * 读取原图，生成缩略图和压缩图并写入存储
+     *
+     * @return 衍生图地址，原图不支持或尺寸过大时返回 null
+     */
+    private Picture createDerivative(Long pictureId, String url) throws IOException {
+        String key = pictureStorage.getKey(url);
+        BufferedImage source = readSource(pictureId, key);
+        if (source == null) {
+            return null;
+        }
+        PictureUploadConfig.Derivative derivativeConfig = pictureUploadConfig.getDerivative();
+        String keyPrefix = StrUtil.subBefore(key, ".", true);
+        String thumbnailKey = keyPrefix + "_thumbnail.jpg";
+        putImage(thumbnailKey, scale(source, derivativeConfig.getThumbnailSize()), "jpg",
+                derivativeConfig.getThumbnailQuality());
+        String compressKey = keyPrefix + "_compress." + compressFormat;
+        putImage(compressKey, scale(source, derivativeConfig.getCompressSize()), compressFormat,
+                derivativeConfig.getCompressQuality());
+        Picture derivative = new Picture();
+        derivative.setThumbnailUrl(pictureStorage.getUrl(thumbnailKey));
+        derivative.setCompressUrl(pictureStorage.getUrl(compressKey));
+        return derivative;
+    }
+
+    /**
+     * 回写图片记录，只更新地址未变的记录，避免覆盖换图后的新结果
+     */
+    private void updateDerivative(Picture derivative, String url, Set<Long> pictureIdSet) {
+        try {
+            Picture picture = new Picture();
+            picture.setThumbnailUrl(derivative.getThumbnailUrl());
+            picture.setCompressUrl(derivative.getCompressUrl());
+            if (pictureMapper.update(picture, new UpdateWrapper<Picture>().in("id", pictureIdSet).eq("url", url)) > 0) {
+                pictureDetailCacheManager.invalidate(pictureIdSet);
+                publicPictureService.syncPictures(pictureIdSet);
+            }
+        } catch (Exception e) {
+            log.error("picture derivative update error, pictureIds = {}", pictureIdSet, e);
+        }
+    }
+
+    /**
+     * 读取原图：先从文件头取得宽高，超过像素上限时不解码
+     *
+     * @return 原图，格式不支持或尺寸过大时返回 null
+     */
+    private BufferedImage readSource(Long pictureId, String key) throws IOException {
+        try (InputStream inputStream = pictureStorage.get(key);
+             ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream == null ? Collections.emptyIterator()
+                    : ImageIO.getImageReaders(imageInputStream);
+            if (!readers.hasNext()) {
+                log.info("picture derivative skipped, unsupported format, pictureId = {}", pictureId);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxSourcePixels) {
+                    log.info("picture derivative skipped, too large, pictureId = {}", pictureId);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 试编码一张 1x1 图片，确认 WebP 编码器已注册且本地库可以加载
+     */
+    private boolean isWebpWritable() {
+        if (!ImageIO.getImageWritersByFormatName("webp").hasNext()) {
+            return false;
+        }
+        try {
+            encode(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "webp",
+                    pictureUploadConfig.getDerivative().getCompressQuality());
+            return true;
+        } catch (Throwable e) {
+            log.warn("webp encoder is unavailable, compress picture falls back to jpg", e);
+            return false;
+        }
+    }
+
+    /**
+     * 等比缩放到最长边不超过 maxSize，透明背景填充为白色
+     * <p>
+     * 缩小倍数较大时逐级减半，避免一次双线性插值产生锯齿
+     */
+    private BufferedImage scale(BufferedImage source, int maxSize) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, maxSize * 1.0 / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width > targetWidth || height > targetHeight);
+        return current;
+    }
+
+    private void putImage(String key, BufferedImage image, String format, float quality) throws IOException {
+        byte[] bytes = encode(image, format, quality);
+        pictureStorage.put(key, new ByteArrayInputStream(bytes), bytes.length,
+                "image/" + ("jpg".equals(format) ? "jpeg" : format));
+    }
+
+    /**
+     * 按质量编码图片（WebP 的默认参数没有选定压缩方式，取第一种即有损压缩）
+     */
+    private byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImgUtil.getImageOutputStream(outputStream)) {
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            if (writeParam.canWriteCompressed()) {
+                writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (writeParam.getCompressionType() == null) {
+                    writeParam.setCompressionType(writeParam.getCompressionTypes()[0]);
+                }
+                writeParam.setCompressionQuality(quality);
+            }
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,103 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.util.StrUtil;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.manager.cache.DistributedCache;
+import com.da.gallery.model.entity.Picture;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 图片详情缓存
+ * <p>
+ * 按图片 id 缓存图片记录，不含作者信息，作者由调用方每次从用户封装缓存关联。
+ * 同一个 id 并发未命中时只有一个线程查库，其余线程等待结果；
+ * 图片修改、审核、删除时按 id 精确失效并广播到所有节点
+ */
+@Component
+@Slf4j
+public class PictureDetailCacheManager {
+
+    /**
+     * 详情失效通知的频道
+     */
+    private static final String INVALIDATE_CHANNEL = "picture:detail:invalidate";
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Resource
+    private DistributedCache distributedCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, Picture> detailCache;
+
+    @PostConstruct
+    public void init() {
+        detailCache = Caffeine.newBuilder()
+                .maximumSize(pictureQueryConfig.getDetailCacheMaxSize())
+                .expireAfterWrite(pictureQueryConfig.getDetailCacheSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, detailCache, "picture.detail");
+        distributedCache.subscribe(INVALIDATE_CHANNEL, message -> detailCache.invalidateAll(
+                StrUtil.split(message, ',').stream().map(Long::valueOf).collect(Collectors.toList())));
+    }
+
+    /**
+     * 获取图片记录
+     *
+     * @param pictureId 图片 id
+     * @param loader    未命中时执行的查询（图片不存在时返回 null，不缓存）
+     * @return 缓存记录的副本，调用方可以修改
+     */
+    public Picture get(Long pictureId, Function<Long, Picture> loader) {
+        if (!pictureQueryConfig.isDetailCacheEnabled()) {
+            return loader.apply(pictureId);
+        }
+        Picture cachedPicture = detailCache.get(pictureId, loader);
+        if (cachedPicture == null) {
+            return null;
+        }
+        Picture picture = new Picture();
+        BeanUtils.copyProperties(cachedPicture, picture);
+        return picture;
+    }
+
+    /**
+     * 图片修改、审核、删除后失效所有节点的详情缓存
+     * <p>
+     * 正在加载的 id 会等加载结束后再移除，加载到的旧值不会留在缓存中
+     *
+     * @param pictureIdList 图片 id
+     */
+    public void invalidate(Collection<Long> pictureIdList) {
+        List<Long> idList = pictureIdList.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        if (idList.isEmpty()) {
+            return;
+        }
+        detailCache.invalidateAll(idList);
+        try {
+            distributedCache.publish(INVALIDATE_CHANNEL, StrUtil.join(",", idList));
+        } catch (Exception e) {
+            // 其他节点的旧数据等待过期
+            log.warn("publish picture detail invalidation failed, ids = {}", idList, e);
+        }
+    }
+}
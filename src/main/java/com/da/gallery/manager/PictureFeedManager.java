@@ -0,0 +1,422 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.common.ErrorCode;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.constant.CommonConstant;
+import com.da.gallery.exception.ThrowUtils;
+import com.da.gallery.manager.cache.DistributedCache;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 最新图片信息流（有序集合）
+ * <p>
+ * 审核通过的图片 id 按创建时间写入一个全局有序集合和每个分类一个有序集合，
+ * 公开列表按创建时间倒序浏览（含游标翻页）时直接 ZREVRANGEBYSCORE 取当前页 id，不再在数据库排序。
+ * 图片审核、编辑、删除后按 id 增量更新，定时任务从数据库全量重建
+ */
+@Component
+@Slf4j
+public class PictureFeedManager {
+
+    private static final String KEY_PREFIX = "picture:feed:";
+
+    /**
+     * 全部审核通过图片
+     */
+    private static final String ALL_KEY = KEY_PREFIX + "all";
+
+    /**
+     * 分类信息流的键前缀
+     */
+    private static final String CATEGORY_KEY_PREFIX = KEY_PREFIX + "category:";
+
+    /**
+     * 图片所在分类（成员 => 分类，没有分类时为空串），用于分类变化时移出旧分类
+     */
+    private static final String CATEGORY_OF_KEY = KEY_PREFIX + "categoryOf";
+
+    /**
+     * 已有的分类（有序集合，分数无意义）
+     */
+    private static final String CATEGORIES_KEY = KEY_PREFIX + "categories";
+
+    /**
+     * 重建完成标记（过期后信息流失效，查询退回数据库；各节点定期重新检查）
+     */
+    private static final String READY_KEY = KEY_PREFIX + "ready";
+
+    /**
+     * 重建锁（多节点只有一个节点重建）
+     */
+    private static final String LOCK_KEY = KEY_PREFIX + "lock";
+
+    /**
+     * 重建完成标记的有效期（超过两个重建周期未成功重建时停用信息流）
+     */
+    private static final long READY_TTL_SECONDS = TimeUnit.DAYS.toSeconds(2);
+
+    private static final long LOCK_TTL_SECONDS = TimeUnit.MINUTES.toSeconds(30);
+
+    /**
+     * 重新检查重建完成标记的间隔
+     */
+    private static final long READY_CHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * 重建时每批扫描的图片数
+     */
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Resource
+    private DistributedCache distributedCache;
+
+    /**
+     * 最近一次检查时重建完成标记是否存在
+     */
+    private volatile boolean ready;
+
+    /**
+     * 最近一次检查重建完成标记的时间
+     */
+    private volatile long readyCheckTime;
+
+    /**
+     * 重建期间发生变更的图片 id（重建完成后补做增量更新）
+     */
+    private final Set<Long> pendingIdSet = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean rebuilding;
+
+    /**
+     * 启动完成后检查信息流，其他节点已建好时直接使用，否则在后台重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!pictureQueryConfig.isFeedSortedSetEnabled()) {
+            return;
+        }
+        if (isReady()) {
+            return;
+        }
+        ThreadUtil.newThread(this::rebuild, "picture-feed-rebuild", true).start();
+    }
+
+    /**
+     * 定时全量重建，修正增量更新遗漏的变更
+     */
+    @Scheduled(cron = "${picture.query.feed-rebuild-cron:0 0 4 * * ?}")
+    public void scheduledRebuild() {
+        if (pictureQueryConfig.isFeedSortedSetEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 全量重建：按 id 分批扫描审核通过的图片写入临时键，完成后整体替换
+     *
+     * @return 是否执行了重建（其他节点正在重建时跳过）
+     */
+    public boolean rebuild() {
+        String token = IdUtil.fastSimpleUUID();
+        if (!distributedCache.setIfAbsent(LOCK_KEY, token, LOCK_TTL_SECONDS)) {
+            log.info("picture feed rebuild skipped, another node is rebuilding");
+            return false;
+        }
+        rebuilding = true;
+        try {
+            long startTime = System.nanoTime();
+            String tmpPrefix = KEY_PREFIX + "tmp:" + token + ":";
+            Set<String> categorySet = new HashSet<>();
+            long total = 0;
+            long lastId = Long.MIN_VALUE;
+            while (true) {
+                List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                        .select("id", "category", "createTime")
+                        .eq("reviewStatus", PictureReviewStatusEnum.PASS.getValue())
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("limit " + REBUILD_BATCH_SIZE));
+                if (CollUtil.isEmpty(pictureList)) {
+                    break;
+                }
+                Map<String, Double> allMap = new HashMap<>();
+                Map<String, Map<String, Double>> categoryMap = new HashMap<>();
+                Map<String, String> categoryOfMap = new HashMap<>();
+                for (Picture picture : pictureList) {
+                    String member = toMember(picture.getId());
+                    double score = toScore(picture.getCreateTime());
+                    allMap.put(member, score);
+                    String category = StrUtil.nullToEmpty(picture.getCategory());
+                    if (StrUtil.isNotEmpty(category)) {
+                        categoryMap.computeIfAbsent(category, k -> new HashMap<>()).put(member, score);
+                    }
+                    categoryOfMap.put(member, category);
+                }
+                distributedCache.zAdd(tmpPrefix + "all", allMap);
+                categoryMap.forEach((category, memberScore) ->
+                        distributedCache.zAdd(tmpPrefix + "category:" + category, memberScore));
+                distributedCache.hSet(tmpPrefix + "categoryOf", categoryOfMap);
+                categorySet.addAll(categoryMap.keySet());
+                total += pictureList.size();
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+                if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+            }
+            // 替换正式键，删除已经没有图片的分类
+            Set<String> oldCategorySet = distributedCache.zRevRangeByScore(CATEGORIES_KEY,
+                    Double.POSITIVE_INFINITY, 0, Long.MAX_VALUE).keySet();
+            replaceKey(tmpPrefix + "all", ALL_KEY);
+            for (String category : categorySet) {
+                replaceKey(tmpPrefix + "category:" + category, CATEGORY_KEY_PREFIX + category);
+            }
+            for (String category : oldCategorySet) {
+                if (!categorySet.contains(category)) {
+                    distributedCache.delete(CATEGORY_KEY_PREFIX + category);
+                }
+            }
+            replaceKey(tmpPrefix + "categoryOf", CATEGORY_OF_KEY);
+            distributedCache.zAdd(tmpPrefix + "categories", categorySet.stream()
+                    .collect(Collectors.toMap(category -> category, category -> 0D)));
+            replaceKey(tmpPrefix + "categories", CATEGORIES_KEY);
+            distributedCache.set(READY_KEY, String.valueOf(System.currentTimeMillis()), READY_TTL_SECONDS);
+            readyCheckTime = 0;
+            log.info("picture feed rebuilt, pictures = {}, categories = {}, cost = {} ms", total, categorySet.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            return true;
+        } catch (Exception e) {
+            log.error("picture feed rebuild error", e);
+            return false;
+        } finally {
+            rebuilding = false;
+            // 重建超过锁的有效期时锁可能已被其他节点持有，只释放自己的锁
+            distributedCache.deleteIfEquals(LOCK_KEY, token);
+            // 补做重建期间的变更
+            for (Iterator<Long> iterator = pendingIdSet.iterator(); iterator.hasNext(); ) {
+                Long pictureId = iterator.next();
+                iterator.remove();
+                refresh(pictureId);
+            }
+        }
+    }
+
+    /**
+     * 图片变更后按 id 更新信息流
+     *
+     * @param pictureIdList 图片 id
+     */
+    public void onPictureChanged(Collection<Long> pictureIdList) {
+        if (!pictureQueryConfig.isFeedSortedSetEnabled() || CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        pictureIdList.stream().filter(Objects::nonNull).forEach(this::refresh);
+    }
+
+    /**
+     * 按 id 重新读取图片并更新信息流
+     *
+     * @param pictureId 图片 id
+     */
+    public void refresh(Long pictureId) {
+        if (rebuilding) {
+            pendingIdSet.add(pictureId);
+        }
+        try {
+            Picture picture = pictureMapper.selectOne(new QueryWrapper<Picture>()
+                    .select("id", "category", "createTime", "reviewStatus")
+                    .eq("id", pictureId));
+            String member = toMember(pictureId);
+            String oldCategory = distributedCache.hGet(CATEGORY_OF_KEY, member);
+            String category = picture == null ? null : StrUtil.nullToEmpty(picture.getCategory());
+            if (StrUtil.isNotEmpty(oldCategory) && !oldCategory.equals(category)) {
+                distributedCache.zRemove(CATEGORY_KEY_PREFIX + oldCategory, member);
+            }
+            if (picture == null || !Integer.valueOf(PictureReviewStatusEnum.PASS.getValue())
+                    .equals(picture.getReviewStatus())) {
+                distributedCache.zRemove(ALL_KEY, member);
+                if (StrUtil.isNotEmpty(category)) {
+                    distributedCache.zRemove(CATEGORY_KEY_PREFIX + category, member);
+                }
+                distributedCache.hDelete(CATEGORY_OF_KEY, member);
+                return;
+            }
+            Map<String, Double> memberScore = Collections.singletonMap(member, toScore(picture.getCreateTime()));
+            distributedCache.zAdd(ALL_KEY, memberScore);
+            if (StrUtil.isNotEmpty(category)) {
+                distributedCache.zAdd(CATEGORY_KEY_PREFIX + category, memberScore);
+                distributedCache.zAdd(CATEGORIES_KEY, Collections.singletonMap(category, 0D));
+            }
+            distributedCache.hSet(CATEGORY_OF_KEY, Collections.singletonMap(member, category));
+        } catch (Exception e) {
+            log.error("picture feed refresh error, pictureId = {}", pictureId, e);
+        }
+    }
+
+    /**
+     * 偏移分页查询图片 id（按创建时间倒序）
+     *
+     * @param pictureQueryRequest 查询条件
+     * @return 当前页的图片 id 和总数；查询条件无法由信息流回答或读取失败时返回 null
+     */
+    public Page<Long> pagePictureIds(PictureQueryRequest pictureQueryRequest) {
+        if (!supports(pictureQueryRequest) || pictureQueryRequest.getCursor() != null
+                || !"createTime".equals(pictureQueryRequest.getSortField())
+                || CommonConstant.SORT_ORDER_ASC.equals(pictureQueryRequest.getSortOrder())) {
+            return null;
+        }
+        long current = pictureQueryRequest.getCurrent();
+        long size = pictureQueryRequest.getPageSize();
+        String key = getFeedKey(pictureQueryRequest);
+        try {
+            Page<Long> idPage = new Page<>(current, size, distributedCache.zCard(key));
+            idPage.setRecords(distributedCache.zRevRangeByScore(key, Double.POSITIVE_INFINITY, (current - 1) * size,
+                    size).keySet().stream().map(Long::valueOf).collect(Collectors.toList()));
+            return idPage;
+        } catch (Exception e) {
+            log.warn("read picture feed failed, key = {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 游标分页查询图片 id：取 (createTime, id) 严格小于游标的前 count 个
+     *
+     * @param pictureQueryRequest 查询条件
+     * @param lastCreateTime      上一页最后一条的创建时间（第一页为 null）
+     * @param lastId              上一页最后一条的 id（第一页为 null）
+     * @param count               数量
+     * @return 图片 id；查询条件无法由信息流回答或读取失败时返回 null
+     */
+    public List<Long> listPictureIdsByCursor(PictureQueryRequest pictureQueryRequest, Date lastCreateTime,
+                                             Long lastId, int count) {
+        if (!supports(pictureQueryRequest)) {
+            return null;
+        }
+        String key = getFeedKey(pictureQueryRequest);
+        double maxScore = lastCreateTime == null ? Double.POSITIVE_INFINITY : toScore(lastCreateTime);
+        String lastMember = lastId == null ? null : toMember(lastId);
+        List<Long> idList = new ArrayList<>();
+        long offset = 0;
+        // 多取一些，跳过与游标同一时刻且 id 不小于游标的成员
+        long batchSize = count + 16L;
+        while (true) {
+            LinkedHashMap<String, Double> memberScore;
+            try {
+                memberScore = distributedCache.zRevRangeByScore(key, maxScore, offset, batchSize);
+            } catch (Exception e) {
+                log.warn("read picture feed failed, key = {}", key, e);
+                return null;
+            }
+            for (Map.Entry<String, Double> entry : memberScore.entrySet()) {
+                if (lastMember != null && entry.getValue() == maxScore && entry.getKey().compareTo(lastMember) >= 0) {
+                    continue;
+                }
+                idList.add(Long.valueOf(entry.getKey()));
+                if (idList.size() >= count) {
+                    return idList;
+                }
+            }
+            if (memberScore.size() < batchSize) {
+                return idList;
+            }
+            offset += memberScore.size();
+        }
+    }
+
+    /**
+     * 只有审核通过、最多按分类筛选的查询可以走信息流
+     */
+    private boolean supports(PictureQueryRequest q) {
+        if (!pictureQueryConfig.isFeedSortedSetEnabled() || q == null || !isReady()
+                || !Integer.valueOf(PictureReviewStatusEnum.PASS.getValue()).equals(q.getReviewStatus())) {
+            return false;
+        }
+        ThrowUtils.throwIf(q.getCurrent() <= 0 || q.getPageSize() <= 0, ErrorCode.PARAMS_ERROR);
+        return ObjectUtils.allNull(q.getId(), q.getPicSize(), q.getPicWidth(), q.getPicHeight(), q.getPicScale(),
+                q.getUserId(), q.getReviewerId())
+                && CollUtil.isEmpty(q.getTagList())
+                && StrUtil.isAllBlank(q.getName(), q.getIntroduction(), q.getSearchText(), q.getReviewMessage(),
+                q.getPicFormat());
+    }
+
+    /**
+     * 重建完成标记是否存在（检查结果在本地缓存 10 秒，标记过期后各节点随之停用信息流）
+     */
+    private boolean isReady() {
+        long now = System.currentTimeMillis();
+        if (now - readyCheckTime >= READY_CHECK_INTERVAL_MILLIS) {
+            try {
+                ready = distributedCache.get(READY_KEY) != null;
+            } catch (Exception e) {
+                log.warn("read picture feed ready marker failed", e);
+                ready = false;
+            }
+            readyCheckTime = now;
+        }
+        return ready;
+    }
+
+    private String getFeedKey(PictureQueryRequest pictureQueryRequest) {
+        String category = pictureQueryRequest.getCategory();
+        return StrUtil.isEmpty(category) ? ALL_KEY : CATEGORY_KEY_PREFIX + category;
+    }
+
+    /**
+     * 用临时键原子覆盖正式键，读取方不会看到键不存在的中间状态；临时键不存在说明结果为空，直接删除正式键
+     */
+    private void replaceKey(String tmpKey, String key) {
+        if (!distributedCache.rename(tmpKey, key)) {
+            distributedCache.delete(key);
+        }
+    }
+
+    /**
+     * 成员：id 补零到 19 位，分数相同时字典序与数值顺序一致
+     */
+    private static String toMember(Long pictureId) {
+        return String.format("%019d", pictureId);
+    }
+
+    private static double toScore(Date createTime) {
+        return ObjectUtil.defaultIfNull(createTime, new Date(0)).getTime();
+    }
+}
@@ -0,0 +1,231 @@
+package com.da.gallery.manager;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.StrUtil;
+import com.da.gallery.config.PictureStorageConfig;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.manager.storage.LocalPictureStorage;
+import com.da.gallery.manager.storage.PictureStorage;
+import com.da.gallery.manager.storage.PictureStorageStat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 本地存储图片文件输出
+ * <p>
+ * 支持 Range、强 ETag 和 Cache-Control；容器支持 sendfile 时交给 Tomcat 直接从文件发送，
+ * 否则使用 FileChannel.transferTo 输出，图片内容都不会整体读入堆内存
+ */
+@Component
+public class PictureFileManager {
+
+    /**
+     * Tomcat sendfile 相关请求属性
+     */
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 计算哈希时每次映射的字节数
+     */
+    private static final long HASH_MAP_SIZE = 8 * 1024 * 1024L;
+
+    @Resource
+    private PictureStorage pictureStorage;
+
+    @Resource
+    private PictureStorageConfig pictureStorageConfig;
+
+    /**
+     * 文件内容哈希缓存（对象键 + 大小 + 修改时间 => SHA-256），对象写入后不会原地修改
+     */
+    private final LRUCache<String, String> contentHashCache = CacheUtil.newLRUCache(10000);
+
+    /**
+     * 输出图片文件
+     *
+     * @param key      对象键
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    public void writePictureFile(String key, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!(pictureStorage instanceof LocalPictureStorage)) {
+            // 对象存储的图片直接通过其域名访问
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path path;
+        PictureStorageStat stat;
+        try {
+            path = ((LocalPictureStorage) pictureStorage).getPath(key);
+            stat = pictureStorage.stat(key);
+        } catch (BusinessException e) {
+            stat = null;
+            path = null;
+        }
+        if (stat == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String eTag = "\"" + getContentHash(path, stat) + "\"";
+        long size = stat.getSize();
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, stat.getLastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                String.format("public, max-age=%s, immutable", pictureStorageConfig.getLocal().getCacheMaxAge()));
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // 协商缓存
+        if (matchETag(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(StrUtil.blankToDefault(stat.getContentType(), "application/octet-stream"));
+        // 解析 Range（If-Range 不匹配时返回完整内容）
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+            long[] byteRange = parseRange(range, size);
+            if (byteRange == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (byteRange.length == 2) {
+                start = byteRange[0];
+                end = byteRange[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, String.format("bytes %s-%s/%s", start, end, size));
+            }
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            // 由 Tomcat 在请求结束后用 sendfile 发送
+            request.setAttribute(SENDFILE_FILENAME_ATTR, path.toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long n = channel.transferTo(position, end + 1 - position, target);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+            }
+        }
+    }
+
+    /**
+     * 解析单个 Range（多段 Range 忽略，返回完整内容）
+     *
+     * @param range Range 请求头
+     * @param size  文件大小
+     * @return [start, end]；空数组表示忽略 Range；null 表示范围无法满足
+     */
+    private long[] parseRange(String range, long size) {
+        if (!range.startsWith("bytes=") || range.contains(",")) {
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int index = spec.indexOf('-');
+        if (index < 0) {
+            return new long[0];
+        }
+        try {
+            String startStr = spec.substring(0, index).trim();
+            String endStr = spec.substring(index + 1).trim();
+            long start;
+            long end;
+            if (startStr.isEmpty()) {
+                // bytes=-N：最后 N 个字节
+                long suffixLength = Long.parseLong(endStr);
+                if (suffixLength <= 0 || size == 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffixLength);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(startStr);
+                end = endStr.isEmpty() ? size - 1 : Math.min(Long.parseLong(endStr), size - 1);
+            }
+            if (start < 0 || start >= size || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private boolean matchETag(String ifNoneMatch, String eTag) {
+        if (StrUtil.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = StrUtil.removePrefix(candidate.trim(), "W/");
+            if ("*".equals(value) || eTag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取文件内容哈希（SHA-256，按内存映射分段计算，结果缓存）
+     */
+    private String getContentHash(Path path, PictureStorageStat stat) {
+        String cacheKey = stat.getKey() + ":" + stat.getSize() + ":" + stat.getLastModified();
+        String contentHash = contentHashCache.get(cacheKey);
+        if (contentHash != null) {
+            return contentHash;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_MAP_SIZE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(HASH_MAP_SIZE, size - position));
+                messageDigest.update(buffer);
+            }
+            contentHash = HexUtil.encodeHexStr(messageDigest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        contentHashCache.put(cacheKey, contentHash);
+        return contentHash;
+    }
+}
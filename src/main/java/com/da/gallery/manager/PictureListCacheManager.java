@@ -0,0 +1,288 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.common.CursorPage;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.manager.cache.DistributedCache;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.vo.PictureVO;
+import com.da.gallery.utils.PictureTagUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 公开图片列表两级缓存
+ * <p>
+ * L1 为节点内 Caffeine，L2 为分布式缓存（Redis），键为归一化查询条件的哈希并带上列表版本号。
+ * 图片审核、编辑、删除时版本号加一并广播，各节点清空 L1，旧版本的 L2 数据不再被读到，等待过期即可
+ */
+@Component
+@Slf4j
+public class PictureListCacheManager {
+
+    /**
+     * 列表版本号的键
+     */
+    private static final String VERSION_KEY = "picture:list:version";
+
+    /**
+     * 列表失效通知的频道
+     */
+    private static final String INVALIDATE_CHANNEL = "picture:list:invalidate";
+
+    /**
+     * 列表数据的键前缀
+     */
+    private static final String PAGE_KEY_PREFIX = "picture:list:page:";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Resource
+    private DistributedCache distributedCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 当前列表版本号
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private Cache<String, CachedPage> localCache;
+
+    private Counter localHitCounter;
+
+    private Counter localMissCounter;
+
+    private Counter remoteHitCounter;
+
+    private Counter remoteMissCounter;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(pictureQueryConfig.getListCacheLocalMaxSize())
+                .expireAfter(new Expiry<String, CachedPage>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedPage value, long currentTime) {
+                        return TimeUnit.SECONDS.toNanos(withJitter(pictureQueryConfig.getListCacheLocalSeconds()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedPage value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedPage value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        localHitCounter = buildCounter("l1", "hit");
+        localMissCounter = buildCounter("l1", "miss");
+        remoteHitCounter = buildCounter("l2", "hit");
+        remoteMissCounter = buildCounter("l2", "miss");
+        try {
+            String remoteVersion = distributedCache.get(VERSION_KEY);
+            if (remoteVersion != null) {
+                version.set(Long.parseLong(remoteVersion));
+            }
+        } catch (Exception e) {
+            log.warn("load picture list cache version failed", e);
+        }
+        distributedCache.subscribe(INVALIDATE_CHANNEL, message -> {
+            version.accumulateAndGet(Long.parseLong(message), Math::max);
+            localCache.invalidateAll();
+        });
+    }
+
+    /**
+     * 获取列表（先查 L1，再查 L2，都未命中时查库并回填两级缓存）
+     *
+     * @param pictureQueryRequest 查询条件（须在查询前调用，查询过程可能修改条件）
+     * @param loader              未命中时执行的查询
+     * @return
+     */
+    public Page<PictureVO> get(PictureQueryRequest pictureQueryRequest, Supplier<Page<PictureVO>> loader) {
+        if (!pictureQueryConfig.isListCacheEnabled()) {
+            return loader.get();
+        }
+        String key = PAGE_KEY_PREFIX + version.get() + ":" + getCacheKey(pictureQueryRequest);
+        AtomicBoolean loaded = new AtomicBoolean(false);
+        CachedPage cachedPage = localCache.get(key, k -> {
+            loaded.set(true);
+            return loadRemote(k, loader);
+        });
+        if (!loaded.get()) {
+            localHitCounter.increment();
+        }
+        return cachedPage.toPage();
+    }
+
+    /**
+     * 图片审核、编辑、删除后失效所有节点的列表缓存
+     */
+    public void invalidate() {
+        localCache.invalidateAll();
+        try {
+            long newVersion = distributedCache.increment(VERSION_KEY);
+            version.accumulateAndGet(newVersion, Math::max);
+            distributedCache.publish(INVALIDATE_CHANNEL, String.valueOf(newVersion));
+        } catch (Exception e) {
+            // 其他节点的旧数据等待过期
+            version.incrementAndGet();
+            log.warn("publish picture list cache invalidation failed", e);
+        }
+    }
+
+    /**
+     * 清空本节点的 L1（下次读取走 L2）
+     */
+    public void invalidateLocal() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * 缓存键：查询条件中非空字段按字段名排序后序列化再取 SHA-256，标签按规范化后的字典序参与计算
+     *
+     * @param pictureQueryRequest
+     * @return
+     */
+    public String getCacheKey(PictureQueryRequest pictureQueryRequest) {
+        Map<String, Object> fieldMap = new TreeMap<>(BeanUtil.beanToMap(pictureQueryRequest, false, true));
+        List<String> tagList = pictureQueryRequest.getTagList();
+        if (CollUtil.isNotEmpty(tagList)) {
+            fieldMap.put("tagList", PictureTagUtils.normalizeTags(tagList).stream().sorted()
+                    .collect(Collectors.toList()));
+        } else {
+            fieldMap.remove("tagList");
+        }
+        try {
+            return DigestUtil.sha256Hex(objectMapper.writeValueAsString(fieldMap));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CachedPage loadRemote(String key, Supplier<Page<PictureVO>> loader) {
+        localMissCounter.increment();
+        String json = null;
+        try {
+            json = distributedCache.get(key);
+        } catch (Exception e) {
+            log.warn("read picture list cache failed, key = {}", key, e);
+        }
+        if (json != null) {
+            try {
+                CachedPage cachedPage = objectMapper.readValue(json, CachedPage.class);
+                remoteHitCounter.increment();
+                return cachedPage;
+            } catch (JsonProcessingException e) {
+                log.warn("parse picture list cache failed, key = {}", key, e);
+            }
+        }
+        remoteMissCounter.increment();
+        CachedPage cachedPage = CachedPage.of(loader.get());
+        try {
+            distributedCache.set(key, objectMapper.writeValueAsString(cachedPage),
+                    withJitter(pictureQueryConfig.getListCacheRemoteSeconds()));
+        } catch (Exception e) {
+            log.warn("write picture list cache failed, key = {}", key, e);
+        }
+        return cachedPage;
+    }
+
+    /**
+     * 过期时间加上随机抖动，避免同一时刻写入的缓存同时过期
+     */
+    private long withJitter(long seconds) {
+        long jitter = (long) (seconds * pictureQueryConfig.getListCacheJitterRatio());
+        return seconds + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    }
+
+    private Counter buildCounter(String layer, String result) {
+        return Counter.builder("picture.list.cache")
+                .description("公开图片列表缓存命中情况")
+                .tag("layer", layer)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存的分页数据
+     */
+    @Data
+    static class CachedPage {
+
+        private boolean cursorPage;
+
+        private long current;
+
+        private long size;
+
+        private long total;
+
+        private boolean hasMore;
+
+        private String nextCursor;
+
+        private List<PictureVO> records;
+
+        static CachedPage of(Page<PictureVO> page) {
+            CachedPage cachedPage = new CachedPage();
+            cachedPage.setCurrent(page.getCurrent());
+            cachedPage.setSize(page.getSize());
+            cachedPage.setTotal(page.getTotal());
+            cachedPage.setRecords(page.getRecords());
+            if (page instanceof CursorPage) {
+                CursorPage<PictureVO> cursorPage = (CursorPage<PictureVO>) page;
+                cachedPage.setCursorPage(true);
+                cachedPage.setHasMore(cursorPage.isHasMore());
+                cachedPage.setNextCursor(cursorPage.getNextCursor());
+            }
+            return cachedPage;
+        }
+
+        Page<PictureVO> toPage() {
+            if (cursorPage) {
+                CursorPage<PictureVO> page = new CursorPage<>(current, size);
+                page.setRecords(records);
+                page.setHasMore(hasMore);
+                page.setNextCursor(nextCursor);
+                return page;
+            }
+            Page<PictureVO> page = new Page<>(current, size, total);
+            page.setRecords(records);
+            return page;
+        }
+    }
+}
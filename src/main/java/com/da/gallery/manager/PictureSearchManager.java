@@ -0,0 +1,451 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.common.ErrorCode;
+import com.da.gallery.config.PictureSearchConfig;
+import com.da.gallery.exception.ThrowUtils;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.enums.PictureTagMatchModeEnum;
+import com.da.gallery.utils.PictureTagUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 图片全文检索（内嵌 Lucene 索引，存放在本地磁盘）
+ * <p>
+ * 名称、简介、标签使用 SmartCN 中文分词，按 BM25 相关度排序；审核状态、用户、分类、格式、标签作为过滤条件。
+ * 数据库是唯一数据源：图片写入提交后按 id 回查并更新索引，索引为空时从数据库全量重建，
+ * 启动时补录上次提交之后更新或删除的图片
+ */
+@Component
+@Slf4j
+public class PictureSearchManager {
+
+    /**
+     * 重建时每批扫描的图片数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 提交时记录的时间（毫秒），启动时从这里开始补录
+     */
+    private static final String COMMIT_TIME_KEY = "commitTime";
+
+    /**
+     * 补录时往前多取的时间，覆盖提交前后正在进行的写入
+     */
+    private static final long CATCH_UP_SLACK_MILLIS = 60 * 1000L;
+
+    private static final String FIELD_ID = "id";
+
+    private static final String FIELD_NAME = "name";
+
+    private static final String FIELD_INTRODUCTION = "introduction";
+
+    private static final String FIELD_TAGS = "tags";
+
+    private static final String FIELD_TAG = "tag";
+
+    private static final String FIELD_CATEGORY = "category";
+
+    private static final String FIELD_PIC_FORMAT = "picFormat";
+
+    private static final String FIELD_USER_ID = "userId";
+
+    private static final String FIELD_REVIEW_STATUS = "reviewStatus";
+
+    /**
+     * 字段权重：名称 > 标签 > 简介
+     */
+    private static final Map<String, Float> FIELD_BOOST_MAP = new LinkedHashMap<>();
+
+    static {
+        FIELD_BOOST_MAP.put(FIELD_NAME, 3f);
+        FIELD_BOOST_MAP.put(FIELD_TAGS, 2f);
+        FIELD_BOOST_MAP.put(FIELD_INTRODUCTION, 1f);
+    }
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private PictureSearchConfig pictureSearchConfig;
+
+    private final Analyzer analyzer = new SmartChineseAnalyzer();
+
+    private FSDirectory directory;
+
+    private IndexWriter indexWriter;
+
+    private SearcherManager searcherManager;
+
+    /**
+     * 索引是否可用（目录被其他进程占用等情况下不可用，搜索退回数据库）
+     */
+    private volatile boolean available;
+
+    @PostConstruct
+    public void init() {
+        if (!pictureSearchConfig.isEnabled()) {
+            return;
+        }
+        try {
+            directory = FSDirectory.open(Paths.get(pictureSearchConfig.getIndexDir()).toAbsolutePath());
+            indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            searcherManager = new SearcherManager(indexWriter, null);
+            available = true;
+        } catch (IOException e) {
+            log.error("open picture search index error, fall back to database search, dir = {}",
+                    pictureSearchConfig.getIndexDir(), e);
+            closeQuietly();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (available) {
+            commit();
+        }
+        available = false;
+        closeQuietly();
+    }
+
+    /**
+     * 启动完成后在后台同步：索引为空时全量重建，否则补录上次提交后更新的图片
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void syncOnStartup() {
+        if (available) {
+            ThreadUtil.newThread(this::syncFromDatabase, "picture-search-index-sync", true).start();
+        }
+    }
+
+    /**
+     * 定时提交索引（与重建、补录互斥，不会提交重建到一半的索引）
+     */
+    @Scheduled(fixedDelayString = "#{@pictureSearchConfig.commitIntervalSeconds * 1000}")
+    public synchronized void commit() {
+        if (!available || !indexWriter.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            indexWriter.setLiveCommitData(Collections.singletonMap(COMMIT_TIME_KEY,
+                    String.valueOf(System.currentTimeMillis())).entrySet());
+            indexWriter.commit();
+        } catch (IOException e) {
+            log.error("commit picture search index error", e);
+        }
+    }
+
+    /**
+     * 图片变更后按 id 回查并更新索引（已删除的图片从索引中移除）
+     *
+     * @param pictureIdList 图片 id
+     */
+    public void onPictureChanged(Collection<Long> pictureIdList) {
+        if (!available || CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        List<Long> idList = pictureIdList.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        if (idList.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, Picture> pictureMap = pictureMapper.selectList(newIndexQueryWrapper().in("id", idList))
+                    .stream().collect(Collectors.toMap(Picture::getId, picture -> picture));
+            for (Long pictureId : idList) {
+                Picture picture = pictureMap.get(pictureId);
+                if (picture == null) {
+                    indexWriter.deleteDocuments(new Term(FIELD_ID, String.valueOf(pictureId)));
+                } else {
+                    indexWriter.updateDocument(new Term(FIELD_ID, String.valueOf(pictureId)), toDocument(picture));
+                }
+            }
+            searcherManager.maybeRefresh();
+        } catch (Exception e) {
+            log.error("update picture search index error, pictureIdList = {}", idList, e);
+        }
+    }
+
+    /**
+     * 搜索图片 id
+     *
+     * @param pictureQueryRequest 查询条件（searchText 不能为空）
+     * @return 当前页的图片 id（按相关度排序）和总数；索引不可用或条件无法由索引回答时返回 null
+     */
+    public Page<Long> searchPictureIds(PictureQueryRequest pictureQueryRequest) {
+        if (!available || !supports(pictureQueryRequest)) {
+            return null;
+        }
+        long current = pictureQueryRequest.getCurrent();
+        long size = pictureQueryRequest.getPageSize();
+        long end = current * size;
+        ThrowUtils.throwIf(end > pictureSearchConfig.getMaxResultWindow(), ErrorCode.PARAMS_ERROR,
+                "搜索结果最多查看前 " + pictureSearchConfig.getMaxResultWindow() + " 条");
+        Query query = buildQuery(pictureQueryRequest);
+        Page<Long> idPage = new Page<>(current, size);
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            // 统计精确总数
+            TopScoreDocCollector collector = TopScoreDocCollector.create((int) end, Integer.MAX_VALUE);
+            searcher.search(query, collector);
+            TopDocs topDocs = collector.topDocs((int) ((current - 1) * size), (int) size);
+            List<Long> idList = new ArrayList<>();
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                idList.add(Long.valueOf(searcher.doc(scoreDoc.doc).get(FIELD_ID)));
+            }
+            idPage.setTotal(topDocs.totalHits.value);
+            idPage.setRecords(idList);
+            return idPage;
+        } catch (IOException e) {
+            log.error("search picture index error, searchText = {}", pictureQueryRequest.getSearchText(), e);
+            return null;
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException e) {
+                    log.warn("release picture index searcher error", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引（可重复执行）
+     */
+    public synchronized void rebuild() {
+        if (!available) {
+            return;
+        }
+        try {
+            indexWriter.deleteAll();
+            long total = reindexFrom(null);
+            commit();
+            log.info("picture search index rebuilt, pictures = {}", total);
+        } catch (Exception e) {
+            log.error("picture search index rebuild error", e);
+        }
+    }
+
+    private synchronized void syncFromDatabase() {
+        try {
+            if (indexWriter.getDocStats().numDocs == 0) {
+                rebuild();
+                return;
+            }
+            Map<String, String> commitData = getLastCommitData();
+            String commitTime = commitData.get(COMMIT_TIME_KEY);
+            if (commitTime != null) {
+                Date since = new Date(Long.parseLong(commitTime) - CATCH_UP_SLACK_MILLIS);
+                long total = reindexFrom(since);
+                long deleted = deleteFrom(since);
+                commit();
+                log.info("picture search index caught up since {}, pictures = {}, deleted = {}", since, total, deleted);
+            }
+        } catch (Exception e) {
+            log.error("picture search index sync error", e);
+        }
+    }
+
+    /**
+     * 从索引中移除指定时间之后被逻辑删除的图片
+     *
+     * @param deletedSince 删除时间下限
+     * @return 移除的图片数
+     */
+    private long deleteFrom(Date deletedSince) throws IOException {
+        List<Long> idList = pictureMapper.listDeletedIdsSince(deletedSince);
+        if (CollUtil.isEmpty(idList)) {
+            return 0;
+        }
+        for (Long pictureId : idList) {
+            indexWriter.deleteDocuments(new Term(FIELD_ID, String.valueOf(pictureId)));
+        }
+        searcherManager.maybeRefresh();
+        return idList.size();
+    }
+
+    /**
+     * 按 id 分批扫描并写入索引
+     *
+     * @param updatedSince 只扫描该时间之后更新的图片，null 表示全部
+     * @return 写入的图片数
+     */
+    private long reindexFrom(Date updatedSince) throws IOException {
+        long lastId = Long.MIN_VALUE;
+        long total = 0;
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectList(newIndexQueryWrapper()
+                    .ge(updatedSince != null, "updateTime", updatedSince)
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("limit " + REBUILD_BATCH_SIZE));
+            if (CollUtil.isEmpty(pictureList)) {
+                break;
+            }
+            for (Picture picture : pictureList) {
+                indexWriter.updateDocument(new Term(FIELD_ID, String.valueOf(picture.getId())), toDocument(picture));
+            }
+            total += pictureList.size();
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+            if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        searcherManager.maybeRefresh();
+        return total;
+    }
+
+    private Map<String, String> getLastCommitData() throws IOException {
+        if (!DirectoryReader.indexExists(directory)) {
+            return Collections.emptyMap();
+        }
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            return reader.getIndexCommit().getUserData();
+        }
+    }
+
+    /**
+     * 有搜索词且其余条件都能由索引回答时走索引
+     */
+    private boolean supports(PictureQueryRequest q) {
+        if (q == null || StrUtil.isBlank(q.getSearchText()) || q.getCurrent() <= 0 || q.getPageSize() <= 0) {
+            return false;
+        }
+        return ObjectUtils.allNull(q.getId(), q.getPicSize(), q.getPicWidth(), q.getPicHeight(), q.getPicScale(),
+                q.getReviewerId())
+                && StrUtil.isAllBlank(q.getName(), q.getIntroduction(), q.getReviewMessage());
+    }
+
+    private Query buildQuery(PictureQueryRequest q) {
+        QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+        BooleanQuery.Builder textQuery = new BooleanQuery.Builder();
+        for (Map.Entry<String, Float> entry : FIELD_BOOST_MAP.entrySet()) {
+            Query fieldQuery = queryBuilder.createBooleanQuery(entry.getKey(), q.getSearchText(), BooleanClause.Occur.SHOULD);
+            if (fieldQuery != null) {
+                textQuery.add(new BoostQuery(fieldQuery, entry.getValue()), BooleanClause.Occur.SHOULD);
+            }
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(textQuery.build(), BooleanClause.Occur.MUST);
+        if (q.getReviewStatus() != null) {
+            builder.add(IntPoint.newExactQuery(FIELD_REVIEW_STATUS, q.getReviewStatus()), BooleanClause.Occur.FILTER);
+        }
+        if (q.getUserId() != null) {
+            builder.add(LongPoint.newExactQuery(FIELD_USER_ID, q.getUserId()), BooleanClause.Occur.FILTER);
+        }
+        if (StrUtil.isNotBlank(q.getCategory())) {
+            builder.add(new TermQuery(new Term(FIELD_CATEGORY, q.getCategory())), BooleanClause.Occur.FILTER);
+        }
+        if (StrUtil.isNotBlank(q.getPicFormat())) {
+            builder.add(new TermQuery(new Term(FIELD_PIC_FORMAT, q.getPicFormat())), BooleanClause.Occur.FILTER);
+        }
+        List<String> tagList = PictureTagUtils.normalizeTags(q.getTagList());
+        if (!tagList.isEmpty()) {
+            if (PictureTagMatchModeEnum.OR.getValue().equals(q.getTagMatchMode())) {
+                BooleanQuery.Builder anyTag = new BooleanQuery.Builder();
+                tagList.forEach(tag -> anyTag.add(new TermQuery(new Term(FIELD_TAG, tag)), BooleanClause.Occur.SHOULD));
+                builder.add(anyTag.build(), BooleanClause.Occur.FILTER);
+            } else {
+                tagList.forEach(tag -> builder.add(new TermQuery(new Term(FIELD_TAG, tag)), BooleanClause.Occur.FILTER));
+            }
+        }
+        return builder.build();
+    }
+
+    private Document toDocument(Picture picture) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(picture.getId()), Field.Store.YES));
+        document.add(new TextField(FIELD_NAME, StrUtil.nullToEmpty(picture.getName()), Field.Store.NO));
+        document.add(new TextField(FIELD_INTRODUCTION, StrUtil.nullToEmpty(picture.getIntroduction()), Field.Store.NO));
+        List<String> tagList = PictureTagUtils.parseTags(picture.getTags());
+        document.add(new TextField(FIELD_TAGS, String.join(" ", tagList), Field.Store.NO));
+        tagList.forEach(tag -> document.add(new StringField(FIELD_TAG, tag, Field.Store.NO)));
+        if (StrUtil.isNotBlank(picture.getCategory())) {
+            document.add(new StringField(FIELD_CATEGORY, picture.getCategory(), Field.Store.NO));
+        }
+        if (StrUtil.isNotBlank(picture.getPicFormat())) {
+            document.add(new StringField(FIELD_PIC_FORMAT, picture.getPicFormat(), Field.Store.NO));
+        }
+        if (picture.getUserId() != null) {
+            document.add(new LongPoint(FIELD_USER_ID, picture.getUserId()));
+        }
+        if (picture.getReviewStatus() != null) {
+            document.add(new IntPoint(FIELD_REVIEW_STATUS, picture.getReviewStatus()));
+        }
+        return document;
+    }
+
+    private QueryWrapper<Picture> newIndexQueryWrapper() {
+        return new QueryWrapper<Picture>().select("id", "name", "introduction", "tags", "category", "picFormat",
+                "userId", "reviewStatus");
+    }
+
+    private void closeQuietly() {
+        try {
+            if (searcherManager != null) {
+                searcherManager.close();
+            }
+            if (indexWriter != null) {
+                indexWriter.close();
+            }
+            if (directory != null) {
+                directory.close();
+            }
+        } catch (IOException e) {
+            log.warn("close picture search index error", e);
+        }
+    }
+}
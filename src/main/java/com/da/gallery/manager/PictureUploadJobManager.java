@@ -0,0 +1,146 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.util.IdUtil;
+import com.da.gallery.common.ErrorCode;
+import com.da.gallery.config.PictureUploadConfig;
+import com.da.gallery.exception.ThrowUtils;
+import com.da.gallery.model.enums.PictureUploadJobStatusEnum;
+import com.da.gallery.model.vo.PictureUploadJobVO;
+import com.da.gallery.model.vo.PictureVO;
+import lombok.Getter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步上传任务管理
+ * <p>
+ * 任务只保存在当前节点内存中，多节点部署时查询状态需要路由到提交任务的节点
+ */
+@Component
+public class PictureUploadJobManager {
+
+    @Resource
+    private PictureUploadConfig pictureUploadConfig;
+
+    /**
+     * 上传任务（jobId => 任务）
+     */
+    private final Map<String, PictureUploadJob> jobMap = new ConcurrentHashMap<>();
+
+    /**
+     * 创建任务
+     *
+     * @param userId   上传用户 id
+     * @param fileName 原始文件名
+     * @return
+     */
+    public PictureUploadJob createJob(Long userId, String fileName) {
+        PictureUploadJob job = new PictureUploadJob(IdUtil.fastSimpleUUID(), userId, fileName);
+        jobMap.put(job.getJobId(), job);
+        return job;
+    }
+
+    /**
+     * 获取任务（仅本人可查询）
+     *
+     * @param jobId  任务 id
+     * @param userId 上传用户 id
+     * @return
+     */
+    public PictureUploadJob getJob(String jobId, Long userId) {
+        ThrowUtils.throwIf(jobId == null, ErrorCode.PARAMS_ERROR, "任务 id 不能为空");
+        PictureUploadJob job = jobMap.get(jobId);
+        ThrowUtils.throwIf(job == null, ErrorCode.NOT_FOUND_ERROR, "上传任务不存在或已过期");
+        ThrowUtils.throwIf(!job.getUserId().equals(userId), ErrorCode.NO_AUTH_ERROR);
+        return job;
+    }
+
+    /**
+     * 移除任务（提交失败时）
+     *
+     * @param jobId 任务 id
+     */
+    public void removeJob(String jobId) {
+        jobMap.remove(jobId);
+    }
+
+    /**
+     * 定时清理过期任务：已结束的按结束时间，未结束的按创建时间
+     */
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void cleanExpiredJob() {
+        cleanExpiredJob(System.currentTimeMillis());
+    }
+
+    void cleanExpiredJob(long now) {
+        PictureUploadConfig.Async async = pictureUploadConfig.getAsync();
+        long expireMillis = TimeUnit.MINUTES.toMillis(async.getExpireMinutes());
+        long unfinishedExpireMillis = TimeUnit.MINUTES.toMillis(async.getUnfinishedExpireMinutes());
+        jobMap.values().removeIf(job -> job.getFinishTime() != null
+                ? now - job.getFinishTime().getTime() > expireMillis
+                : now - job.getCreateTime().getTime() > unfinishedExpireMillis);
+    }
+
+    public PictureUploadJobVO toVO(PictureUploadJob job) {
+        PictureUploadJobVO jobVO = new PictureUploadJobVO();
+        jobVO.setJobId(job.getJobId());
+        jobVO.setStatus(job.getStatus().getValue());
+        jobVO.setFileName(job.getFileName());
+        jobVO.setPicture(job.getPicture());
+        jobVO.setErrorMessage(job.getErrorMessage());
+        jobVO.setCreateTime(job.getCreateTime());
+        jobVO.setFinishTime(job.getFinishTime());
+        return jobVO;
+    }
+
+    /**
+     * 异步上传任务
+     */
+    @Getter
+    public static class PictureUploadJob {
+
+        private final String jobId;
+
+        private final Long userId;
+
+        private final String fileName;
+
+        private final Date createTime = new Date();
+
+        private volatile PictureUploadJobStatusEnum status = PictureUploadJobStatusEnum.WAITING;
+
+        private volatile PictureVO picture;
+
+        private volatile String errorMessage;
+
+        private volatile Date finishTime;
+
+        public PictureUploadJob(String jobId, Long userId, String fileName) {
+            this.jobId = jobId;
+            this.userId = userId;
+            this.fileName = fileName;
+        }
+
+        public void start() {
+            this.status = PictureUploadJobStatusEnum.RUNNING;
+        }
+
+        public void succeed(PictureVO picture) {
+            this.picture = picture;
+            this.finishTime = new Date();
+            this.status = PictureUploadJobStatusEnum.SUCCEED;
+        }
+
+        public void fail(String errorMessage) {
+            this.errorMessage = errorMessage;
+            this.finishTime = new Date();
+            this.status = PictureUploadJobStatusEnum.FAILED;
+        }
+    }
+}
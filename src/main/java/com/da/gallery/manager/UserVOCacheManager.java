@@ -0,0 +1,236 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.da.gallery.config.UserCacheConfig;
+import com.da.gallery.manager.cache.DistributedCache;
+import com.da.gallery.mapper.UserMapper;
+import com.da.gallery.model.entity.User;
+import com.da.gallery.model.vo.UserVO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 用户封装批量加载
+ * <p>
+ * 先查有界的 UserVO 缓存，未命中的 id 合并成一次 IN 查询；配置了等待窗口时，
+ * 窗口内并发请求的未命中 id 也合并到同一次查询。用户信息修改、删除时按 id 失效并广播到所有节点。
+ * 缓存中的对象由所有请求共享，返回给调用方的都是副本
+ */
+@Component
+@Slf4j
+public class UserVOCacheManager {
+
+    /**
+     * 用户失效通知的频道
+     */
+    private static final String INVALIDATE_CHANNEL = "user:vo:invalidate";
+
+    @Resource
+    private UserCacheConfig userCacheConfig;
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private DistributedCache distributedCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, UserVO> userVOCache;
+
+    /**
+     * 等待合并查询的用户（id => 查询结果）
+     */
+    private final Map<Long, CompletableFuture<UserVO>> pendingMap = new ConcurrentHashMap<>();
+
+    /**
+     * 是否已安排合并查询
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    /**
+     * 失效次数，查询期间发生过失效时不回填缓存，避免写回旧数据
+     */
+    private final AtomicLong invalidateVersion = new AtomicLong();
+
+    private ScheduledExecutorService batchScheduler;
+
+    private DistributionSummary batchSizeSummary;
+
+    @PostConstruct
+    public void init() {
+        userVOCache = Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getVoCacheMaxSize())
+                .expireAfterWrite(userCacheConfig.getVoCacheSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userVOCache, "user.vo");
+        batchSizeSummary = DistributionSummary.builder("user.vo.batch.size")
+                .description("每次批量查询的用户数")
+                .register(meterRegistry);
+        batchScheduler = Executors.newSingleThreadScheduledExecutor(ThreadFactoryBuilder.create()
+                .setNamePrefix("user-vo-batch-").setDaemon(true).build());
+        distributedCache.subscribe(INVALIDATE_CHANNEL, message -> {
+            invalidateVersion.incrementAndGet();
+            userVOCache.invalidateAll(StrUtil.split(message, ',').stream().map(Long::valueOf)
+                    .collect(Collectors.toList()));
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        batchScheduler.shutdownNow();
+    }
+
+    /**
+     * 获取单个用户封装
+     *
+     * @param userId 用户 id
+     * @return 用户不存在时返回 null
+     */
+    public UserVO load(Long userId) {
+        if (userId == null || userId <= 0) {
+            return null;
+        }
+        return loadAll(Collections.singleton(userId)).get(userId);
+    }
+
+    /**
+     * 批量获取用户封装
+     *
+     * @param userIdList 用户 id
+     * @return 用户 id => 用户封装副本（不存在的用户不在结果中）
+     */
+    public Map<Long, UserVO> loadAll(Collection<Long> userIdList) {
+        Map<Long, UserVO> userVOMap = loadShared(userIdList);
+        userVOMap.replaceAll((userId, userVO) -> {
+            UserVO copy = new UserVO();
+            BeanUtils.copyProperties(userVO, copy);
+            return copy;
+        });
+        return userVOMap;
+    }
+
+    /**
+     * 批量获取缓存中（或合并查询得到）的共享对象
+     */
+    private Map<Long, UserVO> loadShared(Collection<Long> userIdList) {
+        Set<Long> userIdSet = userIdList.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, UserVO> userVOMap = new HashMap<>(userVOCache.getAllPresent(userIdSet));
+        Set<Long> missIdSet = userIdSet.stream().filter(id -> !userVOMap.containsKey(id)).collect(Collectors.toSet());
+        if (missIdSet.isEmpty()) {
+            return userVOMap;
+        }
+        if (userCacheConfig.getBatchWindowMillis() <= 0) {
+            userVOMap.putAll(batchLoad(missIdSet));
+            return userVOMap;
+        }
+        Map<Long, CompletableFuture<UserVO>> futureMap = new HashMap<>();
+        for (Long userId : missIdSet) {
+            futureMap.put(userId, pendingMap.computeIfAbsent(userId, id -> new CompletableFuture<>()));
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            batchScheduler.schedule(this::flush, userCacheConfig.getBatchWindowMillis(), TimeUnit.MILLISECONDS);
+        }
+        try {
+            futureMap.forEach((userId, future) -> {
+                UserVO userVO = future.join();
+                if (userVO != null) {
+                    userVOMap.put(userId, userVO);
+                }
+            });
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return userVOMap;
+    }
+
+    /**
+     * 用户信息修改、删除后失效所有节点的缓存
+     *
+     * @param userId 用户 id
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidateVersion.incrementAndGet();
+        userVOCache.invalidate(userId);
+        try {
+            distributedCache.publish(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 其他节点的旧数据等待过期
+            log.warn("publish user vo invalidation failed, userId = {}", userId, e);
+        }
+    }
+
+    /**
+     * 执行窗口内积累的合并查询
+     */
+    private void flush() {
+        // 先复位再取出，之后加入的 id 会安排下一次查询
+        flushScheduled.set(false);
+        Map<Long, CompletableFuture<UserVO>> batchMap = new HashMap<>();
+        for (Long userId : pendingMap.keySet()) {
+            CompletableFuture<UserVO> future = pendingMap.remove(userId);
+            if (future != null) {
+                batchMap.put(userId, future);
+            }
+        }
+        if (batchMap.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, UserVO> userVOMap = batchLoad(batchMap.keySet());
+            batchMap.forEach((userId, future) -> future.complete(userVOMap.get(userId)));
+        } catch (Exception e) {
+            batchMap.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private Map<Long, UserVO> batchLoad(Collection<Long> userIdList) {
+        long version = invalidateVersion.get();
+        Map<Long, UserVO> userVOMap = new HashMap<>();
+        for (List<Long> idList : CollUtil.split(userIdList, userCacheConfig.getBatchMaxSize())) {
+            batchSizeSummary.record(idList.size());
+            for (User user : userMapper.selectBatchIds(idList)) {
+                UserVO userVO = new UserVO();
+                BeanUtils.copyProperties(user, userVO);
+                userVOMap.put(user.getId(), userVO);
+            }
+        }
+        if (invalidateVersion.get() == version) {
+            userVOCache.putAll(userVOMap);
+        }
+        return userVOMap;
+    }
+}
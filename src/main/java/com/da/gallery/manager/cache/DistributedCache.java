@@ -0,0 +1,150 @@
+package com.da.gallery.manager.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 分布式缓存接口（多级缓存的 L2 和跨节点失效通知）
+ * <p>
+ * 值统一为字符串，实现类通过配置 cache.distributed.type 选择。
+ * 实现类不吞异常，读写失败一律抛出：缓存类调用方按未命中或跳过处理，会话存储等必须写成功的调用方直接失败
+ */
+public interface DistributedCache {
+
+    /**
+     * 读取
+     *
+     * @param key 键
+     * @return 值，不存在或已过期时返回 null
+     */
+    String get(String key);
+
+    /**
+     * 写入
+     *
+     * @param key        键
+     * @param value      值
+     * @param ttlSeconds 过期时间（秒）
+     */
+    void set(String key, String value, long ttlSeconds);
+
+    /**
+     * 删除（不存在时忽略）
+     *
+     * @param key 键
+     */
+    void delete(String key);
+
+    /**
+     * 自增
+     *
+     * @param key 键（不存在时从 0 开始）
+     * @return 自增后的值
+     */
+    long increment(String key);
+
+    /**
+     * 发布消息（所有节点的订阅者都会收到，包括自己）
+     *
+     * @param channel 频道
+     * @param message 消息
+     */
+    void publish(String channel, String message);
+
+    /**
+     * 订阅消息
+     *
+     * @param channel  频道
+     * @param listener 消息处理
+     */
+    void subscribe(String channel, Consumer<String> listener);
+
+    /**
+     * 不存在时写入（用作简单的分布式锁）
+     *
+     * @param key        键
+     * @param value      值
+     * @param ttlSeconds 过期时间（秒）
+     * @return 是否写入
+     */
+    boolean setIfAbsent(String key, String value, long ttlSeconds);
+
+    /**
+     * 值等于期望值时删除（释放 setIfAbsent 加的锁，不会误删其他持有者的锁）
+     *
+     * @param key   键
+     * @param value 期望值
+     * @return 是否删除
+     */
+    boolean deleteIfEquals(String key, String value);
+
+    /**
+     * 重命名（原子覆盖目标键，源键不存在时忽略）
+     *
+     * @param key    源键
+     * @param newKey 目标键
+     * @return 源键是否存在
+     */
+    boolean rename(String key, String newKey);
+
+    /**
+     * 有序集合批量写入
+     *
+     * @param key         键
+     * @param memberScore 成员 => 分数
+     */
+    void zAdd(String key, Map<String, Double> memberScore);
+
+    /**
+     * 有序集合删除成员
+     *
+     * @param key    键
+     * @param member 成员
+     */
+    void zRemove(String key, String member);
+
+    /**
+     * 有序集合成员数
+     *
+     * @param key 键
+     * @return
+     */
+    long zCard(String key);
+
+    /**
+     * 按分数从高到低取成员（分数相同时成员按字典序从大到小）
+     *
+     * @param key      键
+     * @param maxScore 最大分数（包含）
+     * @param offset   跳过的成员数
+     * @param count    最多返回的成员数
+     * @return 成员 => 分数（按顺序）
+     */
+    LinkedHashMap<String, Double> zRevRangeByScore(String key, double maxScore, long offset, long count);
+
+    /**
+     * 哈希读取
+     *
+     * @param key   键
+     * @param field 字段
+     * @return 值，不存在时返回 null
+     */
+    String hGet(String key, String field);
+
+    /**
+     * 哈希批量写入
+     *
+     * @param key        键
+     * @param fieldValue 字段 => 值
+     */
+    void hSet(String key, Map<String, String> fieldValue);
+
+    /**
+     * 哈希删除字段
+     *
+     * @param key   键
+     * @param field 字段
+     */
+    void hDelete(String key, String field);
+}
@@ -0,0 +1,253 @@
+package com.da.gallery.manager.cache;
+
+import com.da.gallery.config.DistributedCacheConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 本地内存实现（单节点部署和测试使用，不跨进程共享）
+ */
+@Component
+@ConditionalOnProperty(name = "cache.distributed.type", havingValue = "local", matchIfMissing = true)
+public class LocalDistributedCache implements DistributedCache {
+
+    @Resource
+    private DistributedCacheConfig distributedCacheConfig;
+
+    /**
+     * 缓存值（键 => 值和过期时间）
+     */
+    private final Map<String, CacheValue> valueMap = new ConcurrentHashMap<>();
+
+    /**
+     * 有序集合（键 => 有序集合）
+     */
+    private final Map<String, LocalSortedSet> sortedSetMap = new ConcurrentHashMap<>();
+
+    /**
+     * 哈希（键 => 字段 => 值）
+     */
+    private final Map<String, Map<String, String>> hashMap = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅者（频道 => 消息处理）
+     */
+    private final Map<String, List<Consumer<String>>> listenerMap = new ConcurrentHashMap<>();
+
+    @Override
+    public String get(String key) {
+        CacheValue cacheValue = valueMap.get(getKey(key));
+        if (cacheValue == null || cacheValue.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return cacheValue.value;
+    }
+
+    @Override
+    public void set(String key, String value, long ttlSeconds) {
+        long expireTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+        valueMap.put(getKey(key), new CacheValue(value, expireTime));
+    }
+
+    @Override
+    public void delete(String key) {
+        valueMap.remove(getKey(key));
+        sortedSetMap.remove(getKey(key));
+        hashMap.remove(getKey(key));
+    }
+
+    @Override
+    public long increment(String key) {
+        CacheValue cacheValue = valueMap.compute(getKey(key), (k, oldValue) -> {
+            long value = oldValue == null || oldValue.isExpired(System.currentTimeMillis())
+                    ? 1 : Long.parseLong(oldValue.value) + 1;
+            return new CacheValue(String.valueOf(value), Long.MAX_VALUE);
+        });
+        return Long.parseLong(cacheValue.value);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        listenerMap.getOrDefault(getKey(channel), new CopyOnWriteArrayList<>())
+                .forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listenerMap.computeIfAbsent(getKey(channel), k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, String value, long ttlSeconds) {
+        long now = System.currentTimeMillis();
+        CacheValue newValue = new CacheValue(value, now + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        CacheValue cacheValue = valueMap.compute(getKey(key),
+                (k, oldValue) -> oldValue == null || oldValue.isExpired(now) ? newValue : oldValue);
+        return cacheValue == newValue;
+    }
+
+    @Override
+    public boolean deleteIfEquals(String key, String value) {
+        long now = System.currentTimeMillis();
+        AtomicBoolean deleted = new AtomicBoolean();
+        valueMap.computeIfPresent(getKey(key), (k, oldValue) -> {
+            if (oldValue.isExpired(now) || !oldValue.value.equals(value)) {
+                return oldValue;
+            }
+            deleted.set(true);
+            return null;
+        });
+        return deleted.get();
+    }
+
+    @Override
+    public synchronized boolean rename(String key, String newKey) {
+        boolean moved = moveKey(valueMap, getKey(key), getKey(newKey));
+        moved |= moveKey(sortedSetMap, getKey(key), getKey(newKey));
+        moved |= moveKey(hashMap, getKey(key), getKey(newKey));
+        return moved;
+    }
+
+    @Override
+    public void zAdd(String key, Map<String, Double> memberScore) {
+        LocalSortedSet sortedSet = sortedSetMap.computeIfAbsent(getKey(key), k -> new LocalSortedSet());
+        memberScore.forEach(sortedSet::add);
+    }
+
+    @Override
+    public void zRemove(String key, String member) {
+        LocalSortedSet sortedSet = sortedSetMap.get(getKey(key));
+        if (sortedSet != null) {
+            sortedSet.remove(member);
+        }
+    }
+
+    @Override
+    public long zCard(String key) {
+        LocalSortedSet sortedSet = sortedSetMap.get(getKey(key));
+        return sortedSet == null ? 0 : sortedSet.size();
+    }
+
+    @Override
+    public LinkedHashMap<String, Double> zRevRangeByScore(String key, double maxScore, long offset, long count) {
+        LocalSortedSet sortedSet = sortedSetMap.get(getKey(key));
+        return sortedSet == null ? new LinkedHashMap<>() : sortedSet.revRangeByScore(maxScore, offset, count);
+    }
+
+    @Override
+    public String hGet(String key, String field) {
+        Map<String, String> fieldMap = hashMap.get(getKey(key));
+        return fieldMap == null ? null : fieldMap.get(field);
+    }
+
+    @Override
+    public void hSet(String key, Map<String, String> fieldValue) {
+        hashMap.computeIfAbsent(getKey(key), k -> new ConcurrentHashMap<>()).putAll(fieldValue);
+    }
+
+    @Override
+    public void hDelete(String key, String field) {
+        Map<String, String> fieldMap = hashMap.get(getKey(key));
+        if (fieldMap != null) {
+            fieldMap.remove(field);
+        }
+    }
+
+    /**
+     * 定时清理过期的值
+     */
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void cleanExpiredValue() {
+        long now = System.currentTimeMillis();
+        valueMap.values().removeIf(cacheValue -> cacheValue.isExpired(now));
+    }
+
+    private String getKey(String key) {
+        return distributedCacheConfig.getKeyPrefix() + key;
+    }
+
+    private static <T> boolean moveKey(Map<String, T> map, String key, String newKey) {
+        T value = map.remove(key);
+        if (value == null) {
+            return false;
+        }
+        map.put(newKey, value);
+        return true;
+    }
+
+    private static class CacheValue {
+
+        private final String value;
+
+        private final long expireTime;
+
+        private CacheValue(String value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expireTime;
+        }
+    }
+
+    /**
+     * 有序集合：按 (分数, 成员) 排序
+     */
+    private static class LocalSortedSet {
+
+        private final Map<String, Double> scoreMap = new HashMap<>();
+
+        private final TreeSet<Map.Entry<String, Double>> entrySet = new TreeSet<>(
+                Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        private synchronized void add(String member, Double score) {
+            remove(member);
+            scoreMap.put(member, score);
+            entrySet.add(new AbstractMap.SimpleImmutableEntry<>(member, score));
+        }
+
+        private synchronized void remove(String member) {
+            Double score = scoreMap.remove(member);
+            if (score != null) {
+                entrySet.remove(new AbstractMap.SimpleImmutableEntry<>(member, score));
+            }
+        }
+
+        private synchronized int size() {
+            return scoreMap.size();
+        }
+
+        private synchronized LinkedHashMap<String, Double> revRangeByScore(double maxScore, long offset, long count) {
+            LinkedHashMap<String, Double> result = new LinkedHashMap<>();
+            long skipped = 0;
+            for (Map.Entry<String, Double> entry : entrySet.descendingSet()) {
+                if (result.size() >= count) {
+                    break;
+                }
+                if (entry.getValue() > maxScore) {
+                    continue;
+                }
+                if (skipped++ < offset) {
+                    continue;
+                }
+                result.put(entry.getKey(), entry.getValue());
+            }
+            return result;
+        }
+    }
+}
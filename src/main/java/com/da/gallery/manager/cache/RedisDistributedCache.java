@@ -0,0 +1,177 @@
+package com.da.gallery.manager.cache;
+
+import com.da.gallery.config.DistributedCacheConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Redis 实现
+ * <p>
+ * 依赖 Redis 自动配置，启用前须去掉启动类上对 RedisAutoConfiguration 的排除并配置 spring.redis；
+ * 读写失败时直接抛出异常，由调用方决定按未命中处理还是失败（见 {@link DistributedCache}）
+ */
+@Component
+@ConditionalOnProperty(name = "cache.distributed.type", havingValue = "redis")
+public class RedisDistributedCache implements DistributedCache {
+
+    /**
+     * 比较后删除（GET 和 DEL 在一个脚本中原子执行）
+     */
+    private static final RedisScript<Long> DELETE_IF_EQUALS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Resource
+    private DistributedCacheConfig distributedCacheConfig;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisConnectionFactory redisConnectionFactory;
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisConnectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        listenerContainer.destroy();
+    }
+
+    @Override
+    public String get(String key) {
+        return stringRedisTemplate.opsForValue().get(getKey(key));
+    }
+
+    @Override
+    public void set(String key, String value, long ttlSeconds) {
+        stringRedisTemplate.opsForValue().set(getKey(key), value, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void delete(String key) {
+        stringRedisTemplate.delete(getKey(key));
+    }
+
+    @Override
+    public long increment(String key) {
+        Long value = stringRedisTemplate.opsForValue().increment(getKey(key));
+        return value == null ? 0 : value;
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, String value, long ttlSeconds) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(getKey(key), value, ttlSeconds, TimeUnit.SECONDS));
+    }
+
+    @Override
+    public boolean deleteIfEquals(String key, String value) {
+        Long deleted = stringRedisTemplate.execute(DELETE_IF_EQUALS_SCRIPT, Collections.singletonList(getKey(key)),
+                value);
+        return deleted != null && deleted > 0;
+    }
+
+    @Override
+    public boolean rename(String key, String newKey) {
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(getKey(key)))) {
+            return false;
+        }
+        stringRedisTemplate.rename(getKey(key), getKey(newKey));
+        return true;
+    }
+
+    @Override
+    public void zAdd(String key, Map<String, Double> memberScore) {
+        if (memberScore.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tupleSet = memberScore.entrySet().stream()
+                .map(entry -> new DefaultTypedTuple<>(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toSet());
+        stringRedisTemplate.opsForZSet().add(getKey(key), tupleSet);
+    }
+
+    @Override
+    public void zRemove(String key, String member) {
+        stringRedisTemplate.opsForZSet().remove(getKey(key), member);
+    }
+
+    @Override
+    public long zCard(String key) {
+        Long size = stringRedisTemplate.opsForZSet().zCard(getKey(key));
+        return size == null ? 0 : size;
+    }
+
+    @Override
+    public LinkedHashMap<String, Double> zRevRangeByScore(String key, double maxScore, long offset, long count) {
+        LinkedHashMap<String, Double> result = new LinkedHashMap<>();
+        Set<ZSetOperations.TypedTuple<String>> tupleSet = stringRedisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(getKey(key), Double.NEGATIVE_INFINITY, maxScore, offset, count);
+        if (tupleSet != null) {
+            tupleSet.forEach(tuple -> result.put(tuple.getValue(), tuple.getScore()));
+        }
+        return result;
+    }
+
+    @Override
+    public String hGet(String key, String field) {
+        Object value = stringRedisTemplate.opsForHash().get(getKey(key), field);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public void hSet(String key, Map<String, String> fieldValue) {
+        if (!fieldValue.isEmpty()) {
+            stringRedisTemplate.opsForHash().putAll(getKey(key), fieldValue);
+        }
+    }
+
+    @Override
+    public void hDelete(String key, String field) {
+        stringRedisTemplate.opsForHash().delete(getKey(key), field);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        stringRedisTemplate.convertAndSend(getKey(channel), message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listenerContainer.addMessageListener((message, pattern) ->
+                        listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(getKey(channel)));
+    }
+
+    private String getKey(String key) {
+        return distributedCacheConfig.getKeyPrefix() + key;
+    }
+}
@@ -0,0 +1,122 @@
+package com.da.gallery.manager.http;
+
+import com.da.gallery.config.PictureUploadConfig;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+/**
+ * 只允许连接公网地址的域名解析器（防止导入网络图片时访问内网，SSRF）
+ * <p>
+ * 校验发生在连接池建立连接时，实际连接的就是校验过的地址，不会因两次解析结果不同（DNS 重绑定）而绕过
+ */
+public class PublicAddressDnsResolver implements DnsResolver {
+
+    private final PictureUploadConfig pictureUploadConfig;
+
+    public PublicAddressDnsResolver(PictureUploadConfig pictureUploadConfig) {
+        this.pictureUploadConfig = pictureUploadConfig;
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        InetAddress[] addresses = SystemDefaultDnsResolver.INSTANCE.resolve(host);
+        if (pictureUploadConfig.isUrlAllowPrivateAddress()) {
+            return addresses;
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublicAddress(address)) {
+                throw new BlockedAddressException(host);
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * 是否为公网地址
+     * <p>
+     * 排除本机、回环、链路本地、局域网、组播、IPv6 唯一本地（fc00::/7）、运营商 NAT（100.64.0.0/10）、
+     * 保留地址，IPv4 映射 / 兼容 / NAT64 的 IPv6 地址按其中的 IPv4 地址判断
+     *
+     * @param address 地址
+     * @return
+     */
+    public static boolean isPublicAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            return isPublicIpv4(bytes);
+        }
+        if (address instanceof Inet6Address) {
+            // fc00::/7
+            if ((bytes[0] & 0xfe) == 0xfc) {
+                return false;
+            }
+            byte[] embedded = getEmbeddedIpv4(bytes);
+            return embedded == null || isPublicIpv4(embedded);
+        }
+        return false;
+    }
+
+    private static boolean isPublicIpv4(byte[] bytes) {
+        int first = bytes[0] & 0xff;
+        int second = bytes[1] & 0xff;
+        // 0.0.0.0/8、10.0.0.0/8、127.0.0.0/8、240.0.0.0/4（含广播）
+        if (first == 0 || first == 10 || first == 127 || first >= 240) {
+            return false;
+        }
+        // 100.64.0.0/10
+        if (first == 100 && (second & 0xc0) == 64) {
+            return false;
+        }
+        // 169.254.0.0/16、172.16.0.0/12、192.168.0.0/16
+        if ((first == 169 && second == 254) || (first == 172 && (second & 0xf0) == 16)
+                || (first == 192 && second == 168)) {
+            return false;
+        }
+        // 192.0.0.0/24、198.18.0.0/15、224.0.0.0/4
+        return !(first == 192 && second == 0 && (bytes[2] & 0xff) == 0)
+                && !(first == 198 && (second & 0xfe) == 18)
+                && !(first >= 224);
+    }
+
+    /**
+     * 取出 IPv6 地址中嵌入的 IPv4 地址：::ffff:a.b.c.d、::a.b.c.d、64:ff9b::a.b.c.d
+     *
+     * @return 没有嵌入时返回 null
+     */
+    private static byte[] getEmbeddedIpv4(byte[] bytes) {
+        boolean prefixZero = true;
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                prefixZero = false;
+                break;
+            }
+        }
+        boolean mapped = prefixZero && (bytes[10] & 0xff) == 0xff && (bytes[11] & 0xff) == 0xff;
+        boolean compatible = prefixZero && bytes[10] == 0 && bytes[11] == 0;
+        boolean nat64 = bytes[0] == 0 && bytes[1] == 0x64 && (bytes[2] & 0xff) == 0xff && (bytes[3] & 0xff) == 0x9b;
+        for (int i = 4; nat64 && i < 12; i++) {
+            nat64 = bytes[i] == 0;
+        }
+        return mapped || compatible || nat64 ? Arrays.copyOfRange(bytes, 12, 16) : null;
+    }
+
+    /**
+     * 解析到了非公网地址
+     */
+    public static class BlockedAddressException extends UnknownHostException {
+
+        public BlockedAddressException(String host) {
+            super("blocked non-public address, host = " + host);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.da.gallery.manager.session;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.util.ObjectUtil;
+import com.da.gallery.constant.UserConstant;
+import com.da.gallery.model.dto.user.LoginUserState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.session.MapSession;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 会话紧凑编码
+ * <p>
+ * 编码为一个短键 JSON：c-创建时间，a-最后访问时间，m-过期时间（秒），
+ * u-登录态 [用户 id, 角色, 版本]，x-其他属性（JDK 序列化后 Base64，一般没有）
+ */
+@Slf4j
+public class CompactSessionCodec {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 编码
+     *
+     * @param session            会话
+     * @param withLastAccessTime 是否包含最后访问时间（不包含时用于比较会话内容是否变化）
+     * @return
+     */
+    public String encode(MapSession session, boolean withLastAccessTime) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("c", session.getCreationTime().toEpochMilli());
+        if (withLastAccessTime) {
+            node.put("a", session.getLastAccessedTime().toEpochMilli());
+        }
+        node.put("m", session.getMaxInactiveInterval().getSeconds());
+        ObjectNode otherNode = objectMapper.createObjectNode();
+        for (String name : session.getAttributeNames()) {
+            Object value = session.getAttribute(name);
+            if (UserConstant.USER_LOGIN_STATE.equals(name) && value instanceof LoginUserState) {
+                LoginUserState state = (LoginUserState) value;
+                node.putArray("u").add(state.getUserId()).add(state.getUserRole()).add(state.getVersion());
+            } else if (value instanceof Serializable) {
+                otherNode.put(name, Base64.encode(ObjectUtil.serialize(value)));
+            } else {
+                log.warn("session attribute is not serializable, name = {}", name);
+            }
+        }
+        if (otherNode.size() > 0) {
+            node.set("x", otherNode);
+        }
+        return node.toString();
+    }
+
+    /**
+     * 解码
+     *
+     * @param sessionId 会话 id
+     * @param value     编码后的会话
+     * @return 无法解码时返回 null
+     */
+    public MapSession decode(String sessionId, String value) {
+        try {
+            JsonNode node = objectMapper.readTree(value);
+            MapSession session = new MapSession(sessionId);
+            session.setCreationTime(Instant.ofEpochMilli(node.path("c").asLong()));
+            session.setLastAccessedTime(Instant.ofEpochMilli(node.path("a").asLong()));
+            session.setMaxInactiveInterval(Duration.ofSeconds(node.path("m").asLong()));
+            JsonNode userNode = node.get("u");
+            if (userNode instanceof ArrayNode) {
+                session.setAttribute(UserConstant.USER_LOGIN_STATE, new LoginUserState(userNode.get(0).asLong(),
+                        userNode.get(1).isNull() ? null : userNode.get(1).asText(), userNode.get(2).asLong()));
+            }
+            JsonNode otherNode = node.path("x");
+            for (Iterator<Map.Entry<String, JsonNode>> iterator = otherNode.fields(); iterator.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = iterator.next();
+                session.setAttribute(entry.getKey(), ObjectUtil.deserialize(Base64.decode(entry.getValue().asText())));
+            }
+            return session;
+        } catch (IOException | RuntimeException e) {
+            log.warn("session decode error, sessionId = {}", sessionId, e);
+            return null;
+        }
+    }
+}
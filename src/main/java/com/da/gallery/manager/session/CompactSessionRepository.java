@@ -0,0 +1,161 @@
+package com.da.gallery.manager.session;
+
+import com.da.gallery.config.SessionStoreConfig;
+import com.da.gallery.manager.cache.DistributedCache;
+import com.da.gallery.manager.cache.LocalDistributedCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 紧凑会话存储
+ * <p>
+ * 每个会话在分布式缓存中是一个字符串（见 {@link CompactSessionCodec}），过期时间跟随会话；
+ * 本地近缓存保存最近读写的编码，热点会话不必每个请求都访问 Redis。
+ * 会话内容变化或删除时广播失效，只刷新最后访问时间的写入按间隔合并
+ */
+@Component
+@Slf4j
+@ConditionalOnExpression(SessionStoreConfig.ENABLED_CONDITION)
+public class CompactSessionRepository implements SessionRepository<MapSession> {
+
+    private static final String KEY_PREFIX = "session:";
+
+    /**
+     * 会话失效通知的频道
+     */
+    private static final String INVALIDATE_CHANNEL = "session:invalidate";
+
+    @Resource
+    private SessionStoreConfig sessionStoreConfig;
+
+    @Resource
+    private DistributedCache distributedCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final CompactSessionCodec codec = new CompactSessionCodec();
+
+    private Cache<String, StoredSession> nearCache;
+
+    private Counter sessionCreatedCounter;
+
+    @PostConstruct
+    public void init() {
+        if (distributedCache instanceof LocalDistributedCache) {
+            log.warn("紧凑会话存储使用本地缓存，会话只保存在当前进程，多节点部署须配置 cache.distributed.type: redis");
+        }
+        nearCache = Caffeine.newBuilder()
+                .maximumSize(sessionStoreConfig.getNearCacheMaxSize())
+                .expireAfterWrite(sessionStoreConfig.getNearCacheSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "session.near");
+        sessionCreatedCounter = Counter.builder("session.created")
+                .description("创建的会话数（只有登录等需要写会话的请求才会创建）")
+                .register(meterRegistry);
+        distributedCache.subscribe(INVALIDATE_CHANNEL, nearCache::invalidate);
+    }
+
+    @Override
+    public MapSession createSession() {
+        sessionCreatedCounter.increment();
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(Duration.ofSeconds(sessionStoreConfig.getTimeoutSeconds()));
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        String sessionId = session.getId();
+        if (!sessionId.equals(session.getOriginalId())) {
+            deleteById(session.getOriginalId());
+        }
+        String content = codec.encode(session, false);
+        long lastAccessedTime = session.getLastAccessedTime().toEpochMilli();
+        StoredSession storedSession = nearCache.getIfPresent(sessionId);
+        // 内容没变且刚写过时只在本地记录访问，不写缓存
+        if (storedSession != null && storedSession.getContent().equals(content)
+                && lastAccessedTime - storedSession.getLastAccessedTime()
+                < TimeUnit.SECONDS.toMillis(sessionStoreConfig.getTouchIntervalSeconds())) {
+            return;
+        }
+        String value = codec.encode(session, true);
+        distributedCache.set(KEY_PREFIX + sessionId, value, session.getMaxInactiveInterval().getSeconds());
+        if (storedSession == null || !storedSession.getContent().equals(content)) {
+            distributedCache.publish(INVALIDATE_CHANNEL, sessionId);
+        }
+        nearCache.put(sessionId, new StoredSession(value, content, lastAccessedTime));
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        StoredSession storedSession = nearCache.get(id, this::load);
+        if (storedSession == null) {
+            return null;
+        }
+        MapSession session = codec.decode(id, storedSession.getValue());
+        if (session == null || session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        distributedCache.delete(KEY_PREFIX + id);
+        nearCache.invalidate(id);
+        distributedCache.publish(INVALIDATE_CHANNEL, id);
+    }
+
+    private StoredSession load(String id) {
+        String value = distributedCache.get(KEY_PREFIX + id);
+        if (value == null) {
+            return null;
+        }
+        MapSession session = codec.decode(id, value);
+        if (session == null) {
+            return null;
+        }
+        return new StoredSession(value, codec.encode(session, false), session.getLastAccessedTime().toEpochMilli());
+    }
+
+    /**
+     * 已写入缓存的会话
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class StoredSession {
+
+        /**
+         * 完整编码
+         */
+        private final String value;
+
+        /**
+         * 不含最后访问时间的编码（判断内容是否变化）
+         */
+        private final String content;
+
+        /**
+         * 写入时的最后访问时间（毫秒）
+         */
+        private final long lastAccessedTime;
+    }
+}
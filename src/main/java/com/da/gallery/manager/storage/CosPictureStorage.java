@@ -0,0 +1,103 @@
+package com.da.gallery.manager.storage;
+
+import cn.hutool.core.util.StrUtil;
+import com.da.gallery.config.CosClientConfig;
+import com.da.gallery.manager.CosManager;
+import com.qcloud.cos.exception.CosServiceException;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PartETag;
+import com.qcloud.cos.model.PutObjectResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.InputStream;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+/**
+ * 腾讯云对象存储实现（默认）
+ */
+@Component
+@ConditionalOnProperty(name = "picture.storage.type", havingValue = "cos", matchIfMissing = true)
+public class CosPictureStorage implements PictureStorage {
+
+    @Resource
+    private CosManager cosManager;
+
+    @Resource
+    private CosClientConfig cosClientConfig;
+
+    @Override
+    public String put(String key, InputStream inputStream, long contentLength, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        metadata.setContentType(contentType);
+        PutObjectResult putObjectResult = cosManager.putObject(key, inputStream, metadata);
+        return putObjectResult == null ? null : StrUtil.strip(putObjectResult.getETag(), "\"");
+    }
+
+    @Override
+    public InputStream get(String key) {
+        return cosManager.getObject(key).getObjectContent();
+    }
+
+    @Override
+    public void delete(String key) {
+        cosManager.deleteObject(key);
+    }
+
+    @Override
+    public PictureStorageStat stat(String key) {
+        ObjectMetadata metadata;
+        try {
+            metadata = cosManager.getObjectMetadata(key);
+        } catch (CosServiceException e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+        PictureStorageStat stat = new PictureStorageStat();
+        stat.setKey(key);
+        stat.setSize(metadata.getContentLength());
+        stat.setContentType(metadata.getContentType());
+        stat.setLastModified(metadata.getLastModified() == null ? 0 : metadata.getLastModified().getTime());
+        stat.setETag(StrUtil.strip(metadata.getETag(), "\""));
+        return stat;
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return cosClientConfig.getHost() + "/" + key;
+    }
+
+    @Override
+    public String getKey(String url) {
+        return StrUtil.removePrefix(url, cosClientConfig.getHost() + "/");
+    }
+
+    @Override
+    public String initiateMultipartUpload(String key) {
+        return cosManager.initiateMultipartUpload(key);
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        return cosManager.uploadPart(key, uploadId, partNumber, inputStream, partSize).getETag();
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, SortedMap<Integer, String> partETagMap) {
+        List<PartETag> partETagList = partETagMap.entrySet().stream()
+                .map(entry -> new PartETag(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        cosManager.completeMultipartUpload(key, uploadId, partETagList);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        cosManager.abortMultipartUpload(key, uploadId);
+    }
+}
@@ -0,0 +1,262 @@
+package com.da.gallery.manager.storage;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.da.gallery.common.ErrorCode;
+import com.da.gallery.config.PictureStorageConfig;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.exception.ThrowUtils;
+import com.da.gallery.model.enums.StorageFsyncModeEnum;
+import com.da.gallery.utils.DigestCountingInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * 本地磁盘存储实现
+ * <p>
+ * 先用 FileChannel 写入临时文件，按刷盘策略 fsync 后原子重命名到目标位置，读者不会看到写了一半的文件
+ */
+@Component
+@ConditionalOnProperty(name = "picture.storage.type", havingValue = "local")
+@Slf4j
+public class LocalPictureStorage implements PictureStorage {
+
+    /**
+     * 临时文件目录（与存储目录在同一文件系统，保证重命名是原子的）
+     */
+    private static final String TMP_DIR = ".tmp";
+
+    /**
+     * 分片目录
+     */
+    private static final String MULTIPART_DIR = ".multipart";
+
+    @Resource
+    private PictureStorageConfig pictureStorageConfig;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(pictureStorageConfig.getLocal().getRoot()).toAbsolutePath().normalize();
+        Files.createDirectories(root.resolve(TMP_DIR));
+        Files.createDirectories(root.resolve(MULTIPART_DIR));
+        log.info("local picture storage root = {}, fsync = {}", root, pictureStorageConfig.getLocal().getFsync());
+    }
+
+    @Override
+    public String put(String key, InputStream inputStream, long contentLength, String contentType) {
+        return writeFile(getPath(key), inputStream, contentLength);
+    }
+
+    @Override
+    public InputStream get(String key) {
+        try {
+            return Files.newInputStream(getPath(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(getPath(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public PictureStorageStat stat(String key) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(getPath(key), BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+        PictureStorageStat stat = new PictureStorageStat();
+        stat.setKey(key);
+        stat.setSize(attributes.size());
+        stat.setContentType(FileUtil.getMimeType(key));
+        stat.setLastModified(attributes.lastModifiedTime().toMillis());
+        return stat;
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return pictureStorageConfig.getLocal().getUrlPrefix() + key;
+    }
+
+    @Override
+    public String getKey(String url) {
+        return StrUtil.removePrefix(url, pictureStorageConfig.getLocal().getUrlPrefix());
+    }
+
+    @Override
+    public String initiateMultipartUpload(String key) {
+        String uploadId = IdUtil.fastSimpleUUID();
+        try {
+            Files.createDirectories(getMultipartPath(uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        return writeFile(getMultipartPath(uploadId).resolve(String.valueOf(partNumber)), inputStream, partSize);
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, SortedMap<Integer, String> partETagMap) {
+        Path multipartPath = getMultipartPath(uploadId);
+        Path tmp = root.resolve(TMP_DIR).resolve(IdUtil.fastSimpleUUID());
+        try {
+            // 按序号依次把分片拼接到临时文件（FileChannel 之间直接传输，不经过堆内存）
+            try (FileChannel target = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (Map.Entry<Integer, String> entry : partETagMap.entrySet()) {
+                    try (FileChannel part = FileChannel.open(multipartPath.resolve(String.valueOf(entry.getKey())),
+                            StandardOpenOption.READ)) {
+                        long size = part.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += part.transferTo(position, size - position, target);
+                        }
+                    }
+                }
+                force(target);
+            }
+            moveToTarget(tmp, getPath(key));
+            FileUtil.del(multipartPath);
+        } catch (IOException e) {
+            FileUtil.del(tmp);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        FileUtil.del(getMultipartPath(uploadId));
+    }
+
+    /**
+     * 对象键对应的本地路径（拒绝越出存储根目录或访问内部目录的键）
+     *
+     * @param key 对象键
+     * @return
+     */
+    public Path getPath(String key) {
+        ThrowUtils.throwIf(StrUtil.isBlank(key), ErrorCode.PARAMS_ERROR, "对象键不能为空");
+        Path path = root.resolve(StrUtil.removePrefix(key, "/")).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "非法的对象键");
+        }
+        // 以 . 开头的目录或文件（临时文件、分片）不对外暴露
+        for (Path name : root.relativize(path)) {
+            ThrowUtils.throwIf(name.toString().startsWith("."), ErrorCode.PARAMS_ERROR, "非法的对象键");
+        }
+        return path;
+    }
+
+    private Path getMultipartPath(String uploadId) {
+        ThrowUtils.throwIf(!StrUtil.isAllCharMatch(uploadId, Character::isLetterOrDigit), ErrorCode.PARAMS_ERROR,
+                "分片上传 id 不合法");
+        return root.resolve(MULTIPART_DIR).resolve(uploadId);
+    }
+
+    /**
+     * 写入文件：临时文件 -> 刷盘 -> 原子重命名
+     *
+     * @return 内容 MD5
+     */
+    private String writeFile(Path target, InputStream inputStream, long contentLength) {
+        Path tmp = root.resolve(TMP_DIR).resolve(IdUtil.fastSimpleUUID());
+        DigestCountingInputStream digestInputStream = new DigestCountingInputStream(inputStream, newMd5Digest());
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(digestInputStream);
+                long position = 0;
+                while (position < contentLength) {
+                    long n = channel.transferFrom(source, position, contentLength - position);
+                    if (n <= 0) {
+                        break;
+                    }
+                    position += n;
+                }
+                force(channel);
+            }
+            if (digestInputStream.getCount() != contentLength) {
+                throw new IOException(String.format("content length mismatch, expect %s, actual %s",
+                        contentLength, digestInputStream.getCount()));
+            }
+            moveToTarget(tmp, target);
+            return HexUtil.encodeHexStr(digestInputStream.getMessageDigest().digest());
+        } catch (IOException e) {
+            FileUtil.del(tmp);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void moveToTarget(Path tmp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (StorageFsyncModeEnum.ALL.equals(getFsyncMode())) {
+            // 目录项也要刷盘，否则掉电后重命名可能丢失
+            try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+                directory.force(true);
+            }
+        }
+    }
+
+    private void force(FileChannel channel) throws IOException {
+        StorageFsyncModeEnum fsyncMode = getFsyncMode();
+        if (StorageFsyncModeEnum.DATA.equals(fsyncMode)) {
+            channel.force(false);
+        } else if (StorageFsyncModeEnum.ALL.equals(fsyncMode)) {
+            channel.force(true);
+        }
+    }
+
+    private StorageFsyncModeEnum getFsyncMode() {
+        StorageFsyncModeEnum fsyncMode = StorageFsyncModeEnum.getEnumByValue(pictureStorageConfig.getLocal().getFsync());
+        return fsyncMode == null ? StorageFsyncModeEnum.DATA : fsyncMode;
+    }
+
+    private static MessageDigest newMd5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.da.gallery.manager.storage;
+
+import java.io.InputStream;
+import java.util.SortedMap;
+
+/**
+ * 图片存储接口
+ * <p>
+ * 对象键形如 /public/{userId}/{filename}，实现类通过配置 picture.storage.type 选择
+ */
+public interface PictureStorage {
+
+    /**
+     * 写入对象
+     *
+     * @param key           对象键
+     * @param inputStream   内容（调用方负责关闭）
+     * @param contentLength 内容长度
+     * @param contentType   内容类型
+     * @return 内容 MD5（十六进制，无法获取时为 null）
+     */
+    String put(String key, InputStream inputStream, long contentLength, String contentType);
+
+    /**
+     * 读取对象
+     *
+     * @param key 对象键
+     * @return 内容（调用方负责关闭）
+     */
+    InputStream get(String key);
+
+    /**
+     * 删除对象（不存在时忽略）
+     *
+     * @param key 对象键
+     */
+    void delete(String key);
+
+    /**
+     * 查询对象信息
+     *
+     * @param key 对象键
+     * @return 对象信息，不存在时返回 null
+     */
+    PictureStorageStat stat(String key);
+
+    /**
+     * 对象键转访问地址
+     *
+     * @param key 对象键
+     * @return
+     */
+    String getUrl(String key);
+
+    /**
+     * 访问地址转对象键
+     *
+     * @param url 访问地址
+     * @return
+     */
+    String getKey(String url);
+
+    /**
+     * 初始化分片上传
+     *
+     * @param key 对象键
+     * @return uploadId
+     */
+    String initiateMultipartUpload(String key);
+
+    /**
+     * 上传分片
+     *
+     * @param key         对象键
+     * @param uploadId    分片上传 id
+     * @param partNumber  分片序号（从 1 开始）
+     * @param inputStream 分片内容
+     * @param partSize    分片大小
+     * @return 分片 ETag
+     */
+    String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize);
+
+    /**
+     * 完成分片上传
+     *
+     * @param key          对象键
+     * @param uploadId     分片上传 id
+     * @param partETagMap  所有分片（分片序号 => ETag，按序号升序）
+     */
+    void completeMultipartUpload(String key, String uploadId, SortedMap<Integer, String> partETagMap);
+
+    /**
+     * 取消分片上传
+     *
+     * @param key      对象键
+     * @param uploadId 分片上传 id
+     */
+    void abortMultipartUpload(String key, String uploadId);
+}
@@ -0,0 +1,35 @@
+package com.da.gallery.manager.storage;
+
+import lombok.Data;
+
+/**
+ * 存储对象信息
+ */
+@Data
+public class PictureStorageStat {
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 内容长度
+     */
+    private long size;
+
+    /**
+     * 内容类型
+     */
+    private String contentType;
+
+    /**
+     * 最后修改时间（毫秒时间戳）
+     */
+    private long lastModified;
+
+    /**
+     * ETag（无法获取时为 null）
+     */
+    private String eTag;
+}
@@ -1,7 +1,16 @@
 package com.da.gallery.mapper;
 
 import com.da.gallery.model.entity.Picture;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 /**
 * @author 13491
@@ -11,8 +20,38 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 */
 public interface PictureMapper extends BaseMapper<Picture> {
 
-}
-
-
+    /**
+     * 多行插入（一条 INSERT 语句，id 需提前生成）
+     *
+     * @param pictureList
+     * @return
+     */
+    @Insert({"<script>",
+            "INSERT INTO picture (id, url, thumbnailUrl, compressUrl, name, picSize, picWidth, picHeight, picScale, picFormat, contentHash, userId,",
+            "reviewStatus, reviewMessage, reviewerId, reviewTime) VALUES",
+            "<foreach collection='list' item='item' separator=','>",
+            "(#{item.id}, #{item.url}, #{item.thumbnailUrl}, #{item.compressUrl}, #{item.name}, #{item.picSize}, #{item.picWidth}, #{item.picHeight},",
+            "#{item.picScale}, #{item.picFormat}, #{item.contentHash}, #{item.userId}, #{item.reviewStatus}, #{item.reviewMessage},",
+            "#{item.reviewerId}, #{item.reviewTime})",
+            "</foreach>",
+            "</script>"})
+    int insertBatch(@Param("list") List<Picture> pictureList);
 
+    /**
+     * 查询指定时间之后被逻辑删除的图片 id（绕过逻辑删除条件）
+     *
+     * @param updatedSince
+     * @return
+     */
+    @Select("SELECT id FROM picture WHERE isDelete = 1 AND updateTime >= #{updatedSince}")
+    List<Long> listDeletedIdsSince(@Param("updatedSince") Date updatedSince);
 
+    /**
+     * 按查询条件获取执行计划（估算总数，不含逻辑删除条件，估算值会略大）
+     *
+     * @param queryWrapper
+     * @return
+     */
+    @Select("EXPLAIN SELECT id FROM picture ${ew.customSqlSegment}")
+    List<Map<String, Object>> explainByWrapper(@Param(Constants.WRAPPER) Wrapper<Picture> queryWrapper);
+}
@@ -0,0 +1,30 @@
+package com.da.gallery.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.da.gallery.model.entity.PictureTag;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 针对表【picture_tag(图片标签)】的数据库操作Mapper
+ *
+ * @Entity com.da.gallery.model.entity.PictureTag
+ */
+public interface PictureTagMapper extends BaseMapper<PictureTag> {
+
+    /**
+     * 多行插入（已存在的标签忽略，可重复执行）
+     *
+     * @param pictureTagList
+     * @return
+     */
+    @Insert({"<script>",
+            "INSERT IGNORE INTO picture_tag (tag, pictureId) VALUES",
+            "<foreach collection='list' item='item' separator=','>",
+            "(#{item.tag}, #{item.pictureId})",
+            "</foreach>",
+            "</script>"})
+    int insertIgnoreBatch(@Param("list") List<PictureTag> pictureTagList);
+}
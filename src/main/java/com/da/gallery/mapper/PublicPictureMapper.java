@@ -0,0 +1,100 @@
+package com.da.gallery.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.PublicPicture;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 针对表【public_picture(公开图片)】的数据库操作Mapper
+ * <p>
+ * 与 picture 表同名的列可以直接复用图片查询条件（不含审核相关条件）
+ *
+ * @Entity com.da.gallery.model.entity.PublicPicture
+ */
+public interface PublicPictureMapper extends BaseMapper<PublicPicture> {
+
+    /**
+     * 多行写入（已存在时覆盖）
+     *
+     * @param publicPictureList
+     * @return
+     */
+    @Insert({"<script>",
+            "INSERT INTO public_picture (id, url, thumbnailUrl, compressUrl, name, introduction, category, tags,",
+            "picSize, picWidth, picHeight, picScale, picFormat, userId, userName, userAvatar,",
+            "createTime, editTime, updateTime) VALUES",
+            "<foreach collection='list' item='item' separator=','>",
+            "(#{item.id}, #{item.url}, #{item.thumbnailUrl}, #{item.compressUrl}, #{item.name},",
+            "#{item.introduction}, #{item.category}, #{item.tags}, #{item.picSize}, #{item.picWidth},",
+            "#{item.picHeight}, #{item.picScale}, #{item.picFormat}, #{item.userId}, #{item.userName},",
+            "#{item.userAvatar}, #{item.createTime}, #{item.editTime}, #{item.updateTime})",
+            "</foreach>",
+            "ON DUPLICATE KEY UPDATE url = VALUES(url), thumbnailUrl = VALUES(thumbnailUrl),",
+            "compressUrl = VALUES(compressUrl), name = VALUES(name), introduction = VALUES(introduction),",
+            "category = VALUES(category), tags = VALUES(tags), picSize = VALUES(picSize),",
+            "picWidth = VALUES(picWidth), picHeight = VALUES(picHeight), picScale = VALUES(picScale),",
+            "picFormat = VALUES(picFormat), userId = VALUES(userId), userName = VALUES(userName),",
+            "userAvatar = VALUES(userAvatar), editTime = VALUES(editTime), updateTime = VALUES(updateTime)",
+            "</script>"})
+    int upsertBatch(@Param("list") List<PublicPicture> publicPictureList);
+
+    /**
+     * 按图片查询条件查询
+     *
+     * @param queryWrapper 图片查询条件
+     * @return
+     */
+    @Select("SELECT * FROM public_picture ${ew.customSqlSegment}")
+    List<PublicPicture> selectByPictureWrapper(@Param(Constants.WRAPPER) Wrapper<Picture> queryWrapper);
+
+    /**
+     * 按图片查询条件分页查询
+     *
+     * @param page         分页参数
+     * @param queryWrapper 图片查询条件
+     * @return
+     */
+    @Select("SELECT * FROM public_picture ${ew.customSqlSegment}")
+    Page<PublicPicture> selectPageByPictureWrapper(Page<PublicPicture> page,
+                                                   @Param(Constants.WRAPPER) Wrapper<Picture> queryWrapper);
+
+    /**
+     * 按图片查询条件统计
+     *
+     * @param queryWrapper 图片查询条件
+     * @return
+     */
+    @Select("SELECT COUNT(*) FROM public_picture ${ew.customSqlSegment}")
+    Long selectCountByPictureWrapper(@Param(Constants.WRAPPER) Wrapper<Picture> queryWrapper);
+
+    /**
+     * 按图片查询条件获取执行计划（估算总数）
+     *
+     * @param queryWrapper 图片查询条件
+     * @return
+     */
+    @Select("EXPLAIN SELECT id FROM public_picture ${ew.customSqlSegment}")
+    List<Map<String, Object>> explainByPictureWrapper(@Param(Constants.WRAPPER) Wrapper<Picture> queryWrapper);
+
+    /**
+     * 同步作者信息
+     *
+     * @param userId     用户 id
+     * @param userName   昵称
+     * @param userAvatar 头像
+     * @return
+     */
+    @Update("UPDATE public_picture SET userName = #{userName}, userAvatar = #{userAvatar} WHERE userId = #{userId}")
+    int updateAuthor(@Param("userId") Long userId, @Param("userName") String userName,
+                     @Param("userAvatar") String userAvatar);
+}
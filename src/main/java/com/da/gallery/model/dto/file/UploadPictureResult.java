@@ -46,5 +46,20 @@ public class UploadPictureResult implements Serializable {
      */
     private String picFormat;
 
+    /**
+     * 缩略图 url（复用已有图片时携带）
+     */
+    private String thumbnailUrl;
+
+    /**
+     * 压缩图 url（复用已有图片时携带）
+     */
+    private String compressUrl;
+
+    /**
+     * 图片内容哈希（SHA-256）
+     */
+    private String contentHash;
+
     private static final long serialVersionUID = 1L;
 }
\ No newline at end of file
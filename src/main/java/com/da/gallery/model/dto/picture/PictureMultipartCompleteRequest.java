@@ -0,0 +1,19 @@
+package com.da.gallery.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 图片分片上传完成（或取消）请求
+ */
+@Data
+public class PictureMultipartCompleteRequest implements Serializable {
+
+    /**
+     * 分片上传 id
+     */
+    private String uploadId;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,29 @@
+package com.da.gallery.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 图片分片上传初始化请求
+ */
+@Data
+public class PictureMultipartInitRequest implements Serializable {
+
+    /**
+     * 图片 id（用于修改）
+     */
+    private Long id;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件大小
+     */
+    private Long fileSize;
+
+    private static final long serialVersionUID = 1L;
+}
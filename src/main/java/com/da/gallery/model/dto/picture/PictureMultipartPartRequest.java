@@ -0,0 +1,24 @@
+package com.da.gallery.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 图片分片上传请求
+ */
+@Data
+public class PictureMultipartPartRequest implements Serializable {
+
+    /**
+     * 分片上传 id
+     */
+    private String uploadId;
+
+    /**
+     * 分片序号（从 1 开始）
+     */
+    private Integer partNumber;
+
+    private static final long serialVersionUID = 1L;
+}
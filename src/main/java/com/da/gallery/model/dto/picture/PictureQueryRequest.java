@@ -40,6 +40,11 @@ public class PictureQueryRequest extends PageRequest implements Serializable {
      */
     private List<String> tagList;
 
+    /**
+     * 多标签匹配方式：and-包含全部标签（默认）; or-包含任一标签
+     */
+    private String tagMatchMode;
+
     /**
      * 图片体积
      */
@@ -91,4 +96,9 @@ public class PictureQueryRequest extends PageRequest implements Serializable {
      */
     private String searchText;
 
+    /**
+     * 游标（不为 null 时使用游标分页，按创建时间倒序；首页传空字符串，之后传上一页返回的 nextCursor）
+     */
+    private String cursor;
+
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.da.gallery.model.dto.user;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 会话中保存的登录态（只保存用户 id、角色和用户信息版本，用户信息从缓存读取）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginUserState implements Serializable {
+
+    /**
+     * 用户 id
+     */
+    private Long userId;
+
+    /**
+     * 用户角色（读取用户时同步更新）
+     */
+    private String userRole;
+
+    /**
+     * 已知的最新用户信息版本
+     */
+    private Long version;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -26,6 +26,16 @@ public class Picture implements Serializable {
      */
     private String url;
 
+    /**
+     * 缩略图 url
+     */
+    private String thumbnailUrl;
+
+    /**
+     * 压缩图 url
+     */
+    private String compressUrl;
+
     /**
      * 图片名称
      */
@@ -71,6 +81,11 @@ public class Picture implements Serializable {
      */
     private String picFormat;
 
+    /**
+     * 图片内容哈希（SHA-256）
+     */
+    private String contentHash;
+
     /**
      * 创建用户 id
      */
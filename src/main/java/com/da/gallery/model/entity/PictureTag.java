@@ -0,0 +1,32 @@
+package com.da.gallery.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 图片标签
+ * @TableName picture_tag
+ */
+@TableName(value = "picture_tag")
+@Data
+public class PictureTag implements Serializable {
+
+    /**
+     * 标签
+     */
+    private String tag;
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,115 @@
+package com.da.gallery.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 公开图片（审核通过且未删除的图片，冗余作者信息）
+ * @TableName public_picture
+ */
+@TableName(value = "public_picture")
+@Data
+public class PublicPicture implements Serializable {
+
+    /**
+     * 图片 id
+     */
+    @TableId(type = IdType.INPUT)
+    private Long id;
+
+    /**
+     * 图片 url
+     */
+    private String url;
+
+    /**
+     * 缩略图 url
+     */
+    private String thumbnailUrl;
+
+    /**
+     * 压缩图 url
+     */
+    private String compressUrl;
+
+    /**
+     * 图片名称
+     */
+    private String name;
+
+    /**
+     * 简介
+     */
+    private String introduction;
+
+    /**
+     * 分类
+     */
+    private String category;
+
+    /**
+     * 标签（JSON 数组）
+     */
+    private String tags;
+
+    /**
+     * 图片体积
+     */
+    private Long picSize;
+
+    /**
+     * 图片宽度
+     */
+    private Integer picWidth;
+
+    /**
+     * 图片高度
+     */
+    private Integer picHeight;
+
+    /**
+     * 图片宽高比例
+     */
+    private Double picScale;
+
+    /**
+     * 图片格式
+     */
+    private String picFormat;
+
+    /**
+     * 创建用户 id
+     */
+    private Long userId;
+
+    /**
+     * 作者昵称
+     */
+    private String userName;
+
+    /**
+     * 作者头像
+     */
+    private String userAvatar;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 编辑时间
+     */
+    private Date editTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,61 @@
+package com.da.gallery.model.enums;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 分页查询总数统计方式枚举
+ */
+public enum PictureTotalModeEnum {
+
+    EXACT("每次精确统计", "exact"),
+    CACHED("缓存统计结果（写入时失效）", "cached"),
+    APPROXIMATE("近似总数（按执行计划估算，结果集较小时精确统计，较长时间缓存）", "approximate"),
+    NONE("不统计总数，只返回是否有下一页", "none");
+
+    private final String text;
+
+    private final String value;
+
+    PictureTotalModeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static PictureTotalModeEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (PictureTotalModeEnum anEnum : PictureTotalModeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
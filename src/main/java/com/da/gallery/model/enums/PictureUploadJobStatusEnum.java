@@ -0,0 +1,61 @@
+package com.da.gallery.model.enums;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 异步上传任务状态枚举
+ */
+public enum PictureUploadJobStatusEnum {
+
+    WAITING("排队中", "waiting"),
+    RUNNING("上传中", "running"),
+    SUCCEED("上传成功", "succeed"),
+    FAILED("上传失败", "failed");
+
+    private final String text;
+
+    private final String value;
+
+    PictureUploadJobStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static PictureUploadJobStatusEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (PictureUploadJobStatusEnum anEnum : PictureUploadJobStatusEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,60 @@
+package com.da.gallery.model.enums;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 本地存储刷盘策略枚举
+ */
+public enum StorageFsyncModeEnum {
+
+    NONE("不主动刷盘（依赖操作系统）", "none"),
+    DATA("只刷文件数据", "data"),
+    ALL("刷文件数据、元数据和目录", "all");
+
+    private final String text;
+
+    private final String value;
+
+    StorageFsyncModeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static StorageFsyncModeEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (StorageFsyncModeEnum anEnum : StorageFsyncModeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
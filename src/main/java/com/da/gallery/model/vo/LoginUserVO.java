@@ -48,5 +48,10 @@ public class LoginUserVO implements Serializable {
      */
     private Date updateTime;
 
+    /**
+     * 登录令牌（仅令牌认证方式，请求时放在请求头 Authorization: Bearer 令牌）
+     */
+    private String token;
+
     private static final long serialVersionUID = 1L;
 }
\ No newline at end of file
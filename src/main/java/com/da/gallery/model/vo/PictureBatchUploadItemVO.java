@@ -0,0 +1,34 @@
+package com.da.gallery.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 批量上传单个文件的结果
+ */
+@Data
+public class PictureBatchUploadItemVO implements Serializable {
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 是否成功
+     */
+    private Boolean success;
+
+    /**
+     * 上传成功的图片
+     */
+    private PictureVO picture;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    private static final long serialVersionUID = 1L;
+}
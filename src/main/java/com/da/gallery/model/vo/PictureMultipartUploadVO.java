@@ -0,0 +1,35 @@
+package com.da.gallery.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 图片分片上传进度视图
+ */
+@Data
+public class PictureMultipartUploadVO implements Serializable {
+
+    /**
+     * 分片上传 id
+     */
+    private String uploadId;
+
+    /**
+     * 分片大小
+     */
+    private Long partSize;
+
+    /**
+     * 分片总数
+     */
+    private Integer partCount;
+
+    /**
+     * 已确认上传成功的分片序号（断点续传时跳过这些分片）
+     */
+    private List<Integer> uploadedPartList;
+
+    private static final long serialVersionUID = 1L;
+}
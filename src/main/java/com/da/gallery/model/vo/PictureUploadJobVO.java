@@ -0,0 +1,50 @@
+package com.da.gallery.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 异步上传任务
+ */
+@Data
+public class PictureUploadJobVO implements Serializable {
+
+    /**
+     * 任务 id
+     */
+    private String jobId;
+
+    /**
+     * 任务状态：waiting / running / succeed / failed
+     */
+    private String status;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 上传成功的图片
+     */
+    private PictureVO picture;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 完成时间
+     */
+    private Date finishTime;
+
+    private static final long serialVersionUID = 1L;
+}
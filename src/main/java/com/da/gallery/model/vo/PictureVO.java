@@ -29,6 +29,16 @@ public class PictureVO implements Serializable {
      */
     private String url;
 
+    /**
+     * 缩略图 url
+     */
+    private String thumbnailUrl;
+
+    /**
+     * 压缩图 url
+     */
+    private String compressUrl;
+
     /**
      * 图片名称
      */
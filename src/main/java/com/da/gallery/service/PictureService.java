@@ -2,15 +2,24 @@ package com.da.gallery.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.model.dto.picture.PictureMultipartInitRequest;
+import com.da.gallery.model.dto.picture.PictureMultipartPartRequest;
 import com.da.gallery.model.dto.picture.PictureQueryRequest;
 import com.da.gallery.model.dto.picture.PictureUploadRequest;
 import com.da.gallery.model.entity.Picture;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.da.gallery.model.entity.User;
+import com.da.gallery.model.enums.PictureTotalModeEnum;
+import com.da.gallery.model.vo.PictureBatchUploadItemVO;
+import com.da.gallery.model.vo.PictureMultipartUploadVO;
+import com.da.gallery.model.vo.PictureUploadJobVO;
 import com.da.gallery.model.vo.PictureVO;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
 
 /**
 * @author 13491
@@ -28,6 +37,88 @@ public interface PictureService extends IService<Picture> {
      */
     PictureVO uploadPicture(MultipartFile multipartFile, PictureUploadRequest pictureUploadRequest, User loginUser);
 
+    /**
+     * 异步上传图片（立即返回任务，后台上传）
+     * @param multipartFile
+     * @param pictureUploadRequest
+     * @param loginUser
+     * @return
+     */
+    PictureUploadJobVO uploadPictureAsync(MultipartFile multipartFile, PictureUploadRequest pictureUploadRequest, User loginUser);
+
+    /**
+     * 查询异步上传任务
+     * @param jobId
+     * @param loginUser
+     * @return
+     */
+    PictureUploadJobVO getPictureUploadJob(String jobId, User loginUser);
+
+    /**
+     * 按 URL 导入图片
+     * @param pictureUploadRequest
+     * @param loginUser
+     * @return
+     */
+    PictureVO uploadPictureByUrl(PictureUploadRequest pictureUploadRequest, User loginUser);
+
+    /**
+     * 输出本地存储的图片文件（支持 Range 和协商缓存）
+     * @param key
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    void writePictureFile(String key, HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+    /**
+     * 批量上传图片（并行上传，一次性入库）
+     * @param multipartFileList
+     * @param loginUser
+     * @return 每个文件的上传结果（与入参顺序一致）
+     */
+    List<PictureBatchUploadItemVO> uploadPictureBatch(List<MultipartFile> multipartFileList, User loginUser);
+
+    /**
+     * 初始化分片上传
+     * @param pictureMultipartInitRequest
+     * @param loginUser
+     * @return
+     */
+    PictureMultipartUploadVO initPictureMultipartUpload(PictureMultipartInitRequest pictureMultipartInitRequest, User loginUser);
+
+    /**
+     * 上传分片
+     * @param multipartFile
+     * @param pictureMultipartPartRequest
+     * @param loginUser
+     * @return
+     */
+    PictureMultipartUploadVO uploadPicturePart(MultipartFile multipartFile, PictureMultipartPartRequest pictureMultipartPartRequest, User loginUser);
+
+    /**
+     * 查询分片上传进度（用于断点续传）
+     * @param uploadId
+     * @param loginUser
+     * @return
+     */
+    PictureMultipartUploadVO getPictureMultipartUploadStatus(String uploadId, User loginUser);
+
+    /**
+     * 完成分片上传并保存图片
+     * @param uploadId
+     * @param loginUser
+     * @return
+     */
+    PictureVO completePictureMultipartUpload(String uploadId, User loginUser);
+
+    /**
+     * 取消分片上传
+     * @param uploadId
+     * @param loginUser
+     */
+    void abortPictureMultipartUpload(String uploadId, User loginUser);
+
     void fillReviewParams(Picture picture, User user);
 
     /**
@@ -57,6 +148,15 @@ public interface PictureService extends IService<Picture> {
      */
     PictureVO getPictureVO(Picture Picture, HttpServletRequest request);
 
+    /**
+     * 根据 id 获取图片封装（经过详情缓存，普通用户只能查看审核通过的图片）
+     *
+     * @param id
+     * @param request
+     * @return
+     */
+    PictureVO getPictureVOById(long id, HttpServletRequest request);
+
     /**
      * 分页获取帖子封装
      *
@@ -66,6 +166,35 @@ public interface PictureService extends IService<Picture> {
      */
     Page<PictureVO> getPictureVOPage(Page<Picture> PicturePage, HttpServletRequest request);
 
+    /**
+     * 分页获取图片
+     *
+     * @param pictureQueryRequest
+     * @param totalMode           总数统计方式
+     * @return
+     */
+    Page<Picture> listPictureByPage(PictureQueryRequest pictureQueryRequest, PictureTotalModeEnum totalMode);
+
+    /**
+     * 分页获取图片封装（cursor 不为 null 时使用游标分页，不统计总数）
+     *
+     * @param pictureQueryRequest
+     * @param totalMode           偏移分页时的总数统计方式
+     * @param request
+     * @return
+     */
+    Page<PictureVO> listPictureVOByPage(PictureQueryRequest pictureQueryRequest, PictureTotalModeEnum totalMode,
+                                        HttpServletRequest request);
+
+    /**
+     * 分页获取公开图片封装（只返回审核通过的图片，结果经过两级缓存）
+     *
+     * @param pictureQueryRequest
+     * @param request
+     * @return
+     */
+    Page<PictureVO> listPublicPictureVOByPage(PictureQueryRequest pictureQueryRequest, HttpServletRequest request);
+
     /**
      * 图片审核（仅管理员可用）
      * @param pictureId
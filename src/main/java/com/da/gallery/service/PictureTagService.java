@@ -0,0 +1,32 @@
+package com.da.gallery.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.da.gallery.model.entity.PictureTag;
+
+/**
+ * 图片标签服务
+ */
+public interface PictureTagService extends IService<PictureTag> {
+
+    /**
+     * 按图片的标签 JSON 重建其标签记录（未开启标签表写入时忽略）
+     *
+     * @param pictureId 图片 id
+     * @param tags      标签（JSON 数组）
+     */
+    void replacePictureTags(Long pictureId, String tags);
+
+    /**
+     * 删除图片的标签记录（未开启标签表写入时忽略）
+     *
+     * @param pictureId 图片 id
+     */
+    void removeByPictureId(Long pictureId);
+
+    /**
+     * 从 picture.tags 回填标签表（按 id 分批扫描，可重复执行）
+     *
+     * @return 写入的标签记录数
+     */
+    long backfillPictureTags();
+}
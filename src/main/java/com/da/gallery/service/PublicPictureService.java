@@ -0,0 +1,68 @@
+package com.da.gallery.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.PublicPicture;
+import com.da.gallery.model.vo.PictureVO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 公开图片读模型服务
+ */
+public interface PublicPictureService extends IService<PublicPicture> {
+
+    /**
+     * 按图片当前状态同步读模型：审核通过且未删除的写入，其余移除（未开启读模型写入时忽略）
+     *
+     * @param pictureIdList 图片 id
+     */
+    void syncPictures(Collection<Long> pictureIdList);
+
+    /**
+     * 同步作者信息（用户修改昵称、头像或删除后；未开启读模型写入时忽略）
+     *
+     * @param userId 用户 id
+     */
+    void syncAuthor(Long userId);
+
+    /**
+     * 从图片表全量回填读模型（按 id 分批扫描，可重复执行）
+     *
+     * @return 同步的图片数
+     */
+    long backfillPublicPictures();
+
+    /**
+     * 是否可以由读模型回答（只查审核通过的图片，不按审核信息筛选，排序字段在读模型中）
+     *
+     * @param pictureQueryRequest
+     * @return
+     */
+    boolean isPublicQuery(PictureQueryRequest pictureQueryRequest);
+
+    /**
+     * 转为读模型的查询条件（去掉审核状态条件，读模型中都是审核通过的图片）
+     *
+     * @param pictureQueryRequest
+     * @return
+     */
+    PictureQueryRequest toPublicQueryRequest(PictureQueryRequest pictureQueryRequest);
+
+    /**
+     * 获取图片封装（作者信息取自读模型，不再查询用户表）
+     *
+     * @param publicPicture
+     * @return
+     */
+    PictureVO getPictureVO(PublicPicture publicPicture);
+
+    /**
+     * 按 id 获取图片封装（保持 id 的顺序，不在读模型中的图片忽略）
+     *
+     * @param pictureIdList
+     * @return
+     */
+    List<PictureVO> listPictureVOByIds(List<Long> pictureIdList);
+}
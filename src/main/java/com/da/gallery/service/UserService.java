@@ -79,6 +79,14 @@ public interface UserService extends IService<User> {
      */
     boolean userLogout(HttpServletRequest request);
 
+    /**
+     * 刷新登录令牌（仅令牌认证方式）
+     *
+     * @param request
+     * @return 携带新令牌的用户信息
+     */
+    LoginUserVO refreshToken(HttpServletRequest request);
+
     /**
      * 获取脱敏的已登录用户信息
      *
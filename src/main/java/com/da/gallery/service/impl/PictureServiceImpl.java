@@ -1,38 +1,91 @@
 package com.da.gallery.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.codec.Base64;
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.ObjUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.URLUtil;
+import cn.hutool.crypto.digest.DigestUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.da.gallery.common.CursorPage;
 import com.da.gallery.common.ErrorCode;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.config.PictureUploadConfig;
 import com.da.gallery.constant.CommonConstant;
 import com.da.gallery.exception.BusinessException;
 import com.da.gallery.exception.ThrowUtils;
 import com.da.gallery.manager.FileManager;
+import com.da.gallery.manager.MultipartUploadManager;
+import com.da.gallery.manager.PictureBitmapIndexManager;
+import com.da.gallery.manager.PictureCountManager;
+import com.da.gallery.manager.PictureDerivativeManager;
+import com.da.gallery.manager.PictureDetailCacheManager;
+import com.da.gallery.manager.PictureFeedManager;
+import com.da.gallery.manager.PictureFileManager;
+import com.da.gallery.manager.PictureListCacheManager;
+import com.da.gallery.manager.PictureSearchManager;
+import com.da.gallery.manager.PictureUploadJobManager;
+import com.da.gallery.manager.PictureUploadJobManager.PictureUploadJob;
+import com.da.gallery.manager.UserVOCacheManager;
+import com.da.gallery.manager.storage.PictureStorage;
 import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.mapper.PublicPictureMapper;
 import com.da.gallery.model.dto.file.UploadPictureResult;
+import com.da.gallery.model.dto.picture.PictureMultipartInitRequest;
+import com.da.gallery.model.dto.picture.PictureMultipartPartRequest;
 import com.da.gallery.model.dto.picture.PictureQueryRequest;
 import com.da.gallery.model.dto.picture.PictureUploadRequest;
 import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.PublicPicture;
 import com.da.gallery.model.entity.User;
 import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import com.da.gallery.model.enums.PictureTagMatchModeEnum;
+import com.da.gallery.model.enums.PictureTotalModeEnum;
 import com.da.gallery.model.enums.UserRoleEnum;
+import com.da.gallery.model.vo.PictureBatchUploadItemVO;
+import com.da.gallery.model.vo.PictureMultipartUploadVO;
+import com.da.gallery.model.vo.PictureUploadJobVO;
 import com.da.gallery.model.vo.PictureVO;
 import com.da.gallery.model.vo.UserVO;
 import com.da.gallery.service.PictureService;
+import com.da.gallery.service.PictureTagService;
+import com.da.gallery.service.PublicPictureService;
 import com.da.gallery.service.UserService;
+import com.da.gallery.utils.PictureTagUtils;
 import com.da.gallery.utils.SqlUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
 * @author 13491
@@ -40,13 +93,61 @@ import java.util.stream.Collectors;
 * @createDate 2025-03-09 11:29:32
 */
 @Service
+@Slf4j
 public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     implements PictureService{
 
     @Resource
     private FileManager fileManager;
     @Resource
+    private PictureStorage pictureStorage;
+    @Resource
+    private TransactionTemplate transactionTemplate;
+    @Resource
     private UserService userService;
+    @Resource
+    private MultipartUploadManager multipartUploadManager;
+    @Resource
+    private PictureUploadConfig pictureUploadConfig;
+    @Resource
+    private ExecutorService pictureBatchUploadExecutor;
+    @Resource
+    private MeterRegistry meterRegistry;
+    @Resource
+    private PictureDerivativeManager pictureDerivativeManager;
+    @Resource
+    private PictureFileManager pictureFileManager;
+    @Resource
+    private PictureUploadJobManager pictureUploadJobManager;
+    @Resource
+    private ExecutorService pictureAsyncUploadExecutor;
+    @Resource
+    private PictureCountManager pictureCountManager;
+    @Resource
+    private PictureTagService pictureTagService;
+    @Resource
+    private PictureBitmapIndexManager pictureBitmapIndexManager;
+    @Resource
+    private PictureSearchManager pictureSearchManager;
+    @Resource
+    private PictureFeedManager pictureFeedManager;
+    @Resource
+    private PictureListCacheManager pictureListCacheManager;
+    @Resource
+    private PictureDetailCacheManager pictureDetailCacheManager;
+    @Resource
+    private UserVOCacheManager userVOCacheManager;
+    @Resource
+    private PublicPictureService publicPictureService;
+    @Resource
+    private PublicPictureMapper publicPictureMapper;
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    /**
+     * 上传去重指标（result = hit / miss，命中率 = hit / (hit + miss)）
+     */
+    private static final String DEDUP_METRIC_NAME = "picture.upload.dedup";
 
     /**
      * 上传图片
@@ -64,35 +165,392 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             pictureId = pictureUploadRequest.getId();
         }
         // 如果是更新图片，需要校验图片是否存在
-        if (pictureId != null) {
-            Picture oldPicture = this.getById(pictureId);
-            ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
-            // 仅本人或管理员可编辑图片
-            if(!oldPicture.getUserId().equals(loginUser.getId()) || userService.isAdmin(loginUser)){
-                throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "仅本人或管理员可编辑图片");
+        checkPictureUpdateAuth(pictureId, loginUser);
+        // 上传图片（内容相同则复用已有对象），得到信息
+        UploadPictureResult uploadPictureResult = uploadPictureDeduplicated(multipartFile, getUploadPathPrefix(loginUser),
+                loginUser.getId());
+        return savePicture(uploadPictureResult, pictureId, loginUser);
+    }
+
+    @Override
+    public void writePictureFile(String key, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        pictureFileManager.writePictureFile(key, request, response);
+    }
+
+    @Override
+    public List<PictureBatchUploadItemVO> uploadPictureBatch(List<MultipartFile> multipartFileList, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        ThrowUtils.throwIf(CollUtil.isEmpty(multipartFileList), ErrorCode.PARAMS_ERROR, "文件不能为空");
+        int maxCount = pictureUploadConfig.getBatch().getMaxCount();
+        ThrowUtils.throwIf(multipartFileList.size() > maxCount, ErrorCode.PARAMS_ERROR,
+                String.format("单次最多上传 %s 张图片", maxCount));
+        String uploadPathPrefix = getUploadPathPrefix(loginUser);
+        // 1. 并行上传到对象存储
+        List<CompletableFuture<UploadPictureResult>> futureList = multipartFileList.stream()
+                .map(multipartFile -> CompletableFuture.supplyAsync(
+                        () -> uploadPictureDeduplicated(multipartFile, uploadPathPrefix, loginUser.getId()),
+                        pictureBatchUploadExecutor))
+                .collect(Collectors.toList());
+        // 2. 汇总每个文件的结果（待入库的图片与其结果按下标一一对应，同名文件互不影响）
+        List<PictureBatchUploadItemVO> itemList = new ArrayList<>();
+        List<PictureBatchUploadItemVO> savingItemList = new ArrayList<>();
+        List<Picture> pictureList = new ArrayList<>();
+        for (int i = 0; i < multipartFileList.size(); i++) {
+            PictureBatchUploadItemVO item = new PictureBatchUploadItemVO();
+            item.setFileName(multipartFileList.get(i).getOriginalFilename());
+            try {
+                Picture picture = buildPicture(futureList.get(i).join(), loginUser);
+                // 多行插入需要提前生成 id
+                picture.setId(IdWorker.getId());
+                savingItemList.add(item);
+                pictureList.add(picture);
+            } catch (CompletionException e) {
+                item.setSuccess(false);
+                item.setErrorMessage(e.getCause() instanceof BusinessException ? e.getCause().getMessage() : "上传失败");
+            }
+            itemList.add(item);
+        }
+        if (pictureList.isEmpty()) {
+            return itemList;
+        }
+        // 3. 一条多行 INSERT 批量入库
+        boolean saved;
+        try {
+            saved = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                ThrowUtils.throwIf(this.baseMapper.insertBatch(pictureList) != pictureList.size(),
+                        ErrorCode.SYSTEM_ERROR, "图片保存失败");
+                onPictureChanged(pictureList.stream().map(Picture::getId).collect(Collectors.toList()));
+                return true;
+            }));
+        } catch (Exception e) {
+            log.error("batch insert picture error, userId = {}", loginUser.getId(), e);
+            saved = false;
+        }
+        if (!saved) {
+            deleteUnreferencedObjects(pictureList);
+        }
+        for (int i = 0; i < pictureList.size(); i++) {
+            PictureBatchUploadItemVO item = savingItemList.get(i);
+            Picture picture = pictureList.get(i);
+            item.setSuccess(saved);
+            if (saved) {
+                submitPictureDerivative(picture);
+                item.setPicture(PictureVO.objToVo(picture));
+            } else {
+                item.setErrorMessage("图片保存失败");
             }
         }
-        // 上传图片，得到信息
-        // 按照用户 id 划分目录
-        String uploadPathPrefix = String.format("public/%s", loginUser.getId());
-        UploadPictureResult uploadPictureResult = fileManager.uploadPicture(multipartFile, uploadPathPrefix);
-        // 构造要入库的图片信息
+        return itemList;
+    }
+
+    /**
+     * 入库失败后删除本次上传的对象（按内容去重复用的对象仍被其他图片引用，保留）
+     *
+     * @param pictureList 入库失败的图片
+     */
+    private void deleteUnreferencedObjects(List<Picture> pictureList) {
+        for (Picture picture : pictureList) {
+            String url = picture.getUrl();
+            try {
+                if (this.count(new QueryWrapper<Picture>().eq("url", url)) > 0) {
+                    continue;
+                }
+                String key = pictureStorage.getKey(url);
+                pictureStorage.delete(key);
+                log.info("deleted orphan picture object after failed batch insert, key = {}", key);
+            } catch (Exception e) {
+                log.error("delete orphan picture object error, url = {}", url, e);
+            }
+        }
+    }
+
+    @Override
+    public PictureMultipartUploadVO initPictureMultipartUpload(PictureMultipartInitRequest pictureMultipartInitRequest,
+                                                               User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        ThrowUtils.throwIf(pictureMultipartInitRequest == null || pictureMultipartInitRequest.getFileSize() == null,
+                ErrorCode.PARAMS_ERROR);
+        Long pictureId = pictureMultipartInitRequest.getId();
+        checkPictureUpdateAuth(pictureId, loginUser);
+        return multipartUploadManager.initUpload(pictureMultipartInitRequest.getFileName(),
+                pictureMultipartInitRequest.getFileSize(), getUploadPathPrefix(loginUser), loginUser.getId(), pictureId);
+    }
+
+    @Override
+    public PictureMultipartUploadVO uploadPicturePart(MultipartFile multipartFile,
+                                                      PictureMultipartPartRequest pictureMultipartPartRequest,
+                                                      User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        ThrowUtils.throwIf(pictureMultipartPartRequest == null, ErrorCode.PARAMS_ERROR);
+        return multipartUploadManager.uploadPart(pictureMultipartPartRequest.getUploadId(),
+                pictureMultipartPartRequest.getPartNumber(), multipartFile, loginUser.getId());
+    }
+
+    @Override
+    public PictureMultipartUploadVO getPictureMultipartUploadStatus(String uploadId, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        return multipartUploadManager.getUploadStatus(uploadId, loginUser.getId());
+    }
+
+    @Override
+    public PictureVO completePictureMultipartUpload(String uploadId, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        Long pictureId = multipartUploadManager.getSession(uploadId, loginUser.getId()).getPictureId();
+        UploadPictureResult uploadPictureResult = multipartUploadManager.completeUpload(uploadId, loginUser.getId());
+        return savePicture(uploadPictureResult, pictureId, loginUser);
+    }
+
+    @Override
+    public void abortPictureMultipartUpload(String uploadId, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        multipartUploadManager.abortUpload(uploadId, loginUser.getId());
+    }
+
+    @Override
+    public PictureUploadJobVO uploadPictureAsync(MultipartFile multipartFile, PictureUploadRequest pictureUploadRequest,
+                                                 User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        Long pictureId = pictureUploadRequest == null ? null : pictureUploadRequest.getId();
+        checkPictureUpdateAuth(pictureId, loginUser);
+        // 请求结束后 multipart 临时文件会被删除，先把内容读入内存
+        fileManager.validPicture(multipartFile);
+        byte[] bytes;
+        try {
+            bytes = multipartFile.getBytes();
+        } catch (IOException e) {
+            log.error("read picture error", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件读取失败");
+        }
+        String originFilename = multipartFile.getOriginalFilename();
+        String uploadPathPrefix = getUploadPathPrefix(loginUser);
+        PictureUploadJob job = pictureUploadJobManager.createJob(loginUser.getId(), originFilename);
+        try {
+            pictureAsyncUploadExecutor.execute(() -> {
+                job.start();
+                try {
+                    UploadPictureResult uploadPictureResult = uploadPictureDeduplicated(DigestUtil.sha256Hex(bytes),
+                            originFilename, loginUser.getId(),
+                            () -> fileManager.uploadPicture(bytes, originFilename, uploadPathPrefix));
+                    job.succeed(savePicture(uploadPictureResult, pictureId, loginUser));
+                } catch (BusinessException e) {
+                    job.fail(e.getMessage());
+                } catch (Exception e) {
+                    log.error("async upload picture error, jobId = {}", job.getJobId(), e);
+                    job.fail("上传失败");
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pictureUploadJobManager.removeJob(job.getJobId());
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "上传繁忙，请稍后重试");
+        }
+        return pictureUploadJobManager.toVO(job);
+    }
+
+    @Override
+    public PictureUploadJobVO getPictureUploadJob(String jobId, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        return pictureUploadJobManager.toVO(pictureUploadJobManager.getJob(jobId, loginUser.getId()));
+    }
+
+    @Override
+    public PictureVO uploadPictureByUrl(PictureUploadRequest pictureUploadRequest, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        ThrowUtils.throwIf(pictureUploadRequest == null, ErrorCode.PARAMS_ERROR);
+        Long pictureId = pictureUploadRequest.getId();
+        checkPictureUpdateAuth(pictureId, loginUser);
+        String fileUrl = pictureUploadRequest.getFileUrl();
+        byte[] bytes = fileManager.downloadPicture(fileUrl);
+        String originFilename = FileUtil.getName(URLUtil.getPath(fileUrl));
+        String uploadPathPrefix = getUploadPathPrefix(loginUser);
+        UploadPictureResult uploadPictureResult = uploadPictureDeduplicated(DigestUtil.sha256Hex(bytes), originFilename,
+                loginUser.getId(), () -> fileManager.uploadPicture(bytes, originFilename, uploadPathPrefix));
+        return savePicture(uploadPictureResult, pictureId, loginUser);
+    }
+
+    /**
+     * 按内容哈希去重上传（哈希在读取图片头的同一遍中算出，命中时不再上传）
+     *
+     * @param multipartFile
+     * @param uploadPathPrefix
+     * @param userId           上传用户 id
+     * @return
+     */
+    private UploadPictureResult uploadPictureDeduplicated(MultipartFile multipartFile, String uploadPathPrefix,
+                                                          Long userId) {
+        return fileManager.uploadPicture(multipartFile, uploadPathPrefix,
+                contentHash -> getDuplicateUploadResult(contentHash, multipartFile.getOriginalFilename(), userId));
+    }
+
+    /**
+     * 按内容哈希去重上传（内容已在内存中）
+     *
+     * @param contentHash    图片内容哈希
+     * @param originFilename 原始文件名
+     * @param userId         上传用户 id
+     * @param uploader       未命中时执行的上传
+     * @return
+     */
+    private UploadPictureResult uploadPictureDeduplicated(String contentHash, String originFilename, Long userId,
+                                                          Supplier<UploadPictureResult> uploader) {
+        UploadPictureResult uploadPictureResult = getDuplicateUploadResult(contentHash, originFilename, userId);
+        if (uploadPictureResult == null) {
+            uploadPictureResult = uploader.get();
+        }
+        uploadPictureResult.setContentHash(contentHash);
+        return uploadPictureResult;
+    }
+
+    /**
+     * 查找同一用户内容相同的已有图片，复用其对象地址和元信息
+     * <p>
+     * 只在同一用户内去重：对象键带有用户 id，其他用户的对象不能被引用；
+     * 同一用户的多张图片可能共用一个对象，删除对象前须确认没有其他图片引用（见 deleteUnreferencedObjects）
+     *
+     * @param contentHash    图片内容哈希
+     * @param originFilename 原始文件名
+     * @param userId         上传用户 id
+     * @return 未命中时返回 null
+     */
+    private UploadPictureResult getDuplicateUploadResult(String contentHash, String originFilename, Long userId) {
+        Picture existPicture = this.getOne(new QueryWrapper<Picture>()
+                .select("url", "thumbnailUrl", "compressUrl", "picSize", "picWidth", "picHeight", "picScale", "picFormat")
+                .eq("contentHash", contentHash)
+                .eq("userId", userId)
+                .last("limit 1"));
+        if (existPicture == null) {
+            meterRegistry.counter(DEDUP_METRIC_NAME, "result", "miss").increment();
+            return null;
+        }
+        meterRegistry.counter(DEDUP_METRIC_NAME, "result", "hit").increment();
+        UploadPictureResult uploadPictureResult = new UploadPictureResult();
+        BeanUtil.copyProperties(existPicture, uploadPictureResult);
+        uploadPictureResult.setName(FileUtil.mainName(originFilename));
+        return uploadPictureResult;
+    }
+
+    /**
+     * 校验是否可以重新上传图片（pictureId 为空表示新增，无需校验）
+     *
+     * @param pictureId
+     * @param loginUser
+     */
+    private void checkPictureUpdateAuth(Long pictureId, User loginUser) {
+        if (pictureId == null) {
+            return;
+        }
+        Picture oldPicture = this.getById(pictureId);
+        ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        // 仅本人或管理员可编辑图片
+        if (!oldPicture.getUserId().equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "仅本人或管理员可编辑图片");
+        }
+    }
+
+    /**
+     * 按照用户 id 划分目录
+     *
+     * @param loginUser
+     * @return
+     */
+    private String getUploadPathPrefix(User loginUser) {
+        return String.format("public/%s", loginUser.getId());
+    }
+
+    /**
+     * 构造要入库的图片信息
+     *
+     * @param uploadPictureResult
+     * @param loginUser
+     * @return
+     */
+    private Picture buildPicture(UploadPictureResult uploadPictureResult, User loginUser) {
         Picture picture = new Picture();
         BeanUtil.copyProperties(uploadPictureResult, picture);
         picture.setUserId(loginUser.getId());
         // 补充审核参数
         this.fillReviewParams(picture, loginUser);
+        return picture;
+    }
+
+    /**
+     * 保存上传结果（图片、标签表和公开图片读模型在同一事务中写入；异步上传在线程池中调用，所以使用编程式事务）
+     *
+     * @param uploadPictureResult
+     * @param pictureId
+     * @param loginUser
+     * @return
+     */
+    private PictureVO savePicture(UploadPictureResult uploadPictureResult, Long pictureId, User loginUser) {
+        Picture picture = buildPicture(uploadPictureResult, loginUser);
         // 如果 pictureId 不为空，表示更新，否则是新增
         if (pictureId != null) {
             // 如果是更新，需要补充 id 和编辑时间
             picture.setId(pictureId);
             picture.setEditTime(new Date());
         }
-        boolean result = this.saveOrUpdate(picture);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "图片上传失败");
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean result;
+            if (pictureId != null) {
+                UpdateWrapper<Picture> updateWrapper = new UpdateWrapper<Picture>().eq("id", pictureId);
+                if (StrUtil.isBlank(picture.getThumbnailUrl())) {
+                    // 换图后旧的衍生图已失效，等待重新生成
+                    updateWrapper.set("thumbnailUrl", null).set("compressUrl", null);
+                }
+                result = this.update(picture, updateWrapper);
+            } else {
+                result = this.save(picture);
+            }
+            ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "图片上传失败");
+            if (picture.getTags() != null) {
+                pictureTagService.replacePictureTags(picture.getId(), picture.getTags());
+            }
+            onPictureChanged(Collections.singletonList(picture.getId()));
+        });
+        submitPictureDerivative(picture);
         return PictureVO.objToVo(picture);
     }
 
+    /**
+     * 图片写入后：在事务提交后失效总数缓存，并按 id 更新位图索引和全文检索索引（须在写图片的事务中调用）
+     *
+     * @param pictureIdList
+     */
+    private void onPictureChanged(List<Long> pictureIdList) {
+        // 读模型随调用方的事务与图片一起提交
+        publicPictureService.syncPictures(pictureIdList);
+        // 缓存须在提交后失效，否则提交前的并发查询会把旧结果重新写入缓存
+        Runnable reindex = () -> {
+            pictureCountManager.invalidate();
+            pictureBitmapIndexManager.onPictureChanged(pictureIdList);
+            pictureSearchManager.onPictureChanged(pictureIdList);
+            pictureFeedManager.onPictureChanged(pictureIdList);
+            pictureListCacheManager.invalidate();
+            pictureDetailCacheManager.invalidate(pictureIdList);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindex.run();
+                }
+            });
+        } else {
+            reindex.run();
+        }
+    }
+
+    /**
+     * 异步生成缩略图和压缩图（复用到已有衍生图时跳过）
+     *
+     * @param picture
+     */
+    private void submitPictureDerivative(Picture picture) {
+        if (StrUtil.isBlank(picture.getThumbnailUrl())) {
+            pictureDerivativeManager.submit(picture.getId(), picture.getUrl());
+        }
+    }
+
     /**
      * 填充审核参数（用户编辑图片/更新图片，需要重新进行审核）
      * @param picture
@@ -164,15 +622,34 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
 
         // 拼接查询条件
         if (StringUtils.isNotBlank(searchText)) {
-            queryWrapper.and(qw -> qw.like("name", searchText).or().like("introduction", introduction));
+            queryWrapper.and(qw -> qw.like("name", searchText).or().like("introduction", searchText));
         }
         queryWrapper.like(StringUtils.isNotBlank(name), "name", name);
         queryWrapper.like(StringUtils.isNotBlank(reviewMessage), "reviewMessage", reviewMessage);
         queryWrapper.like(StringUtils.isNotBlank(introduction), "introduction", introduction);
-        if (CollUtil.isNotEmpty(tagList)) {
-            for (String tag : tagList) {
-                queryWrapper.like("tags", "\"" + tag + "\"");
+        List<String> tags = PictureTagUtils.normalizeTags(tagList);
+        boolean matchAnyTag = PictureTagMatchModeEnum.OR.getValue().equals(pictureQueryRequest.getTagMatchMode());
+        if (!tags.isEmpty() && !pictureQueryConfig.isTagTableEnabled()) {
+            // 标签表回填前按标签 JSON 模糊匹配（与位图索引、全文检索读取同一列）
+            queryWrapper.and(qw -> {
+                for (int i = 0; i < tags.size(); i++) {
+                    if (i > 0 && matchAnyTag) {
+                        qw.or();
+                    }
+                    qw.like("tags", "\"" + tags.get(i) + "\"");
+                }
+            });
+        } else if (!tags.isEmpty()) {
+            // 通过标签表半连接筛选，走 (tag, pictureId) 主键
+            String placeholders = IntStream.range(0, tags.size()).mapToObj(i -> "{" + i + "}")
+                    .collect(Collectors.joining(", "));
+            StringBuilder tagSql = new StringBuilder("id IN (SELECT pictureId FROM picture_tag WHERE tag IN (")
+                    .append(placeholders).append(")");
+            if (!matchAnyTag) {
+                // 包含全部标签：命中的标签数等于查询的标签数
+                tagSql.append(" GROUP BY pictureId HAVING COUNT(*) = ").append(tags.size());
             }
+            queryWrapper.apply(tagSql.append(")").toString(), tags.toArray());
         }
         queryWrapper.eq(ObjectUtils.isNotEmpty(reviewStatus), "reviewStatus", reviewStatus);
         queryWrapper.eq(ObjectUtils.isNotEmpty(reviewerId), "reviewerId", reviewerId);
@@ -194,17 +671,25 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     @Override
     public PictureVO getPictureVO(Picture picture, HttpServletRequest request) {
         PictureVO pictureVO = PictureVO.objToVo(picture);
-        // 1. 关联查询用户信息
-        Long userId = picture.getUserId();
-        User user = null;
-        if (userId != null && userId > 0) {
-            user = userService.getById(userId);
-        }
-        UserVO userVO = userService.getUserVO(user);
-        pictureVO.setUserVO(userVO);
+        // 1. 关联查询用户信息（经过用户封装缓存）
+        pictureVO.setUserVO(userVOCacheManager.load(picture.getUserId()));
         return pictureVO;
     }
 
+    @Override
+    public PictureVO getPictureVOById(long id, HttpServletRequest request) {
+        ThrowUtils.throwIf(id <= 0, ErrorCode.PARAMS_ERROR);
+        Picture picture = pictureDetailCacheManager.get(id, this::getById);
+        ThrowUtils.throwIf(picture == null, ErrorCode.NOT_FOUND_ERROR);
+        // 普通用户未过审的图片不允许查看
+        if (!userService.isAdmin(request)
+                && !picture.getReviewStatus().equals(PictureReviewStatusEnum.PASS.getValue())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "图片未过审");
+        }
+        // 作者信息每次从用户封装缓存关联，用户修改后即时生效
+        return this.getPictureVO(picture, request);
+    }
+
     @Override
     public Page<PictureVO> getPictureVOPage(Page<Picture> picturePage, HttpServletRequest request) {
         List<Picture> PictureList = picturePage.getRecords();
@@ -212,27 +697,261 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         if (CollUtil.isEmpty(PictureList)) {
             return PictureVOPage;
         }
-        // 1. 关联查询用户信息
+        // 1. 关联查询用户信息（缓存未命中的用户合并为一次查询）
         Set<Long> userIdSet = PictureList.stream().map(Picture::getUserId).collect(Collectors.toSet());
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet).stream()
-                .collect(Collectors.groupingBy(User::getId));
+        Map<Long, UserVO> userVOMap = userVOCacheManager.loadAll(userIdSet);
         // 填充信息
         List<PictureVO> PictureVOList = PictureList.stream().map(picture -> {
             PictureVO pictureVO = PictureVO.objToVo(picture);
-            Long userId = picture.getUserId();
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
-            }
-            pictureVO.setUserVO(userService.getUserVO(user));
+            pictureVO.setUserVO(userVOMap.get(picture.getUserId()));
             return pictureVO;
         }).collect(Collectors.toList());
         PictureVOPage.setRecords(PictureVOList);
         return PictureVOPage;
     }
 
+    @Override
+    public Page<Picture> listPictureByPage(PictureQueryRequest pictureQueryRequest, PictureTotalModeEnum totalMode) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        long current = pictureQueryRequest.getCurrent();
+        long size = pictureQueryRequest.getPageSize();
+        ThrowUtils.throwIf(current <= 0 || size <= 0, ErrorCode.PARAMS_ERROR);
+        // 有搜索词时走全文检索（按相关度排序）
+        Page<Long> idPage = pictureSearchManager.searchPictureIds(pictureQueryRequest);
+        if (idPage != null) {
+            return listPictureByIdPage(idPage);
+        }
+        // 按创建时间倒序浏览审核通过的图片（可按分类）时，从信息流有序集合取当前页 id
+        idPage = pictureFeedManager.pagePictureIds(pictureQueryRequest);
+        if (idPage != null) {
+            return listPictureByIdPage(idPage);
+        }
+        // 只按分类、标签、格式筛选审核通过的图片时，由位图索引直接算出当前页 id 和总数
+        idPage = pictureBitmapIndexManager.pagePictureIds(pictureQueryRequest);
+        if (idPage != null) {
+            return listPictureByIdPage(idPage);
+        }
+        QueryWrapper<Picture> queryWrapper = this.getQueryWrapper(pictureQueryRequest);
+        return pageByQueryWrapper("picture", queryWrapper, current, size, totalMode, this::list,
+                (page, wrapper) -> this.page(page, wrapper), this::count, this.getBaseMapper()::explainByWrapper);
+    }
+
+    /**
+     * 按查询条件分页，按统计方式决定是否执行 COUNT（图片表和公开图片读模型共用）
+     *
+     * @param table        表名（区分总数缓存）
+     * @param queryWrapper 查询条件
+     * @param current      页号
+     * @param size         页大小
+     * @param totalMode    总数统计方式
+     * @param listQuery    列表查询
+     * @param pageQuery    分页查询
+     * @param countQuery   总数统计
+     * @param explainQuery 执行计划（估算近似总数）
+     * @return
+     */
+    private <T> Page<T> pageByQueryWrapper(String table, QueryWrapper<Picture> queryWrapper, long current, long size,
+                                           PictureTotalModeEnum totalMode,
+                                           Function<QueryWrapper<Picture>, List<T>> listQuery,
+                                           BiFunction<Page<T>, QueryWrapper<Picture>, Page<T>> pageQuery,
+                                           Function<QueryWrapper<Picture>, Long> countQuery,
+                                           Function<QueryWrapper<Picture>, List<Map<String, Object>>> explainQuery) {
+        if (PictureTotalModeEnum.NONE.equals(totalMode)) {
+            // 多查一条判断是否还有下一页
+            queryWrapper.last(String.format("limit %s, %s", (current - 1) * size, size + 1));
+            List<T> recordList = listQuery.apply(queryWrapper);
+            CursorPage<T> cursorPage = new CursorPage<>(current, size);
+            cursorPage.setHasMore(recordList.size() > size);
+            cursorPage.setRecords(cursorPage.isHasMore() ? recordList.subList(0, (int) size) : recordList);
+            return cursorPage;
+        }
+        if (totalMode == null || PictureTotalModeEnum.EXACT.equals(totalMode)) {
+            return pageQuery.apply(new Page<>(current, size), queryWrapper);
+        }
+        // 分页插件不统计，总数走缓存
+        Page<T> page = pageQuery.apply(new Page<>(current, size, false), queryWrapper);
+        List<T> recordList = page.getRecords();
+        if (recordList.size() < size && (current == 1 || !recordList.isEmpty())) {
+            // 最后一页可以直接算出总数
+            page.setTotal((current - 1) * size + recordList.size());
+        } else {
+            page.setTotal(pictureCountManager.count(table, queryWrapper, totalMode,
+                    () -> countQuery.apply(queryWrapper), () -> explainQuery.apply(queryWrapper)));
+        }
+        return page;
+    }
+
+    /**
+     * 按索引给出的 id 页查询图片（保持索引给出的顺序）
+     *
+     * @param idPage
+     * @return
+     */
+    private Page<Picture> listPictureByIdPage(Page<Long> idPage) {
+        Page<Picture> picturePage = new Page<>(idPage.getCurrent(), idPage.getSize(), idPage.getTotal());
+        if (idPage.getRecords().isEmpty()) {
+            return picturePage;
+        }
+        Map<Long, Picture> pictureMap = this.listByIds(idPage.getRecords()).stream()
+                .collect(Collectors.toMap(Picture::getId, picture -> picture));
+        picturePage.setRecords(idPage.getRecords().stream().map(pictureMap::get).filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+        return picturePage;
+    }
+
+    @Override
+    public Page<PictureVO> listPictureVOByPage(PictureQueryRequest pictureQueryRequest, PictureTotalModeEnum totalMode,
+                                               HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        long size = pictureQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size <= 0 || size > 20, ErrorCode.PARAMS_ERROR);
+        if (pictureQueryRequest.getCursor() != null) {
+            return listPictureVOByCursor(pictureQueryRequest, request);
+        }
+        if (publicPictureService.isPublicQuery(pictureQueryRequest)) {
+            return listPictureVOByPublicPicture(pictureQueryRequest, totalMode);
+        }
+        Page<Picture> picturePage = this.listPictureByPage(pictureQueryRequest, totalMode);
+        Page<PictureVO> pictureVOPage = this.getPictureVOPage(picturePage, request);
+        if (picturePage instanceof CursorPage) {
+            CursorPage<PictureVO> cursorPage = new CursorPage<>(picturePage.getCurrent(), size);
+            cursorPage.setRecords(pictureVOPage.getRecords());
+            cursorPage.setHasMore(((CursorPage<Picture>) picturePage).isHasMore());
+            return cursorPage;
+        }
+        return pictureVOPage;
+    }
+
+    /**
+     * 从公开图片读模型分页（作者信息已冗余，不再查询用户表）
+     *
+     * @param pictureQueryRequest
+     * @param totalMode
+     * @return
+     */
+    private Page<PictureVO> listPictureVOByPublicPicture(PictureQueryRequest pictureQueryRequest,
+                                                         PictureTotalModeEnum totalMode) {
+        long current = pictureQueryRequest.getCurrent();
+        long size = pictureQueryRequest.getPageSize();
+        ThrowUtils.throwIf(current <= 0, ErrorCode.PARAMS_ERROR);
+        // 全文检索、信息流、位图索引给出 id 页时只从读模型取数据
+        Page<Long> idPage = pictureSearchManager.searchPictureIds(pictureQueryRequest);
+        if (idPage == null) {
+            idPage = pictureFeedManager.pagePictureIds(pictureQueryRequest);
+        }
+        if (idPage == null) {
+            idPage = pictureBitmapIndexManager.pagePictureIds(pictureQueryRequest);
+        }
+        if (idPage != null) {
+            Page<PictureVO> pictureVOPage = new Page<>(idPage.getCurrent(), idPage.getSize(), idPage.getTotal());
+            pictureVOPage.setRecords(publicPictureService.listPictureVOByIds(idPage.getRecords()));
+            return pictureVOPage;
+        }
+        QueryWrapper<Picture> queryWrapper = this.getQueryWrapper(
+                publicPictureService.toPublicQueryRequest(pictureQueryRequest));
+        Page<PublicPicture> publicPicturePage = pageByQueryWrapper("public_picture", queryWrapper, current, size,
+                totalMode, publicPictureMapper::selectByPictureWrapper, publicPictureMapper::selectPageByPictureWrapper,
+                publicPictureMapper::selectCountByPictureWrapper, publicPictureMapper::explainByPictureWrapper);
+        List<PictureVO> pictureVOList = publicPicturePage.getRecords().stream()
+                .map(publicPictureService::getPictureVO).collect(Collectors.toList());
+        if (publicPicturePage instanceof CursorPage) {
+            CursorPage<PictureVO> cursorPage = new CursorPage<>(current, size);
+            cursorPage.setRecords(pictureVOList);
+            cursorPage.setHasMore(((CursorPage<PublicPicture>) publicPicturePage).isHasMore());
+            return cursorPage;
+        }
+        Page<PictureVO> pictureVOPage = new Page<>(current, size, publicPicturePage.getTotal());
+        pictureVOPage.setRecords(pictureVOList);
+        return pictureVOPage;
+    }
+
+    @Override
+    public Page<PictureVO> listPublicPictureVOByPage(PictureQueryRequest pictureQueryRequest,
+                                                     HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 普通用户只能看到审核通过的数据
+        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        PictureTotalModeEnum totalMode = PictureTotalModeEnum.getEnumByValue(pictureQueryConfig.getFeedTotalMode());
+        // 结果与当前登录用户无关，所有访问者共用缓存
+        return pictureListCacheManager.get(pictureQueryRequest,
+                () -> this.listPictureVOByPage(pictureQueryRequest, totalMode, request));
+    }
+
+    /**
+     * 游标分页：按 (createTime, id) 倒序从上一页最后一条之后开始查，多查一条判断是否还有下一页，不执行 COUNT
+     *
+     * @param pictureQueryRequest
+     * @param request
+     * @return
+     */
+    private CursorPage<PictureVO> listPictureVOByCursor(PictureQueryRequest pictureQueryRequest,
+                                                        HttpServletRequest request) {
+        int size = pictureQueryRequest.getPageSize();
+        String cursor = pictureQueryRequest.getCursor();
+        // 游标模式固定按创建时间倒序
+        pictureQueryRequest.setSortField(null);
+        boolean publicQuery = publicPictureService.isPublicQuery(pictureQueryRequest);
+        Picture lastPicture = StrUtil.isNotBlank(cursor) ? decodeCursor(cursor) : new Picture();
+        // 信息流可以回答时从有序集合取 id，再批量取数据
+        List<Long> feedIdList = pictureFeedManager.listPictureIdsByCursor(pictureQueryRequest,
+                lastPicture.getCreateTime(), lastPicture.getId(), size + 1);
+        QueryWrapper<Picture> queryWrapper = this.getQueryWrapper(publicQuery
+                ? publicPictureService.toPublicQueryRequest(pictureQueryRequest) : pictureQueryRequest);
+        if (lastPicture.getId() != null) {
+            queryWrapper.apply("(createTime, id) < ({0}, {1})", lastPicture.getCreateTime(), lastPicture.getId());
+        }
+        queryWrapper.orderByDesc("createTime", "id").last("limit " + (size + 1));
+        List<PictureVO> pictureVOList;
+        if (feedIdList != null && publicQuery) {
+            pictureVOList = publicPictureService.listPictureVOByIds(feedIdList);
+        } else if (feedIdList != null) {
+            Page<Long> idPage = new Page<>(1, size + 1, false);
+            idPage.setRecords(feedIdList);
+            pictureVOList = this.getPictureVOPage(listPictureByIdPage(idPage), request).getRecords();
+        } else if (publicQuery) {
+            pictureVOList = publicPictureMapper.selectByPictureWrapper(queryWrapper).stream()
+                    .map(publicPictureService::getPictureVO).collect(Collectors.toList());
+        } else {
+            Page<Picture> picturePage = new Page<>(1, size + 1, false);
+            picturePage.setRecords(this.list(queryWrapper));
+            pictureVOList = this.getPictureVOPage(picturePage, request).getRecords();
+        }
+        boolean hasMore = pictureVOList.size() > size;
+        if (hasMore) {
+            pictureVOList = pictureVOList.subList(0, size);
+        }
+        CursorPage<PictureVO> cursorPage = new CursorPage<>(1, size);
+        cursorPage.setRecords(pictureVOList);
+        cursorPage.setHasMore(hasMore);
+        if (hasMore) {
+            cursorPage.setNextCursor(encodeCursor(pictureVOList.get(size - 1)));
+        }
+        return cursorPage;
+    }
+
+    /**
+     * 游标编码：Base64(创建时间毫秒_id)，对客户端不透明
+     */
+    private String encodeCursor(PictureVO pictureVO) {
+        return Base64.encodeUrlSafe(pictureVO.getCreateTime().getTime() + "_" + pictureVO.getId());
+    }
+
+    private Picture decodeCursor(String cursor) {
+        try {
+            String[] parts = Base64.decodeStr(cursor).split("_");
+            Picture picture = new Picture();
+            picture.setCreateTime(new Date(Long.parseLong(parts[0])));
+            picture.setId(Long.parseLong(parts[1]));
+            return picture;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+        }
+    }
+
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean doPictureReview(Long pictureId, Integer reviewStatus, String reviewMessage, HttpServletRequest request) {
         // 参数校验
         PictureReviewStatusEnum reviewStatusEnum = PictureReviewStatusEnum.getEnumByValue(reviewStatus);
@@ -266,6 +985,36 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         return true;
     }
 
+    /**
+     * 更新图片（修改、编辑、审核）：同步标签表、总数缓存和索引
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateById(Picture picture) {
+        boolean result = super.updateById(picture);
+        if (result) {
+            if (picture.getTags() != null) {
+                pictureTagService.replacePictureTags(picture.getId(), picture.getTags());
+            }
+            onPictureChanged(Collections.singletonList(picture.getId()));
+        }
+        return result;
+    }
+
+    /**
+     * 删除图片：同步删除标签记录、总数缓存和索引
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            pictureTagService.removeByPictureId(Convert.toLong(id));
+            onPictureChanged(Collections.singletonList(Convert.toLong(id)));
+        }
+        return result;
+    }
+
 
 }
 
@@ -0,0 +1,109 @@
+package com.da.gallery.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.mapper.PictureTagMapper;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.PictureTag;
+import com.da.gallery.service.PictureTagService;
+import com.da.gallery.utils.PictureTagUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 图片标签服务实现
+ */
+@Service
+@Slf4j
+public class PictureTagServiceImpl extends ServiceImpl<PictureTagMapper, PictureTag> implements PictureTagService {
+
+    /**
+     * 回填时每批扫描的图片数
+     */
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Override
+    public void replacePictureTags(Long pictureId, String tags) {
+        if (!isSyncEnabled()) {
+            return;
+        }
+        this.removeByPictureId(pictureId);
+        List<PictureTag> pictureTagList = toPictureTagList(pictureId, tags);
+        if (!pictureTagList.isEmpty()) {
+            this.baseMapper.insertIgnoreBatch(pictureTagList);
+        }
+    }
+
+    @Override
+    public void removeByPictureId(Long pictureId) {
+        if (!isSyncEnabled()) {
+            return;
+        }
+        this.remove(new QueryWrapper<PictureTag>().eq("pictureId", pictureId));
+    }
+
+    @Override
+    public long backfillPictureTags() {
+        long lastId = 0;
+        long total = 0;
+        while (true) {
+            // 按主键分批扫描，避免大偏移量
+            List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                    .select("id", "tags")
+                    .gt("id", lastId)
+                    .isNotNull("tags")
+                    .orderByAsc("id")
+                    .last("limit " + BACKFILL_BATCH_SIZE));
+            if (pictureList.isEmpty()) {
+                break;
+            }
+            List<PictureTag> pictureTagList = new ArrayList<>();
+            for (Picture picture : pictureList) {
+                pictureTagList.addAll(toPictureTagList(picture.getId(), picture.getTags()));
+            }
+            if (!pictureTagList.isEmpty()) {
+                total += this.baseMapper.insertIgnoreBatch(pictureTagList);
+            }
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+            log.info("picture tag backfill progress, lastId = {}, total = {}", lastId, total);
+            if (pictureList.size() < BACKFILL_BATCH_SIZE) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 是否维护标签表（未建表时关闭，开启标签表查询时总是维护）
+     */
+    private boolean isSyncEnabled() {
+        return pictureQueryConfig.isTagTableSyncEnabled() || pictureQueryConfig.isTagTableEnabled();
+    }
+
+    /**
+     * 标签 JSON 转为标签记录
+     */
+    private List<PictureTag> toPictureTagList(Long pictureId, String tags) {
+        return PictureTagUtils.parseTags(tags).stream()
+                .map(tag -> {
+                    PictureTag pictureTag = new PictureTag();
+                    pictureTag.setTag(tag);
+                    pictureTag.setPictureId(pictureId);
+                    return pictureTag;
+                })
+                .collect(Collectors.toList());
+    }
+}
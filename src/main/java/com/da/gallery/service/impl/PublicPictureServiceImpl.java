@@ -0,0 +1,212 @@
+package com.da.gallery.service.impl;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.manager.UserVOCacheManager;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.mapper.PublicPictureMapper;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.PublicPicture;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import com.da.gallery.model.vo.PictureVO;
+import com.da.gallery.model.vo.UserVO;
+import com.da.gallery.service.PublicPictureService;
+import com.da.gallery.utils.PictureTagUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 公开图片读模型服务实现
+ */
+@Service
+@Slf4j
+public class PublicPictureServiceImpl extends ServiceImpl<PublicPictureMapper, PublicPicture>
+        implements PublicPictureService {
+
+    /**
+     * 回填时每批扫描的图片数
+     */
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    /**
+     * 读模型中可排序的字段
+     */
+    private static final Set<String> SORT_FIELD_SET = new HashSet<>(Arrays.asList("id", "name", "category",
+            "picSize", "picWidth", "picHeight", "picScale", "picFormat", "userId", "createTime", "editTime",
+            "updateTime"));
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private UserVOCacheManager userVOCacheManager;
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Override
+    public void syncPictures(Collection<Long> pictureIdList) {
+        if (isSyncEnabled()) {
+            doSyncPictures(pictureIdList);
+        }
+    }
+
+    /**
+     * 同步读模型（回填时不受写入开关限制）
+     */
+    private void doSyncPictures(Collection<Long> pictureIdList) {
+        Set<Long> pictureIdSet = pictureIdList.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (pictureIdSet.isEmpty()) {
+            return;
+        }
+        // 已删除的图片查不到（逻辑删除），与未过审的一起移除
+        List<Picture> passPictureList = pictureMapper.selectBatchIds(pictureIdSet).stream()
+                .filter(picture -> Integer.valueOf(PictureReviewStatusEnum.PASS.getValue()).equals(picture.getReviewStatus()))
+                .collect(Collectors.toList());
+        Set<Long> passIdSet = passPictureList.stream().map(Picture::getId).collect(Collectors.toSet());
+        List<Long> removeIdList = pictureIdSet.stream().filter(id -> !passIdSet.contains(id))
+                .collect(Collectors.toList());
+        if (!removeIdList.isEmpty()) {
+            this.baseMapper.deleteBatchIds(removeIdList);
+        }
+        if (passPictureList.isEmpty()) {
+            return;
+        }
+        Map<Long, UserVO> userVOMap = userVOCacheManager.loadAll(passPictureList.stream()
+                .map(Picture::getUserId).collect(Collectors.toSet()));
+        List<PublicPicture> publicPictureList = passPictureList.stream()
+                .map(picture -> toPublicPicture(picture, userVOMap.get(picture.getUserId())))
+                .collect(Collectors.toList());
+        this.baseMapper.upsertBatch(publicPictureList);
+    }
+
+    @Override
+    public void syncAuthor(Long userId) {
+        if (!isSyncEnabled() || userId == null) {
+            return;
+        }
+        // 用户已删除时清空作者信息，与图片表查询时作者为空一致
+        UserVO userVO = userVOCacheManager.load(userId);
+        this.baseMapper.updateAuthor(userId, userVO == null ? null : userVO.getUserName(),
+                userVO == null ? null : userVO.getUserAvatar());
+    }
+
+    @Override
+    public long backfillPublicPictures() {
+        long total = 0;
+        // 按图片表写入审核通过的图片
+        long lastId = 0;
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                    .select("id")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("limit " + BACKFILL_BATCH_SIZE));
+            if (pictureList.isEmpty()) {
+                break;
+            }
+            this.doSyncPictures(pictureList.stream().map(Picture::getId).collect(Collectors.toList()));
+            total += pictureList.size();
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+            log.info("public picture backfill progress, lastId = {}, total = {}", lastId, total);
+            if (pictureList.size() < BACKFILL_BATCH_SIZE) {
+                break;
+            }
+        }
+        // 按读模型移除已删除的图片
+        lastId = 0;
+        while (true) {
+            List<PublicPicture> publicPictureList = this.list(new QueryWrapper<PublicPicture>()
+                    .select("id")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("limit " + BACKFILL_BATCH_SIZE));
+            if (publicPictureList.isEmpty()) {
+                break;
+            }
+            this.doSyncPictures(publicPictureList.stream().map(PublicPicture::getId).collect(Collectors.toList()));
+            lastId = publicPictureList.get(publicPictureList.size() - 1).getId();
+            if (publicPictureList.size() < BACKFILL_BATCH_SIZE) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public boolean isPublicQuery(PictureQueryRequest pictureQueryRequest) {
+        return pictureQueryConfig.isPublicPictureEnabled()
+                && Integer.valueOf(PictureReviewStatusEnum.PASS.getValue()).equals(pictureQueryRequest.getReviewStatus())
+                && pictureQueryRequest.getReviewerId() == null
+                && StringUtils.isBlank(pictureQueryRequest.getReviewMessage())
+                && (StringUtils.isBlank(pictureQueryRequest.getSortField())
+                || SORT_FIELD_SET.contains(pictureQueryRequest.getSortField()));
+    }
+
+    @Override
+    public PictureQueryRequest toPublicQueryRequest(PictureQueryRequest pictureQueryRequest) {
+        PictureQueryRequest publicQueryRequest = BeanUtil.copyProperties(pictureQueryRequest, PictureQueryRequest.class);
+        publicQueryRequest.setReviewStatus(null);
+        return publicQueryRequest;
+    }
+
+    @Override
+    public PictureVO getPictureVO(PublicPicture publicPicture) {
+        PictureVO pictureVO = new PictureVO();
+        BeanUtils.copyProperties(publicPicture, pictureVO);
+        pictureVO.setTagList(PictureTagUtils.parseTags(publicPicture.getTags()));
+        pictureVO.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        UserVO userVO = new UserVO();
+        userVO.setId(publicPicture.getUserId());
+        userVO.setUserName(publicPicture.getUserName());
+        userVO.setUserAvatar(publicPicture.getUserAvatar());
+        pictureVO.setUserVO(userVO);
+        return pictureVO;
+    }
+
+    @Override
+    public List<PictureVO> listPictureVOByIds(List<Long> pictureIdList) {
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return Collections.emptyList();
+        }
+        Map<Long, PublicPicture> publicPictureMap = this.listByIds(pictureIdList).stream()
+                .collect(Collectors.toMap(PublicPicture::getId, Function.identity()));
+        return pictureIdList.stream().map(publicPictureMap::get).filter(Objects::nonNull)
+                .map(this::getPictureVO).collect(Collectors.toList());
+    }
+
+    /**
+     * 是否维护读模型（未建表时关闭，开启读模型查询时总是维护）
+     */
+    private boolean isSyncEnabled() {
+        return pictureQueryConfig.isPublicPictureSyncEnabled() || pictureQueryConfig.isPublicPictureEnabled();
+    }
+
+    private PublicPicture toPublicPicture(Picture picture, UserVO userVO) {
+        PublicPicture publicPicture = new PublicPicture();
+        BeanUtils.copyProperties(picture, publicPicture);
+        if (userVO != null) {
+            publicPicture.setUserName(userVO.getUserName());
+            publicPicture.setUserAvatar(userVO.getUserAvatar());
+        }
+        return publicPicture;
+    }
+}
@@ -1,25 +1,37 @@
 package com.da.gallery.service.impl;
 
+import static com.da.gallery.constant.UserConstant.LOGIN_USER_ATTRIBUTE;
 import static com.da.gallery.constant.UserConstant.USER_LOGIN_STATE;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.da.gallery.common.ErrorCode;
 import com.da.gallery.constant.CommonConstant;
 import com.da.gallery.exception.BusinessException;
+import com.da.gallery.exception.ThrowUtils;
+import com.da.gallery.manager.AuthTokenManager;
+import com.da.gallery.manager.LoginUserCacheManager;
+import com.da.gallery.manager.UserVOCacheManager;
 import com.da.gallery.mapper.UserMapper;
+import com.da.gallery.model.dto.user.LoginUserState;
 import com.da.gallery.model.dto.user.UserQueryRequest;
 import com.da.gallery.model.entity.User;
 import com.da.gallery.model.enums.UserRoleEnum;
 import com.da.gallery.model.vo.LoginUserVO;
 import com.da.gallery.model.vo.UserVO;
+import com.da.gallery.service.PublicPictureService;
 import com.da.gallery.service.UserService;
 import com.da.gallery.utils.SqlUtils;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
+import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
@@ -41,6 +53,23 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     public static final String SALT = "da_yyds";
 
+    /**
+     * 请求属性中表示未登录的标记
+     */
+    private static final Object NOT_LOGIN = new Object();
+
+    @Resource
+    private UserVOCacheManager userVOCacheManager;
+
+    @Resource
+    private PublicPictureService publicPictureService;
+
+    @Resource
+    private LoginUserCacheManager loginUserCacheManager;
+
+    @Resource
+    private AuthTokenManager authTokenManager;
+
     @Override
     public long userRegister(String userAccount, String userPassword, String checkPassword) {
         // 1. 校验
@@ -104,9 +133,16 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             log.info("user login failed, userAccount cannot match userPassword");
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户不存在或密码错误");
         }
-        // 3. 记录用户的登录态
-        request.getSession().setAttribute(USER_LOGIN_STATE, user);
-        return this.getLoginUserVO(user);
+        // 3. 记录用户的登录态（令牌认证方式签发令牌，不写会话）
+        LoginUserState state = loginUserCacheManager.createState(user);
+        request.removeAttribute(LOGIN_USER_ATTRIBUTE);
+        LoginUserVO loginUserVO = this.getLoginUserVO(user);
+        if (authTokenManager.isTokenMode()) {
+            loginUserVO.setToken(authTokenManager.createToken(state));
+        } else {
+            request.getSession().setAttribute(USER_LOGIN_STATE, state);
+        }
+        return loginUserVO;
     }
 
 
@@ -118,15 +154,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     @Override
     public User getLoginUser(HttpServletRequest request) {
-        // 先判断是否已登录
-        Object userObj = request.getSession().getAttribute(USER_LOGIN_STATE);
-        User currentUser = (User) userObj;
-        if (currentUser == null || currentUser.getId() == null) {
-            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
-        }
-        // 从数据库查询（追求性能的话可以注释，直接走缓存）
-        long userId = currentUser.getId();
-        currentUser = this.getById(userId);
+        User currentUser = getLoginUserPermitNull(request);
         if (currentUser == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
@@ -141,15 +169,46 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     @Override
     public User getLoginUserPermitNull(HttpServletRequest request) {
-        // 先判断是否已登录
-        Object userObj = request.getSession().getAttribute(USER_LOGIN_STATE);
-        User currentUser = (User) userObj;
-        if (currentUser == null || currentUser.getId() == null) {
+        // 同一请求内（权限校验、控制器、服务）复用已解析的登录用户
+        Object loginUser = request.getAttribute(LOGIN_USER_ATTRIBUTE);
+        if (loginUser != null) {
+            return loginUser == NOT_LOGIN ? null : (User) loginUser;
+        }
+        User currentUser = resolveLoginUser(request);
+        request.setAttribute(LOGIN_USER_ATTRIBUTE, currentUser == null ? NOT_LOGIN : currentUser);
+        return currentUser;
+    }
+
+    /**
+     * 从会话登录态解析登录用户
+     *
+     * @param request
+     * @return
+     */
+    private User resolveLoginUser(HttpServletRequest request) {
+        // 令牌认证方式：本地验签，令牌版本落后于用户版本时视为已吊销
+        if (authTokenManager.isTokenMode()) {
+            LoginUserState state = authTokenManager.parseToken(authTokenManager.getToken(request), false);
+            return state == null || state.getUserId() == null ? null : loginUserCacheManager.getCurrentUser(state);
+        }
+        // 先判断是否已登录（只读取已有会话，不为匿名访问创建会话）
+        HttpSession session = request.getSession(false);
+        if (session == null) {
             return null;
         }
-        // 从数据库查询（追求性能的话可以注释，直接走缓存）
-        long userId = currentUser.getId();
-        return this.getById(userId);
+        Object stateObj = session.getAttribute(USER_LOGIN_STATE);
+        if (!(stateObj instanceof LoginUserState) || ((LoginUserState) stateObj).getUserId() == null) {
+            return null;
+        }
+        // 从登录用户缓存读取，用户修改、删除、封禁后版本变化会重新查询
+        LoginUserState state = (LoginUserState) stateObj;
+        Long version = state.getVersion();
+        User currentUser = loginUserCacheManager.getUser(state);
+        if (!Objects.equals(version, state.getVersion())) {
+            // 记录读到的新版本，让其他节点也跳过旧缓存
+            session.setAttribute(USER_LOGIN_STATE, state);
+        }
+        return currentUser;
     }
 
     /**
@@ -161,9 +220,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     public boolean isAdmin(HttpServletRequest request) {
         // 仅管理员可查询
-        Object userObj = request.getSession().getAttribute(USER_LOGIN_STATE);
-        User user = (User) userObj;
-        return isAdmin(user);
+        return isAdmin(getLoginUserPermitNull(request));
     }
 
     @Override
@@ -178,14 +235,45 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     @Override
     public boolean userLogout(HttpServletRequest request) {
-        if (request.getSession().getAttribute(USER_LOGIN_STATE) == null) {
+        if (authTokenManager.isTokenMode()) {
+            // 令牌无法单独作废，自增用户版本吊销该用户已签发的全部令牌
+            User loginUser = getLoginUserPermitNull(request);
+            ThrowUtils.throwIf(loginUser == null, ErrorCode.OPERATION_ERROR, "未登录");
+            loginUserCacheManager.invalidate(loginUser.getId());
+            request.removeAttribute(LOGIN_USER_ATTRIBUTE);
+            return true;
+        }
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute(USER_LOGIN_STATE) == null) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "未登录");
         }
         // 移除登录态
-        request.getSession().removeAttribute(USER_LOGIN_STATE);
+        session.removeAttribute(USER_LOGIN_STATE);
+        request.removeAttribute(LOGIN_USER_ATTRIBUTE);
         return true;
     }
 
+    /**
+     * 刷新登录令牌：接受刷新期限内已过期的令牌，但版本必须与用户当前版本一致（注销、修改、封禁后的令牌不能换新）
+     *
+     * @param request
+     * @return
+     */
+    @Override
+    public LoginUserVO refreshToken(HttpServletRequest request) {
+        ThrowUtils.throwIf(!authTokenManager.isTokenMode(), ErrorCode.OPERATION_ERROR, "未开启令牌认证");
+        LoginUserState state = authTokenManager.parseToken(authTokenManager.getToken(request), true);
+        ThrowUtils.throwIf(state == null || state.getUserId() == null, ErrorCode.NOT_LOGIN_ERROR);
+        // 版本已变化说明令牌已被吊销，需要重新登录
+        User user = loginUserCacheManager.getCurrentUser(state);
+        ThrowUtils.throwIf(user == null, ErrorCode.NOT_LOGIN_ERROR);
+        ThrowUtils.throwIf(UserRoleEnum.BAN.getValue().equals(user.getUserRole()), ErrorCode.NO_AUTH_ERROR);
+        LoginUserVO loginUserVO = this.getLoginUserVO(user);
+        loginUserVO.setToken(authTokenManager.createToken(
+                new LoginUserState(user.getId(), user.getUserRole(), state.getVersion())));
+        return loginUserVO;
+    }
+
     @Override
     public LoginUserVO getLoginUserVO(User user) {
         if (user == null) {
@@ -232,4 +320,32 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 sortField);
         return queryWrapper;
     }
+
+    /**
+     * 修改用户（含封禁）：同步失效用户封装缓存和登录用户缓存，更新公开图片中冗余的作者信息
+     */
+    @Override
+    public boolean updateById(User user) {
+        boolean result = super.updateById(user);
+        if (result) {
+            userVOCacheManager.invalidate(user.getId());
+            loginUserCacheManager.invalidate(user.getId());
+            publicPictureService.syncAuthor(user.getId());
+        }
+        return result;
+    }
+
+    /**
+     * 删除用户：同步失效用户封装缓存和登录用户缓存，清空公开图片中冗余的作者信息
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            userVOCacheManager.invalidate(Convert.toLong(id));
+            loginUserCacheManager.invalidate(Convert.toLong(id));
+            publicPictureService.syncAuthor(Convert.toLong(id));
+        }
+        return result;
+    }
 }
@@ -0,0 +1,51 @@
+package com.da.gallery.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+/**
+ * 边读边计算摘要和字节数的输入流
+ */
+public class DigestCountingInputStream extends DigestInputStream {
+
+    /**
+     * 已读取字节数
+     */
+    private long count;
+
+    public DigestCountingInputStream(InputStream stream, MessageDigest digest) {
+        super(stream, digest);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count += n;
+        }
+        return n;
+    }
+
+    /**
+     * 摘要只对实际读到的字节有意义，禁止 mark/reset
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
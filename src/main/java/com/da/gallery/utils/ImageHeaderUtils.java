@@ -0,0 +1,260 @@
+package com.da.gallery.utils;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 图片头解析工具（只读取文件头，不解码像素）
+ * <p>
+ * 支持 JPEG（SOFn）、PNG（IHDR）、WebP（VP8 / VP8L / VP8X）
+ */
+public class ImageHeaderUtils {
+
+    /**
+     * JPEG 最多扫描的字节数（跳过 EXIF 等段，正常 SOF 都在前几十 KB 内）
+     */
+    private static final long MAX_JPEG_SCAN_BYTES = 1024 * 1024L;
+
+    /**
+     * 解析图片头
+     *
+     * @param inputStream 输入流（调用方负责关闭）
+     * @return 图片头信息，无法识别时返回 null
+     * @throws IOException
+     */
+    public static ImageHeader parse(InputStream inputStream) throws IOException {
+        InputStream in = inputStream instanceof BufferedInputStream ? inputStream
+                : new BufferedInputStream(inputStream, 4096);
+        int b0 = in.read();
+        int b1 = in.read();
+        try {
+            if (b0 == 0xFF && b1 == 0xD8) {
+                return parseJpeg(in);
+            }
+            if (b0 == 0x89 && b1 == 'P') {
+                return parsePng(in);
+            }
+            if (b0 == 'R' && b1 == 'I') {
+                return parseWebp(in);
+            }
+        } catch (EOFException e) {
+            // 文件头被截断
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * 解析 JPEG：依次跳过各个段，直到遇到 SOFn 帧头
+     */
+    private static ImageHeader parseJpeg(InputStream in) throws IOException {
+        long scanned = 2;
+        while (scanned < MAX_JPEG_SCAN_BYTES) {
+            int b = in.read();
+            scanned++;
+            if (b != 0xFF) {
+                return null;
+            }
+            // 跳过填充字节
+            int marker = in.read();
+            scanned++;
+            while (marker == 0xFF) {
+                marker = in.read();
+                scanned++;
+            }
+            if (marker < 0 || marker == 0xD9 || marker == 0xDA) {
+                // EOI / SOS 之前都没有 SOF，说明文件异常
+                return null;
+            }
+            // 无长度字段的独立标记
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue;
+            }
+            int length = readUInt16BE(in);
+            scanned += 2;
+            if (length < 2) {
+                return null;
+            }
+            boolean isSof = marker >= 0xC0 && marker <= 0xCF
+                    && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (isSof) {
+                // 采样精度
+                readByte(in);
+                int height = readUInt16BE(in);
+                int width = readUInt16BE(in);
+                return new ImageHeader("jpg", width, height);
+            }
+            skipFully(in, length - 2);
+            scanned += length - 2;
+        }
+        return null;
+    }
+
+    /**
+     * 解析 PNG：签名之后的第一个块必须是 IHDR
+     */
+    private static ImageHeader parsePng(InputStream in) throws IOException {
+        byte[] signature = readBytes(in, 6);
+        if (signature[0] != 'N' || signature[1] != 'G' || signature[2] != 0x0D || signature[3] != 0x0A
+                || signature[4] != 0x1A || signature[5] != 0x0A) {
+            return null;
+        }
+        // IHDR 块长度
+        readUInt32BE(in);
+        if (!"IHDR".equals(readFourCC(in))) {
+            return null;
+        }
+        int width = (int) readUInt32BE(in);
+        int height = (int) readUInt32BE(in);
+        return new ImageHeader("png", width, height);
+    }
+
+    /**
+     * 解析 WebP：RIFF 容器中的第一个块决定了编码方式
+     */
+    private static ImageHeader parseWebp(InputStream in) throws IOException {
+        byte[] riff = readBytes(in, 2);
+        if (riff[0] != 'F' || riff[1] != 'F') {
+            return null;
+        }
+        // RIFF 大小
+        readBytes(in, 4);
+        if (!"WEBP".equals(readFourCC(in))) {
+            return null;
+        }
+        String chunk = readFourCC(in);
+        // 块大小
+        readBytes(in, 4);
+        switch (chunk) {
+            case "VP8 ": {
+                // 3 字节帧标记 + 3 字节起始码 9D 01 2A
+                byte[] frame = readBytes(in, 6);
+                if ((frame[3] & 0xFF) != 0x9D || (frame[4] & 0xFF) != 0x01 || (frame[5] & 0xFF) != 0x2A) {
+                    return null;
+                }
+                int width = readUInt16LE(in) & 0x3FFF;
+                int height = readUInt16LE(in) & 0x3FFF;
+                return new ImageHeader("webp", width, height);
+            }
+            case "VP8L": {
+                if (readByte(in) != 0x2F) {
+                    return null;
+                }
+                long bits = readUInt32LE(in);
+                int width = (int) (bits & 0x3FFF) + 1;
+                int height = (int) ((bits >> 14) & 0x3FFF) + 1;
+                return new ImageHeader("webp", width, height);
+            }
+            case "VP8X": {
+                // 1 字节标志位 + 3 字节保留
+                readBytes(in, 4);
+                int width = readUInt24LE(in) + 1;
+                int height = readUInt24LE(in) + 1;
+                return new ImageHeader("webp", width, height);
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static byte[] readBytes(InputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int n = in.read(bytes, offset, length - offset);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            offset += n;
+        }
+        return bytes;
+    }
+
+    private static void skipFully(InputStream in, long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                // skip 不保证前进，退化为逐字节读取
+                readByte(in);
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static String readFourCC(InputStream in) throws IOException {
+        byte[] bytes = readBytes(in, 4);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static int readUInt16BE(InputStream in) throws IOException {
+        return (readByte(in) << 8) | readByte(in);
+    }
+
+    private static long readUInt32BE(InputStream in) throws IOException {
+        return ((long) readUInt16BE(in) << 16) | readUInt16BE(in);
+    }
+
+    private static int readUInt16LE(InputStream in) throws IOException {
+        return readByte(in) | (readByte(in) << 8);
+    }
+
+    private static int readUInt24LE(InputStream in) throws IOException {
+        return readByte(in) | (readByte(in) << 8) | (readByte(in) << 16);
+    }
+
+    private static long readUInt32LE(InputStream in) throws IOException {
+        return readUInt16LE(in) | ((long) readUInt16LE(in) << 16);
+    }
+
+    /**
+     * 图片头信息
+     */
+    public static class ImageHeader {
+
+        /**
+         * 图片格式（jpg / png / webp）
+         */
+        private final String format;
+
+        /**
+         * 图片宽度
+         */
+        private final int width;
+
+        /**
+         * 图片高度
+         */
+        private final int height;
+
+        public ImageHeader(String format, int width, int height) {
+            this.format = format;
+            this.width = width;
+            this.height = height;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.da.gallery.utils;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 图片标签工具（标签表、位图索引、全文检索使用同一套规范化规则）
+ */
+public class PictureTagUtils {
+
+    /**
+     * 解析标签 JSON（格式不合法时视为没有标签）
+     *
+     * @param tags 标签（JSON 数组）
+     * @return
+     */
+    public static List<String> parseTags(String tags) {
+        if (StrUtil.isBlank(tags) || !JSONUtil.isTypeJSONArray(tags)) {
+            return Collections.emptyList();
+        }
+        return normalizeTags(JSONUtil.toList(tags, String.class));
+    }
+
+    /**
+     * 规范化标签：去空白、去重
+     *
+     * @param tagList
+     * @return
+     */
+    public static List<String> normalizeTags(Collection<String> tagList) {
+        if (CollUtil.isEmpty(tagList)) {
+            return Collections.emptyList();
+        }
+        return tagList.stream()
+                .filter(StrUtil::isNotBlank)
+                .map(String::trim)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
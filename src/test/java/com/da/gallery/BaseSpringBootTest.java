@@ -0,0 +1,45 @@
+package com.da.gallery;
+
+import com.da.gallery.manager.CosManager;
+import com.da.gallery.manager.LoginUserCacheManager;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.mapper.PictureTagMapper;
+import com.da.gallery.mapper.PublicPictureMapper;
+import com.da.gallery.mapper.UserMapper;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * 集成测试基类（数据库、对象存储、事务使用 Mock）
+ * <p>
+ * 集成测试统一继承本类，使用同一组 Mock 和配置，共享一个应用上下文；需要不同配置的改为在测试中修改配置对象并在结束时还原；
+ * 紧凑会话存储默认只随 Redis 启用，这里显式开启以便经过会话过滤器测试
+ */
+@SpringBootTest(properties = "session.store.enabled=true")
+@AutoConfigureMockMvc
+public abstract class BaseSpringBootTest {
+
+    @MockBean
+    protected PictureMapper pictureMapper;
+
+    @MockBean
+    protected PictureTagMapper pictureTagMapper;
+
+    @MockBean
+    protected PublicPictureMapper publicPictureMapper;
+
+    @MockBean
+    protected UserMapper userMapper;
+
+    @MockBean
+    protected CosManager cosManager;
+
+    @MockBean
+    protected PlatformTransactionManager transactionManager;
+
+    @SpyBean
+    protected LoginUserCacheManager loginUserCacheManager;
+}
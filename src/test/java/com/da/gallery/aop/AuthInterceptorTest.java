@@ -0,0 +1,58 @@
+package com.da.gallery.aop;
+
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.constant.UserConstant;
+import com.da.gallery.controller.PictureController;
+import com.da.gallery.model.dto.picture.PictureReviewRequest;
+import com.da.gallery.model.dto.user.LoginUserState;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.User;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import javax.annotation.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 权限校验测试（数据库使用 Mock）
+ */
+class AuthInterceptorTest extends BaseSpringBootTest {
+
+    @Resource
+    private PictureController pictureController;
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void resolveLoginUserOncePerRequest() {
+        User admin = new User();
+        admin.setId(9001L);
+        admin.setUserRole(UserConstant.ADMIN_ROLE);
+        Mockito.when(userMapper.selectById(9001L)).thenReturn(admin);
+        Picture picture = new Picture();
+        picture.setId(1L);
+        picture.setReviewStatus(PictureReviewStatusEnum.REVIEWING.getValue());
+        Mockito.when(pictureMapper.selectById(1L)).thenReturn(picture);
+        Mockito.when(pictureMapper.updateById(ArgumentMatchers.any())).thenReturn(1);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession().setAttribute(UserConstant.USER_LOGIN_STATE, new LoginUserState(9001L, UserConstant.ADMIN_ROLE, 0L));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        PictureReviewRequest pictureReviewRequest = new PictureReviewRequest();
+        pictureReviewRequest.setId(1L);
+        pictureReviewRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        pictureReviewRequest.setReviewMessage("ok");
+        // 权限校验、控制器、服务各取一次登录用户，只解析一次
+        Assertions.assertTrue(pictureController.doPictureReview(pictureReviewRequest, request).getData());
+        Mockito.verify(loginUserCacheManager, Mockito.times(1)).getUser(ArgumentMatchers.any());
+        Mockito.verify(userMapper, Mockito.times(1)).selectById(9001L);
+    }
+}
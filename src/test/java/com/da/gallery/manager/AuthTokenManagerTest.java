@@ -0,0 +1,122 @@
+package com.da.gallery.manager;
+
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.common.ErrorCode;
+import com.da.gallery.config.UserAuthConfig;
+import com.da.gallery.constant.UserConstant;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.model.dto.user.LoginUserState;
+import com.da.gallery.model.entity.User;
+import com.da.gallery.model.enums.UserAuthModeEnum;
+import com.da.gallery.model.vo.LoginUserVO;
+import com.da.gallery.service.UserService;
+import javax.annotation.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * 登录令牌测试（数据库使用 Mock）
+ */
+class AuthTokenManagerTest extends BaseSpringBootTest {
+
+    @Resource
+    private AuthTokenManager authTokenManager;
+
+    @Resource
+    private UserAuthConfig userAuthConfig;
+
+    @Resource
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userAuthConfig.setMode(UserAuthModeEnum.TOKEN.getValue());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userAuthConfig.setMode(UserAuthModeEnum.SESSION.getValue());
+    }
+
+    @Test
+    void parseToken() {
+        LoginUserState state = new LoginUserState(1844674407370955161L, UserConstant.ADMIN_ROLE, 7L);
+        String token = authTokenManager.createToken(state);
+        Assertions.assertEquals(state, authTokenManager.parseToken(token, false));
+        // 篡改签名
+        String tamperedToken = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        Assertions.assertNull(authTokenManager.parseToken(tamperedToken, false));
+        Assertions.assertNull(authTokenManager.parseToken("not-a-token", false));
+    }
+
+    @Test
+    void loginRevokeAndRefresh() {
+        User user = new User();
+        user.setId(300L);
+        user.setUserAccount("gallery");
+        user.setUserRole(UserConstant.ADMIN_ROLE);
+        Mockito.when(userMapper.selectOne(ArgumentMatchers.any())).thenReturn(user);
+        Mockito.when(userMapper.selectById(300L)).thenReturn(user);
+        LoginUserVO loginUserVO = userService.userLogin("gallery", "12345678", new MockHttpServletRequest());
+        Assertions.assertNotNull(loginUserVO.getToken());
+
+        // 带令牌访问，不创建会话
+        MockHttpServletRequest request = newRequest(loginUserVO.getToken());
+        Assertions.assertEquals(300L, userService.getLoginUser(request).getId());
+        Assertions.assertTrue(userService.isAdmin(request));
+        Assertions.assertNull(request.getSession(false));
+
+        // 版本一致时可以刷新
+        LoginUserVO refreshedVO = userService.refreshToken(newRequest(loginUserVO.getToken()));
+        Assertions.assertTrue(userService.isAdmin(newRequest(refreshedVO.getToken())));
+
+        // 注销吊销该用户的全部令牌，吊销的令牌也不能刷新
+        Assertions.assertTrue(userService.userLogout(newRequest(refreshedVO.getToken())));
+        Assertions.assertNull(userService.getLoginUserPermitNull(newRequest(refreshedVO.getToken())));
+        assertNotLogin(() -> userService.refreshToken(newRequest(refreshedVO.getToken())));
+
+        // 角色变更后旧令牌立即失效，需要重新登录拿到新角色的令牌
+        loginUserVO = userService.userLogin("gallery", "12345678", new MockHttpServletRequest());
+        String adminToken = loginUserVO.getToken();
+        User demotedUser = new User();
+        demotedUser.setId(300L);
+        demotedUser.setUserRole(UserConstant.DEFAULT_ROLE);
+        Mockito.when(userMapper.selectById(300L)).thenReturn(demotedUser);
+        loginUserCacheManager.invalidate(300L);
+        Assertions.assertNull(userService.getLoginUserPermitNull(newRequest(adminToken)));
+        assertNotLogin(() -> userService.refreshToken(newRequest(adminToken)));
+    }
+
+    @Test
+    void refuseWeakSecret() {
+        String secret = userAuthConfig.getTokenSecret();
+        try {
+            userAuthConfig.setTokenSecret("gallery-token-secret");
+            Assertions.assertThrows(IllegalStateException.class, () -> authTokenManager.init());
+            userAuthConfig.setTokenSecret(null);
+            Assertions.assertThrows(IllegalStateException.class, () -> authTokenManager.init());
+        } finally {
+            userAuthConfig.setTokenSecret(secret);
+            userAuthConfig.setMode(UserAuthModeEnum.SESSION.getValue());
+            authTokenManager.init();
+        }
+    }
+
+    private void assertNotLogin(Executable executable) {
+        BusinessException exception = Assertions.assertThrows(BusinessException.class, executable);
+        Assertions.assertEquals(ErrorCode.NOT_LOGIN_ERROR.getCode(), exception.getCode());
+    }
+
+    private MockHttpServletRequest newRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,201 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.img.ImgUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.config.PictureUploadConfig;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.model.dto.file.UploadPictureResult;
+import com.da.gallery.model.enums.PictureUploadModeEnum;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PutObjectResult;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.annotation.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * 文件上传测试（对象存储使用 Mock，仅比较本地处理开销）
+ */
+class FileManagerTest extends BaseSpringBootTest {
+
+    private static final int ROUNDS = 50;
+
+    @Resource
+    private FileManager fileManager;
+
+    @Resource
+    private PictureUploadConfig pictureUploadConfig;
+
+    private String originMode;
+
+    private HttpServer httpServer;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 本地 HTTP 服务，模拟按 URL 导入的图片源站
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        byte[] picture = mockPicture().getBytes();
+        httpServer.createContext("/demo.png", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            boolean head = "HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(200, head ? -1 : picture.length);
+            if (!head) {
+                exchange.getResponseBody().write(picture);
+            }
+            exchange.close();
+        });
+        // HEAD 声称很小，GET 却以 chunked 方式返回超过 2M 的数据
+        httpServer.createContext("/huge.png", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", "1024");
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                byte[] chunk = new byte[64 * 1024];
+                for (int i = 0; i < 64; i++) {
+                    outputStream.write(chunk);
+                }
+            } catch (IOException e) {
+                // 客户端超限后主动断开
+            }
+        });
+        httpServer.createContext("/demo.txt", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        httpServer.start();
+        baseUrl = "http://127.0.0.1:" + httpServer.getAddress().getPort();
+
+        originMode = pictureUploadConfig.getMode();
+        // 测试服务监听在回环地址
+        pictureUploadConfig.setUrlAllowPrivateAddress(true);
+        Mockito.when(cosManager.putObject(ArgumentMatchers.anyString(), ArgumentMatchers.any(File.class)))
+                .thenAnswer(invocation -> mockPutResult(FileUtil.readBytes((File) invocation.getArgument(1))));
+        Mockito.when(cosManager.putObject(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class),
+                        ArgumentMatchers.any(ObjectMetadata.class)))
+                .thenAnswer(invocation -> mockPutResult(IoUtil.readBytes((InputStream) invocation.getArgument(1), false)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpServer.stop(0);
+        pictureUploadConfig.setMode(originMode);
+        pictureUploadConfig.setUrlAllowPrivateAddress(false);
+    }
+
+    @Test
+    void uploadPictureByStream() {
+        pictureUploadConfig.setMode(PictureUploadModeEnum.STREAM.getValue());
+        MockMultipartFile multipartFile = mockPicture();
+        UploadPictureResult result = fileManager.uploadPicture(multipartFile, "test");
+        Assertions.assertEquals(multipartFile.getSize(), result.getPicSize());
+        Assertions.assertEquals("demo", result.getName());
+        Assertions.assertEquals(800, result.getPicWidth());
+        Assertions.assertEquals(600, result.getPicHeight());
+        Assertions.assertEquals("png", result.getPicFormat());
+    }
+
+    @Test
+    void uploadPictureDeduplicated() throws IOException {
+        pictureUploadConfig.setMode(PictureUploadModeEnum.STREAM.getValue());
+        MockMultipartFile multipartFile = mockPicture();
+        String contentHash = DigestUtil.sha256Hex(multipartFile.getBytes());
+        UploadPictureResult result = fileManager.uploadPicture(multipartFile, "test", hash -> null);
+        Assertions.assertEquals(contentHash, result.getContentHash());
+        // 命中去重时不上传，直接返回已有图片
+        Mockito.clearInvocations(cosManager);
+        UploadPictureResult duplicateResult = new UploadPictureResult();
+        duplicateResult.setUrl("https://example.com/public/1/exist.png");
+        result = fileManager.uploadPicture(multipartFile, "test",
+                hash -> contentHash.equals(hash) ? duplicateResult : null);
+        Assertions.assertSame(duplicateResult, result);
+        Assertions.assertEquals(contentHash, result.getContentHash());
+        Mockito.verifyNoInteractions(cosManager);
+    }
+
+    @Test
+    void uploadPictureByUrl() {
+        byte[] bytes = fileManager.downloadPicture(baseUrl + "/demo.png");
+        UploadPictureResult result = fileManager.uploadPicture(bytes, "demo.png", "test");
+        Assertions.assertEquals(bytes.length, result.getPicSize());
+        Assertions.assertEquals(800, result.getPicWidth());
+        Assertions.assertTrue(result.getUrl().endsWith(".png"));
+    }
+
+    @Test
+    void downloadPictureRejectInvalid() {
+        // 实际内容超过 2M 时中断下载
+        BusinessException e = Assertions.assertThrows(BusinessException.class,
+                () -> fileManager.downloadPicture(baseUrl + "/huge.png"));
+        Assertions.assertEquals("文件大小不能超过 2M", e.getMessage());
+        Assertions.assertThrows(BusinessException.class, () -> fileManager.downloadPicture(baseUrl + "/demo.txt"));
+        Assertions.assertThrows(BusinessException.class, () -> fileManager.downloadPicture("ftp://127.0.0.1/demo.png"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareUploadMode() {
+        MockMultipartFile multipartFile = mockPicture();
+        Map<PictureUploadModeEnum, Long> costMap = new EnumMap<>(PictureUploadModeEnum.class);
+        for (PictureUploadModeEnum modeEnum : PictureUploadModeEnum.values()) {
+            pictureUploadConfig.setMode(modeEnum.getValue());
+            // 预热
+            fileManager.uploadPicture(multipartFile, "test");
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                fileManager.uploadPicture(multipartFile, "test");
+            }
+            costMap.put(modeEnum, System.nanoTime() - start);
+        }
+        // 流式上传省去了临时文件的写入和读取，不应明显慢于临时文件
+        Assertions.assertTrue(costMap.get(PictureUploadModeEnum.STREAM) < costMap.get(PictureUploadModeEnum.FILE) * 1.5);
+    }
+
+    /**
+     * 生成约 1.4 MB 的随机噪点 PNG
+     */
+    private MockMultipartFile mockPicture() {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, RandomUtil.randomInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImgUtil.write(image, "png", outputStream);
+        return new MockMultipartFile("file", "demo.png", "image/png", outputStream.toByteArray());
+    }
+
+    private PutObjectResult mockPutResult(byte[] bytes) {
+        PutObjectResult putObjectResult = new PutObjectResult();
+        putObjectResult.setETag(DigestUtil.md5Hex(bytes));
+        return putObjectResult;
+    }
+}
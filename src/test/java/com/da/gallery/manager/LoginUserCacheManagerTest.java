@@ -0,0 +1,87 @@
+package com.da.gallery.manager;
+
+import com.da.gallery.config.DistributedCacheConfig;
+import com.da.gallery.config.UserCacheConfig;
+import com.da.gallery.constant.UserConstant;
+import com.da.gallery.manager.cache.DistributedCache;
+import com.da.gallery.manager.cache.LocalDistributedCache;
+import com.da.gallery.mapper.UserMapper;
+import com.da.gallery.model.dto.user.LoginUserState;
+import com.da.gallery.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 登录用户缓存测试（数据库使用 Mock）
+ */
+class LoginUserCacheManagerTest {
+
+    private LoginUserCacheManager loginUserCacheManager;
+
+    private UserMapper userMapper;
+
+    @BeforeEach
+    void setUp() {
+        userMapper = Mockito.mock(UserMapper.class);
+        LocalDistributedCache distributedCache = new LocalDistributedCache();
+        ReflectionTestUtils.setField(distributedCache, "distributedCacheConfig", new DistributedCacheConfig());
+        loginUserCacheManager = new LoginUserCacheManager();
+        ReflectionTestUtils.setField(loginUserCacheManager, "userCacheConfig", new UserCacheConfig());
+        ReflectionTestUtils.setField(loginUserCacheManager, "userMapper", userMapper);
+        ReflectionTestUtils.setField(loginUserCacheManager, "distributedCache", distributedCache);
+        ReflectionTestUtils.setField(loginUserCacheManager, "meterRegistry", new SimpleMeterRegistry());
+        loginUserCacheManager.init();
+    }
+
+    @Test
+    void getUser() {
+        User user = mockUser(100L, UserConstant.DEFAULT_ROLE);
+        LoginUserState state = loginUserCacheManager.createState(user);
+        // 登录后直接命中缓存，不查数据库
+        Assertions.assertEquals(UserConstant.DEFAULT_ROLE, loginUserCacheManager.getUser(state).getUserRole());
+        Mockito.verify(userMapper, Mockito.never()).selectById(100L);
+
+        // 封禁后版本自增，重新查询
+        long version = state.getVersion();
+        Mockito.when(userMapper.selectById(100L)).thenReturn(mockUser(100L, UserConstant.BAN_ROLE));
+        loginUserCacheManager.invalidate(100L);
+        Assertions.assertEquals(UserConstant.BAN_ROLE, loginUserCacheManager.getUser(state).getUserRole());
+        Mockito.verify(userMapper, Mockito.times(1)).selectById(100L);
+        Assertions.assertEquals(version + 1, state.getVersion());
+
+        // 会话版本比本地缓存新（错过失效通知）时也重新查询
+        state.setVersion(state.getVersion() + 1);
+        Assertions.assertEquals(UserConstant.BAN_ROLE, loginUserCacheManager.getUser(state).getUserRole());
+        Mockito.verify(userMapper, Mockito.times(2)).selectById(100L);
+
+        // 用户删除后返回 null
+        Mockito.when(userMapper.selectById(100L)).thenReturn(null);
+        loginUserCacheManager.invalidate(100L);
+        Assertions.assertNull(loginUserCacheManager.getUser(state));
+    }
+
+    @Test
+    void invalidateWhenCacheDown() {
+        User user = mockUser(200L, UserConstant.DEFAULT_ROLE);
+        LoginUserState state = loginUserCacheManager.createState(user);
+        DistributedCache brokenCache = Mockito.mock(DistributedCache.class);
+        Mockito.when(brokenCache.increment(ArgumentMatchers.anyString())).thenThrow(new IllegalStateException("down"));
+        ReflectionTestUtils.setField(loginUserCacheManager, "distributedCache", brokenCache);
+        // 分布式缓存失败不影响用户更新，本节点缓存仍然失效
+        Mockito.when(userMapper.selectById(200L)).thenReturn(mockUser(200L, UserConstant.BAN_ROLE));
+        Assertions.assertDoesNotThrow(() -> loginUserCacheManager.invalidate(200L));
+        Assertions.assertEquals(UserConstant.BAN_ROLE, loginUserCacheManager.getUser(state).getUserRole());
+    }
+
+    private User mockUser(Long id, String userRole) {
+        User user = new User();
+        user.setId(id);
+        user.setUserRole(userRole);
+        return user;
+    }
+}
@@ -0,0 +1,115 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.img.ImgUtil;
+import cn.hutool.core.util.RandomUtil;
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.config.PictureUploadConfig;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.model.dto.file.UploadPictureResult;
+import com.da.gallery.model.vo.PictureMultipartUploadVO;
+import com.qcloud.cos.model.PartETag;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * 分片上传测试（对象存储使用 Mock）
+ */
+class MultipartUploadManagerTest extends BaseSpringBootTest {
+
+    private static final long USER_ID = 1L;
+
+    private static final int PART_SIZE = 1024 * 1024;
+
+    @Resource
+    private MultipartUploadManager multipartUploadManager;
+
+    @Resource
+    private PictureUploadConfig pictureUploadConfig;
+
+    private long originPartSize;
+
+    @BeforeEach
+    void setUp() {
+        originPartSize = pictureUploadConfig.getMultipart().getPartSize();
+        pictureUploadConfig.getMultipart().setPartSize(PART_SIZE);
+        Mockito.when(cosManager.initiateMultipartUpload(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> RandomUtil.randomString(16));
+        Mockito.when(cosManager.uploadPart(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+                        ArgumentMatchers.anyInt(), ArgumentMatchers.any(InputStream.class), ArgumentMatchers.anyLong()))
+                .thenAnswer(invocation -> new PartETag(invocation.getArgument(2), RandomUtil.randomString(32)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pictureUploadConfig.getMultipart().setPartSize(originPartSize);
+    }
+
+    @Test
+    void uploadAndResume() throws Exception {
+        byte[] bytes = mockPicture(PART_SIZE * 2 + 1000);
+        PictureMultipartUploadVO uploadVO = multipartUploadManager.initUpload("big.png", bytes.length, "test",
+                USER_ID, null);
+        Assertions.assertEquals(3, uploadVO.getPartCount());
+        String uploadId = uploadVO.getUploadId();
+        multipartUploadManager.uploadPart(uploadId, 1, part(bytes, 1), USER_ID);
+        multipartUploadManager.uploadPart(uploadId, 3, part(bytes, 3), USER_ID);
+        // 分片 2 缺失，不能完成
+        Assertions.assertThrows(BusinessException.class, () -> multipartUploadManager.completeUpload(uploadId, USER_ID));
+        waitForParts(uploadId, Arrays.asList(1, 3));
+        // 断点续传：重复上传已确认的分片不会再次写入对象存储
+        multipartUploadManager.uploadPart(uploadId, 1, part(bytes, 1), USER_ID);
+        multipartUploadManager.uploadPart(uploadId, 2, part(bytes, 2), USER_ID);
+        UploadPictureResult result = multipartUploadManager.completeUpload(uploadId, USER_ID);
+        Assertions.assertEquals(bytes.length, result.getPicSize());
+        Assertions.assertEquals(2000, result.getPicWidth());
+        Mockito.verify(cosManager, Mockito.times(1)).uploadPart(ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(uploadId), ArgumentMatchers.eq(1), ArgumentMatchers.any(InputStream.class),
+                ArgumentMatchers.anyLong());
+        Mockito.verify(cosManager).completeMultipartUpload(ArgumentMatchers.anyString(), ArgumentMatchers.eq(uploadId),
+                ArgumentMatchers.argThat(list -> list.size() == 3));
+    }
+
+    @Test
+    void rejectOtherUser() {
+        PictureMultipartUploadVO uploadVO = multipartUploadManager.initUpload("big.png", PART_SIZE, "test",
+                USER_ID, null);
+        Assertions.assertThrows(BusinessException.class,
+                () -> multipartUploadManager.getUploadStatus(uploadVO.getUploadId(), USER_ID + 1));
+    }
+
+    private void waitForParts(String uploadId, List<Integer> partList) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (multipartUploadManager.getUploadStatus(uploadId, USER_ID).getUploadedPartList().equals(partList)) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        Assertions.fail("parts not acknowledged: " + partList);
+    }
+
+    private MockMultipartFile part(byte[] bytes, int partNumber) {
+        int from = (partNumber - 1) * PART_SIZE;
+        int to = Math.min(bytes.length, from + PART_SIZE);
+        return new MockMultipartFile("file", Arrays.copyOfRange(bytes, from, to));
+    }
+
+    /**
+     * 生成指定大小的 PNG（在图片数据后补齐字节，解析文件头不受影响）
+     */
+    private byte[] mockPicture(int size) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImgUtil.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        return Arrays.copyOf(outputStream.toByteArray(), size);
+    }
+}
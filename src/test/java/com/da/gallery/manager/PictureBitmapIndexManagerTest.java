@@ -0,0 +1,112 @@
+package com.da.gallery.manager;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.constant.CommonConstant;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import com.da.gallery.model.enums.PictureTagMatchModeEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 位图索引测试（数据库使用 Mock）
+ */
+class PictureBitmapIndexManagerTest {
+
+    private PictureBitmapIndexManager pictureBitmapIndexManager;
+
+    private PictureMapper pictureMapper;
+
+    @BeforeEach
+    void setUp() {
+        pictureMapper = Mockito.mock(PictureMapper.class);
+        pictureBitmapIndexManager = new PictureBitmapIndexManager();
+        ReflectionTestUtils.setField(pictureBitmapIndexManager, "pictureMapper", pictureMapper);
+        ReflectionTestUtils.setField(pictureBitmapIndexManager, "pictureQueryConfig", new PictureQueryConfig());
+        ReflectionTestUtils.setField(pictureBitmapIndexManager, "meterRegistry", new SimpleMeterRegistry());
+        pictureBitmapIndexManager.init();
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any())).thenReturn(Arrays.asList(
+                mockPicture(1L, "风景", "[\"山\",\"水\"]", "png"),
+                mockPicture(2L, "风景", "[\"山\"]", "jpg"),
+                mockPicture(3L, "人像", "[\"水\"]", "png"),
+                mockPicture(1L << 40, "风景", "[\"山\",\"水\"]", "png")));
+        pictureBitmapIndexManager.rebuild();
+    }
+
+    @Test
+    void pagePictureIds() {
+        PictureQueryRequest pictureQueryRequest = newQueryRequest();
+        pictureQueryRequest.setCategory("风景");
+        pictureQueryRequest.setTagList(Arrays.asList("山", "水"));
+        Page<Long> idPage = pictureBitmapIndexManager.pagePictureIds(pictureQueryRequest);
+        Assertions.assertEquals(2, idPage.getTotal());
+        Assertions.assertEquals(Arrays.asList(1L, 1L << 40), idPage.getRecords());
+
+        // 任一标签 + 格式，按 id 倒序分页
+        pictureQueryRequest = newQueryRequest();
+        pictureQueryRequest.setTagList(Arrays.asList("山", "水"));
+        pictureQueryRequest.setTagMatchMode(PictureTagMatchModeEnum.OR.getValue());
+        pictureQueryRequest.setPicFormat("png");
+        pictureQueryRequest.setSortField("createTime");
+        pictureQueryRequest.setSortOrder(CommonConstant.SORT_ORDER_DESC);
+        pictureQueryRequest.setPageSize(2);
+        pictureQueryRequest.setCurrent(2);
+        idPage = pictureBitmapIndexManager.pagePictureIds(pictureQueryRequest);
+        Assertions.assertEquals(3, idPage.getTotal());
+        Assertions.assertEquals(Collections.singletonList(1L), idPage.getRecords());
+
+        // 其他条件无法由索引回答
+        pictureQueryRequest.setName("山");
+        Assertions.assertNull(pictureBitmapIndexManager.pagePictureIds(pictureQueryRequest));
+        Assertions.assertTrue(pictureBitmapIndexManager.getMemoryBytes() > 0);
+    }
+
+    @Test
+    void reindex() {
+        // 审核驳回后移出索引
+        Picture rejectPicture = mockPicture(2L, "风景", "[\"山\"]", "jpg");
+        rejectPicture.setReviewStatus(PictureReviewStatusEnum.REJECT.getValue());
+        Mockito.when(pictureMapper.selectOne(ArgumentMatchers.any())).thenReturn(rejectPicture);
+        pictureBitmapIndexManager.onPictureChanged(Collections.singletonList(2L));
+        PictureQueryRequest pictureQueryRequest = newQueryRequest();
+        pictureQueryRequest.setTagList(Collections.singletonList("山"));
+        Assertions.assertEquals(Arrays.asList(1L, 1L << 40),
+                pictureBitmapIndexManager.pagePictureIds(pictureQueryRequest).getRecords());
+
+        // 编辑分类后移动到新分类
+        Mockito.when(pictureMapper.selectOne(ArgumentMatchers.any())).thenReturn(mockPicture(3L, "动物", null, "png"));
+        pictureBitmapIndexManager.onPictureChanged(Collections.singletonList(3L));
+        pictureQueryRequest = newQueryRequest();
+        pictureQueryRequest.setCategory("动物");
+        Assertions.assertEquals(Collections.singletonList(3L),
+                pictureBitmapIndexManager.pagePictureIds(pictureQueryRequest).getRecords());
+        pictureQueryRequest.setCategory("人像");
+        Assertions.assertEquals(0, pictureBitmapIndexManager.pagePictureIds(pictureQueryRequest).getTotal());
+    }
+
+    private PictureQueryRequest newQueryRequest() {
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        return pictureQueryRequest;
+    }
+
+    private Picture mockPicture(Long id, String category, String tags, String picFormat) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setCategory(category);
+        picture.setTags(tags);
+        picture.setPicFormat(picFormat);
+        picture.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        return picture;
+    }
+}
@@ -0,0 +1,82 @@
+package com.da.gallery.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.enums.PictureTotalModeEnum;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 图片分页总数缓存测试
+ */
+class PictureCountManagerTest {
+
+    private PictureCountManager pictureCountManager;
+
+    private AtomicInteger countTimes;
+
+    private Supplier<Long> counter;
+
+    @BeforeEach
+    void setUp() {
+        pictureCountManager = new PictureCountManager();
+        ReflectionTestUtils.setField(pictureCountManager, "pictureQueryConfig", new PictureQueryConfig());
+        pictureCountManager.init();
+        countTimes = new AtomicInteger();
+        counter = () -> {
+            countTimes.incrementAndGet();
+            return 42L;
+        };
+    }
+
+    @Test
+    void approximateUsesPlanEstimate() {
+        QueryWrapper<Picture> queryWrapper = new QueryWrapper<Picture>().eq("category", "large");
+        long total = pictureCountManager.count("picture", queryWrapper, PictureTotalModeEnum.APPROXIMATE, counter,
+                () -> plan(200000L, 50.0));
+        Assertions.assertEquals(100000, total);
+        Assertions.assertEquals(0, countTimes.get());
+    }
+
+    @Test
+    void approximateCountsSmallSetExactly() {
+        QueryWrapper<Picture> queryWrapper = new QueryWrapper<Picture>().eq("category", "small");
+        long total = pictureCountManager.count("picture", queryWrapper, PictureTotalModeEnum.APPROXIMATE, counter,
+                () -> plan(300L, 100.0));
+        Assertions.assertEquals(42, total);
+        Assertions.assertEquals(1, countTimes.get());
+        // 无法估算时同样精确统计
+        queryWrapper = new QueryWrapper<Picture>().eq("category", "unknown");
+        total = pictureCountManager.count("picture", queryWrapper, PictureTotalModeEnum.APPROXIMATE, counter,
+                Collections::emptyList);
+        Assertions.assertEquals(42, total);
+        Assertions.assertEquals(2, countTimes.get());
+    }
+
+    @Test
+    void cachedInvalidate() {
+        QueryWrapper<Picture> queryWrapper = new QueryWrapper<Picture>().eq("category", "cached");
+        pictureCountManager.count("picture", queryWrapper, PictureTotalModeEnum.CACHED, counter, null);
+        pictureCountManager.count("picture", queryWrapper, PictureTotalModeEnum.CACHED, counter, null);
+        Assertions.assertEquals(1, countTimes.get());
+        pictureCountManager.invalidate();
+        pictureCountManager.count("picture", queryWrapper, PictureTotalModeEnum.CACHED, counter, null);
+        Assertions.assertEquals(2, countTimes.get());
+    }
+
+    private static List<Map<String, Object>> plan(long rows, double filtered) {
+        Map<String, Object> plan = new HashMap<>();
+        plan.put("rows", rows);
+        plan.put("filtered", filtered);
+        return Collections.singletonList(plan);
+    }
+}
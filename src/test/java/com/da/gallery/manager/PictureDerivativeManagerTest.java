@@ -0,0 +1,108 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.img.ImgUtil;
+import cn.hutool.core.io.IoUtil;
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.config.CosClientConfig;
+import com.da.gallery.model.entity.Picture;
+import com.qcloud.cos.model.COSObject;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PutObjectResult;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Resource;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * 衍生图生成测试（对象存储和数据库使用 Mock）
+ */
+class PictureDerivativeManagerTest extends BaseSpringBootTest {
+
+    @Resource
+    private PictureDerivativeManager pictureDerivativeManager;
+
+    @Resource
+    private CosClientConfig cosClientConfig;
+
+    @Test
+    void generate() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImgUtil.write(new BufferedImage(3000, 1500, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        COSObject cosObject = new COSObject();
+        cosObject.setObjectContent(new ByteArrayInputStream(outputStream.toByteArray()));
+        Mockito.when(cosManager.getObject("/public/1/demo.png")).thenReturn(cosObject);
+        Map<String, byte[]> putMap = new HashMap<>();
+        Mockito.when(cosManager.putObject(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class),
+                        ArgumentMatchers.any(ObjectMetadata.class)))
+                .thenAnswer(invocation -> {
+                    putMap.put(invocation.getArgument(0), IoUtil.readBytes((InputStream) invocation.getArgument(1)));
+                    return new PutObjectResult();
+                });
+
+        String url = cosClientConfig.getHost() + "//public/1/demo.png";
+        pictureDerivativeManager.generate(1L, url);
+
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(putMap.get("/public/1/demo_thumbnail.jpg")));
+        Assertions.assertEquals(256, thumbnail.getWidth());
+        Assertions.assertEquals(128, thumbnail.getHeight());
+        // 压缩图编码为 WebP
+        BufferedImage compress = ImageIO.read(new ByteArrayInputStream(putMap.get("/public/1/demo_compress.webp")));
+        Assertions.assertEquals(1920, compress.getWidth());
+        ArgumentCaptor<Picture> captor = ArgumentCaptor.forClass(Picture.class);
+        Mockito.verify(pictureMapper).update(captor.capture(), ArgumentMatchers.any());
+        Assertions.assertEquals(cosClientConfig.getHost() + "//public/1/demo_thumbnail.jpg",
+                captor.getValue().getThumbnailUrl());
+        Assertions.assertEquals(cosClientConfig.getHost() + "//public/1/demo_compress.webp",
+                captor.getValue().getCompressUrl());
+    }
+
+    @Test
+    void generateSkipTooLarge() {
+        // 只有文件头的超大 PNG：按文件头宽高跳过，不解码
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImgUtil.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        byte[] bytes = outputStream.toByteArray();
+        // IHDR 的宽高位于第 16 ~ 23 字节，改为 10000 x 10000
+        for (int offset : new int[]{16, 20}) {
+            bytes[offset] = 0;
+            bytes[offset + 1] = 0;
+            bytes[offset + 2] = (byte) 0x27;
+            bytes[offset + 3] = (byte) 0x10;
+        }
+        COSObject cosObject = new COSObject();
+        cosObject.setObjectContent(new ByteArrayInputStream(bytes));
+        Mockito.when(cosManager.getObject("/public/1/huge.png")).thenReturn(cosObject);
+
+        pictureDerivativeManager.generate(1L, cosClientConfig.getHost() + "//public/1/huge.png");
+
+        Mockito.verify(cosManager, Mockito.never()).putObject(ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(InputStream.class), ArgumentMatchers.any(ObjectMetadata.class));
+        Mockito.verify(pictureMapper, Mockito.never()).update(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    void generateReusesExisting() {
+        // 秒传复用的原图已有衍生图：直接回写，不再重新生成覆盖同名文件
+        Picture existing = new Picture();
+        existing.setThumbnailUrl(cosClientConfig.getHost() + "//public/1/same_thumbnail.jpg");
+        existing.setCompressUrl(cosClientConfig.getHost() + "//public/1/same_compress.webp");
+        Mockito.when(pictureMapper.selectOne(ArgumentMatchers.any())).thenReturn(existing);
+
+        pictureDerivativeManager.generate(2L, cosClientConfig.getHost() + "//public/1/same.png");
+
+        Mockito.verify(cosManager, Mockito.never()).getObject(ArgumentMatchers.anyString());
+        ArgumentCaptor<Picture> captor = ArgumentCaptor.forClass(Picture.class);
+        Mockito.verify(pictureMapper).update(captor.capture(), ArgumentMatchers.any());
+        Assertions.assertEquals(existing.getThumbnailUrl(), captor.getValue().getThumbnailUrl());
+        Assertions.assertEquals(existing.getCompressUrl(), captor.getValue().getCompressUrl());
+    }
+}
@@ -0,0 +1,43 @@
+package com.da.gallery.manager;
+
+import com.da.gallery.config.DistributedCacheConfig;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.manager.cache.LocalDistributedCache;
+import com.da.gallery.model.entity.Picture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 图片详情缓存测试
+ */
+class PictureDetailCacheManagerTest {
+
+    @Test
+    void getReturnsCopy() {
+        LocalDistributedCache distributedCache = new LocalDistributedCache();
+        ReflectionTestUtils.setField(distributedCache, "distributedCacheConfig", new DistributedCacheConfig());
+        PictureDetailCacheManager pictureDetailCacheManager = new PictureDetailCacheManager();
+        ReflectionTestUtils.setField(pictureDetailCacheManager, "pictureQueryConfig", new PictureQueryConfig());
+        ReflectionTestUtils.setField(pictureDetailCacheManager, "distributedCache", distributedCache);
+        ReflectionTestUtils.setField(pictureDetailCacheManager, "meterRegistry", new SimpleMeterRegistry());
+        pictureDetailCacheManager.init();
+        AtomicInteger loadTimes = new AtomicInteger();
+
+        Picture picture = pictureDetailCacheManager.get(1L, id -> {
+            loadTimes.incrementAndGet();
+            Picture loaded = new Picture();
+            loaded.setId(id);
+            loaded.setName("cached");
+            return loaded;
+        });
+        picture.setName("changed");
+        // 调用方修改返回值不影响缓存
+        Picture again = pictureDetailCacheManager.get(1L, id -> null);
+        Assertions.assertEquals("cached", again.getName());
+        Assertions.assertNotSame(picture, again);
+        Assertions.assertEquals(1, loadTimes.get());
+    }
+}
@@ -0,0 +1,159 @@
+package com.da.gallery.manager;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.config.DistributedCacheConfig;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.constant.CommonConstant;
+import com.da.gallery.manager.cache.LocalDistributedCache;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 最新图片信息流测试（数据库使用 Mock，缓存使用本地实现）
+ */
+class PictureFeedManagerTest {
+
+    private PictureFeedManager pictureFeedManager;
+
+    private PictureMapper pictureMapper;
+
+    private LocalDistributedCache distributedCache;
+
+    @BeforeEach
+    void setUp() {
+        pictureMapper = Mockito.mock(PictureMapper.class);
+        distributedCache = new LocalDistributedCache();
+        ReflectionTestUtils.setField(distributedCache, "distributedCacheConfig", new DistributedCacheConfig());
+        pictureFeedManager = new PictureFeedManager();
+        ReflectionTestUtils.setField(pictureFeedManager, "pictureMapper", pictureMapper);
+        ReflectionTestUtils.setField(pictureFeedManager, "pictureQueryConfig", new PictureQueryConfig());
+        ReflectionTestUtils.setField(pictureFeedManager, "distributedCache", distributedCache);
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any())).thenReturn(Arrays.asList(
+                mockPicture(1L, "风景", 1000),
+                mockPicture(2L, "人像", 2000),
+                mockPicture(3L, "风景", 2000),
+                mockPicture(4L, null, 3000)));
+        Assertions.assertTrue(pictureFeedManager.rebuild());
+    }
+
+    @Test
+    void pagePictureIds() {
+        PictureQueryRequest pictureQueryRequest = newQueryRequest();
+        pictureQueryRequest.setPageSize(3);
+        Page<Long> idPage = pictureFeedManager.pagePictureIds(pictureQueryRequest);
+        Assertions.assertEquals(4, idPage.getTotal());
+        // 创建时间相同时 id 大的在前
+        Assertions.assertEquals(Arrays.asList(4L, 3L, 2L), idPage.getRecords());
+
+        pictureQueryRequest.setCategory("风景");
+        idPage = pictureFeedManager.pagePictureIds(pictureQueryRequest);
+        Assertions.assertEquals(Arrays.asList(3L, 1L), idPage.getRecords());
+
+        // 其他排序、条件无法由信息流回答
+        pictureQueryRequest.setSortOrder(CommonConstant.SORT_ORDER_ASC);
+        Assertions.assertNull(pictureFeedManager.pagePictureIds(pictureQueryRequest));
+        pictureQueryRequest = newQueryRequest();
+        pictureQueryRequest.setTagList(Collections.singletonList("山"));
+        Assertions.assertNull(pictureFeedManager.pagePictureIds(pictureQueryRequest));
+    }
+
+    @Test
+    void listPictureIdsByCursor() {
+        PictureQueryRequest pictureQueryRequest = newQueryRequest();
+        Assertions.assertEquals(Arrays.asList(4L, 3L),
+                pictureFeedManager.listPictureIdsByCursor(pictureQueryRequest, null, null, 2));
+        // 从 (2000, 3) 之后继续，跳过同一时刻 id 更大的成员
+        Assertions.assertEquals(Arrays.asList(2L, 1L),
+                pictureFeedManager.listPictureIdsByCursor(pictureQueryRequest, new Date(2000), 3L, 2));
+        Assertions.assertEquals(Collections.emptyList(),
+                pictureFeedManager.listPictureIdsByCursor(pictureQueryRequest, new Date(1000), 1L, 2));
+    }
+
+    @Test
+    void onPictureChanged() {
+        // 审核驳回后移出信息流
+        Picture rejectPicture = mockPicture(3L, "风景", 2000);
+        rejectPicture.setReviewStatus(PictureReviewStatusEnum.REJECT.getValue());
+        Mockito.when(pictureMapper.selectOne(ArgumentMatchers.any())).thenReturn(rejectPicture);
+        pictureFeedManager.onPictureChanged(Collections.singletonList(3L));
+        PictureQueryRequest pictureQueryRequest = newQueryRequest();
+        Assertions.assertEquals(Arrays.asList(4L, 2L, 1L),
+                pictureFeedManager.pagePictureIds(pictureQueryRequest).getRecords());
+
+        // 编辑分类后移动到新分类
+        Mockito.when(pictureMapper.selectOne(ArgumentMatchers.any())).thenReturn(mockPicture(1L, "人像", 1000));
+        pictureFeedManager.onPictureChanged(Collections.singletonList(1L));
+        pictureQueryRequest.setCategory("人像");
+        Assertions.assertEquals(Arrays.asList(2L, 1L),
+                pictureFeedManager.pagePictureIds(pictureQueryRequest).getRecords());
+        pictureQueryRequest.setCategory("风景");
+        Assertions.assertEquals(0, pictureFeedManager.pagePictureIds(pictureQueryRequest).getTotal());
+    }
+
+    @Test
+    void rebuildReplacesKeys() {
+        // 重建后没有图片的分类被移除，没有任何图片时清空信息流
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any())).thenReturn(Arrays.asList(
+                mockPicture(1L, "风景", 1000), mockPicture(3L, "风景", 2000)));
+        Assertions.assertTrue(pictureFeedManager.rebuild());
+        PictureQueryRequest pictureQueryRequest = newQueryRequest();
+        Assertions.assertEquals(Arrays.asList(3L, 1L),
+                pictureFeedManager.pagePictureIds(pictureQueryRequest).getRecords());
+        pictureQueryRequest.setCategory("人像");
+        Assertions.assertEquals(0, pictureFeedManager.pagePictureIds(pictureQueryRequest).getTotal());
+
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        Assertions.assertTrue(pictureFeedManager.rebuild());
+        Assertions.assertEquals(0, pictureFeedManager.pagePictureIds(newQueryRequest()).getTotal());
+    }
+
+    @Test
+    void rebuildKeepsOtherLock() {
+        // 重建超过锁的有效期，期间其他节点拿到了锁
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            distributedCache.delete("picture:feed:lock");
+            distributedCache.setIfAbsent("picture:feed:lock", "other", 60);
+            return Collections.emptyList();
+        });
+        Assertions.assertTrue(pictureFeedManager.rebuild());
+        Assertions.assertEquals("other", distributedCache.get("picture:feed:lock"));
+        Assertions.assertFalse(pictureFeedManager.rebuild());
+    }
+
+    @Test
+    void readyExpired() {
+        Assertions.assertNotNull(pictureFeedManager.pagePictureIds(newQueryRequest()));
+        // 重建完成标记过期后（重新检查时）退回数据库
+        distributedCache.delete("picture:feed:ready");
+        ReflectionTestUtils.setField(pictureFeedManager, "readyCheckTime", 0L);
+        Assertions.assertNull(pictureFeedManager.pagePictureIds(newQueryRequest()));
+    }
+
+    private PictureQueryRequest newQueryRequest() {
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        pictureQueryRequest.setSortField("createTime");
+        pictureQueryRequest.setSortOrder(CommonConstant.SORT_ORDER_DESC);
+        return pictureQueryRequest;
+    }
+
+    private Picture mockPicture(Long id, String category, long createTime) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setCategory(category);
+        picture.setCreateTime(new Date(createTime));
+        picture.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        return picture;
+    }
+}
@@ -0,0 +1,106 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.da.gallery.config.PictureStorageConfig;
+import com.da.gallery.manager.storage.LocalPictureStorage;
+import com.da.gallery.manager.storage.PictureStorage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 本地图片文件输出测试
+ */
+class PictureFileManagerTest {
+
+    private static final String KEY = "/public/1/demo.png";
+
+    private PictureFileManager pictureFileManager;
+
+    private PictureStorage pictureStorage;
+
+    private byte[] bytes;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        PictureStorageConfig pictureStorageConfig = new PictureStorageConfig();
+        pictureStorageConfig.getLocal().setRoot("target/test-file-storage");
+        LocalPictureStorage localPictureStorage = new LocalPictureStorage();
+        ReflectionTestUtils.setField(localPictureStorage, "pictureStorageConfig", pictureStorageConfig);
+        localPictureStorage.init();
+        pictureStorage = localPictureStorage;
+        pictureFileManager = new PictureFileManager();
+        ReflectionTestUtils.setField(pictureFileManager, "pictureStorage", pictureStorage);
+        ReflectionTestUtils.setField(pictureFileManager, "pictureStorageConfig", pictureStorageConfig);
+        bytes = RandomUtil.randomBytes(200 * 1024);
+        pictureStorage.put(KEY, new ByteArrayInputStream(bytes), bytes.length, "image/png");
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        FileUtil.del("target/test-file-storage");
+    }
+
+    @Test
+    void getFile() throws Exception {
+        MockHttpServletResponse response = get(null, null);
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertArrayEquals(bytes, response.getContentAsByteArray());
+        Assertions.assertEquals("\"" + DigestUtil.sha256Hex(bytes) + "\"", response.getHeader(HttpHeaders.ETAG));
+        Assertions.assertTrue(response.getHeader(HttpHeaders.CACHE_CONTROL).contains("max-age"));
+        Assertions.assertEquals("image/png", response.getContentType());
+    }
+
+    @Test
+    void getRange() throws Exception {
+        MockHttpServletResponse response = get(HttpHeaders.RANGE, "bytes=100-199");
+        Assertions.assertEquals(206, response.getStatus());
+        Assertions.assertEquals("bytes 100-199/" + bytes.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        Assertions.assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), response.getContentAsByteArray());
+        // 最后 10 个字节
+        response = get(HttpHeaders.RANGE, "bytes=-10");
+        Assertions.assertArrayEquals(Arrays.copyOfRange(bytes, bytes.length - 10, bytes.length),
+                response.getContentAsByteArray());
+        // 超出文件大小
+        response = get(HttpHeaders.RANGE, "bytes=" + bytes.length + "-");
+        Assertions.assertEquals(416, response.getStatus());
+    }
+
+    @Test
+    void notModified() throws Exception {
+        String eTag = get(null, null).getHeader(HttpHeaders.ETAG);
+        MockHttpServletResponse response = get(HttpHeaders.IF_NONE_MATCH, eTag);
+        Assertions.assertEquals(304, response.getStatus());
+        Assertions.assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void notFound() throws Exception {
+        Assertions.assertEquals(404, get("/public/1/none.png", null, null).getStatus());
+        Assertions.assertEquals(404, get("/.tmp/abc", null, null).getStatus());
+    }
+
+    private MockHttpServletResponse get(String header, String value) throws Exception {
+        return get(KEY, header, value);
+    }
+
+    private MockHttpServletResponse get(String key, String header, String value) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/picture/file" + key);
+        if (header != null) {
+            request.addHeader(header, value);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        pictureFileManager.writePictureFile(key, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,133 @@
+package com.da.gallery.manager;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.common.CursorPage;
+import com.da.gallery.config.DistributedCacheConfig;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.manager.cache.LocalDistributedCache;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.vo.PictureVO;
+import com.da.gallery.model.vo.UserVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 公开图片列表两级缓存测试（L2 使用本地内存实现）
+ */
+class PictureListCacheManagerTest {
+
+    private PictureListCacheManager pictureListCacheManager;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        LocalDistributedCache distributedCache = new LocalDistributedCache();
+        ReflectionTestUtils.setField(distributedCache, "distributedCacheConfig", new DistributedCacheConfig());
+        meterRegistry = new SimpleMeterRegistry();
+        pictureListCacheManager = new PictureListCacheManager();
+        ReflectionTestUtils.setField(pictureListCacheManager, "pictureQueryConfig", new PictureQueryConfig());
+        ReflectionTestUtils.setField(pictureListCacheManager, "distributedCache", distributedCache);
+        ReflectionTestUtils.setField(pictureListCacheManager, "meterRegistry", meterRegistry);
+        pictureListCacheManager.init();
+    }
+
+    @Test
+    void get() {
+        AtomicInteger loadCount = new AtomicInteger();
+        Supplier<Page<PictureVO>> loader = () -> {
+            loadCount.incrementAndGet();
+            Page<PictureVO> page = new Page<>(1, 10, 1);
+            page.setRecords(Collections.singletonList(mockPictureVO()));
+            return page;
+        };
+        PictureQueryRequest pictureQueryRequest = newQueryRequest("cache-get");
+        double localHit = getCount("l1", "hit");
+        double remoteHit = getCount("l2", "hit");
+
+        Page<PictureVO> page = pictureListCacheManager.get(pictureQueryRequest, loader);
+        Assertions.assertEquals(1, page.getTotal());
+        pictureListCacheManager.get(pictureQueryRequest, loader);
+        Assertions.assertEquals(1, loadCount.get());
+        Assertions.assertEquals(localHit + 1, getCount("l1", "hit"));
+
+        // 清空 L1 后从 L2 读取，反序列化后内容不变
+        pictureListCacheManager.invalidateLocal();
+        page = pictureListCacheManager.get(pictureQueryRequest, loader);
+        Assertions.assertEquals(1, loadCount.get());
+        Assertions.assertEquals(remoteHit + 1, getCount("l2", "hit"));
+        PictureVO pictureVO = page.getRecords().get(0);
+        Assertions.assertEquals(mockPictureVO().getTagList(), pictureVO.getTagList());
+        Assertions.assertEquals(1L << 60, pictureVO.getId());
+        Assertions.assertEquals("dada", pictureVO.getUserVO().getUserName());
+
+        // 失效后重新查询
+        pictureListCacheManager.invalidate();
+        pictureListCacheManager.get(pictureQueryRequest, loader);
+        Assertions.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void getCursorPage() {
+        Supplier<Page<PictureVO>> loader = () -> {
+            CursorPage<PictureVO> cursorPage = new CursorPage<>(1, 10);
+            cursorPage.setRecords(Collections.singletonList(mockPictureVO()));
+            cursorPage.setHasMore(true);
+            cursorPage.setNextCursor("next");
+            return cursorPage;
+        };
+        PictureQueryRequest pictureQueryRequest = newQueryRequest("cache-cursor");
+        pictureListCacheManager.get(pictureQueryRequest, loader);
+        pictureListCacheManager.invalidateLocal();
+        Page<PictureVO> page = pictureListCacheManager.get(pictureQueryRequest, () -> {
+            throw new IllegalStateException("should hit cache");
+        });
+        Assertions.assertTrue(page instanceof CursorPage);
+        Assertions.assertTrue(((CursorPage<PictureVO>) page).isHasMore());
+        Assertions.assertEquals("next", ((CursorPage<PictureVO>) page).getNextCursor());
+    }
+
+    @Test
+    void getCacheKey() {
+        PictureQueryRequest pictureQueryRequest = newQueryRequest("key");
+        pictureQueryRequest.setTagList(Arrays.asList("山", "水"));
+        PictureQueryRequest otherQueryRequest = newQueryRequest("key");
+        otherQueryRequest.setTagList(Arrays.asList(" 水", "山", "山"));
+        Assertions.assertEquals(pictureListCacheManager.getCacheKey(pictureQueryRequest),
+                pictureListCacheManager.getCacheKey(otherQueryRequest));
+        otherQueryRequest.setCurrent(2);
+        Assertions.assertNotEquals(pictureListCacheManager.getCacheKey(pictureQueryRequest),
+                pictureListCacheManager.getCacheKey(otherQueryRequest));
+    }
+
+    private double getCount(String layer, String result) {
+        return meterRegistry.counter("picture.list.cache", "layer", layer, "result", result).count();
+    }
+
+    private PictureQueryRequest newQueryRequest(String category) {
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setCategory(category);
+        return pictureQueryRequest;
+    }
+
+    private PictureVO mockPictureVO() {
+        PictureVO pictureVO = new PictureVO();
+        pictureVO.setId(1L << 60);
+        pictureVO.setName("日出");
+        pictureVO.setTagList(Arrays.asList("山", "水"));
+        pictureVO.setCreateTime(new Date(0));
+        UserVO userVO = new UserVO();
+        userVO.setUserName("dada");
+        pictureVO.setUserVO(userVO);
+        return pictureVO;
+    }
+}
@@ -0,0 +1,115 @@
+package com.da.gallery.manager;
+
+import cn.hutool.core.io.FileUtil;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.config.PictureSearchConfig;
+import com.da.gallery.mapper.PictureMapper;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 全文检索测试（数据库使用 Mock）
+ */
+class PictureSearchManagerTest {
+
+    private PictureSearchManager pictureSearchManager;
+
+    private PictureMapper pictureMapper;
+
+    @BeforeEach
+    void setUp() {
+        pictureMapper = Mockito.mock(PictureMapper.class);
+        PictureSearchConfig pictureSearchConfig = new PictureSearchConfig();
+        pictureSearchConfig.setIndexDir("target/test-search-index");
+        pictureSearchManager = new PictureSearchManager();
+        ReflectionTestUtils.setField(pictureSearchManager, "pictureMapper", pictureMapper);
+        ReflectionTestUtils.setField(pictureSearchManager, "pictureSearchConfig", pictureSearchConfig);
+        pictureSearchManager.init();
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any())).thenReturn(Arrays.asList(
+                mockPicture(1L, "西湖日落", "傍晚的湖面", "[\"风景\"]", PictureReviewStatusEnum.PASS),
+                mockPicture(2L, "城市夜景", "在山顶看到的日落和城市", "[\"城市\"]", PictureReviewStatusEnum.PASS),
+                mockPicture(3L, "西湖日落", "未过审", "[\"风景\"]", PictureReviewStatusEnum.REVIEWING)));
+        pictureSearchManager.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pictureSearchManager.destroy();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        FileUtil.del("target/test-search-index");
+    }
+
+    @Test
+    void searchPictureIds() {
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setSearchText("日落");
+        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        Page<Long> idPage = pictureSearchManager.searchPictureIds(pictureQueryRequest);
+        // 名称命中排在简介命中之前，未过审的被过滤
+        Assertions.assertEquals(2, idPage.getTotal());
+        Assertions.assertEquals(Arrays.asList(1L, 2L), idPage.getRecords());
+
+        pictureQueryRequest.setTagList(Collections.singletonList("城市"));
+        Assertions.assertEquals(Collections.singletonList(2L),
+                pictureSearchManager.searchPictureIds(pictureQueryRequest).getRecords());
+
+        // 其他条件无法由索引回答
+        pictureQueryRequest.setPicWidth(100);
+        Assertions.assertNull(pictureSearchManager.searchPictureIds(pictureQueryRequest));
+    }
+
+    @Test
+    void onPictureChanged() {
+        // 删除后从索引移除，改名后按新名称命中
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any())).thenReturn(Collections.singletonList(
+                mockPicture(2L, "雪山", "冬天", "[]", PictureReviewStatusEnum.PASS)));
+        pictureSearchManager.onPictureChanged(Arrays.asList(1L, 2L));
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setSearchText("日落");
+        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        Assertions.assertEquals(0, pictureSearchManager.searchPictureIds(pictureQueryRequest).getTotal());
+        pictureQueryRequest.setSearchText("雪山");
+        Assertions.assertEquals(Collections.singletonList(2L),
+                pictureSearchManager.searchPictureIds(pictureQueryRequest).getRecords());
+    }
+
+    @Test
+    void syncFromDatabase() {
+        // 补录时移除上次提交后被逻辑删除的图片
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+        Mockito.when(pictureMapper.listDeletedIdsSince(ArgumentMatchers.any()))
+                .thenReturn(Collections.singletonList(1L));
+        ReflectionTestUtils.invokeMethod(pictureSearchManager, "syncFromDatabase");
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setSearchText("日落");
+        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        Assertions.assertEquals(Collections.singletonList(2L),
+                pictureSearchManager.searchPictureIds(pictureQueryRequest).getRecords());
+    }
+
+    private Picture mockPicture(Long id, String name, String introduction, String tags,
+                                PictureReviewStatusEnum reviewStatus) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setName(name);
+        picture.setIntroduction(introduction);
+        picture.setTags(tags);
+        picture.setUserId(1L);
+        picture.setReviewStatus(reviewStatus.getValue());
+        return picture;
+    }
+}
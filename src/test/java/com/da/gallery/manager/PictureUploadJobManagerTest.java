@@ -0,0 +1,44 @@
+package com.da.gallery.manager;
+
+import com.da.gallery.config.PictureUploadConfig;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.manager.PictureUploadJobManager.PictureUploadJob;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 异步上传任务清理测试
+ */
+class PictureUploadJobManagerTest {
+
+    private PictureUploadJobManager pictureUploadJobManager;
+
+    @BeforeEach
+    void setUp() {
+        pictureUploadJobManager = new PictureUploadJobManager();
+        ReflectionTestUtils.setField(pictureUploadJobManager, "pictureUploadConfig", new PictureUploadConfig());
+    }
+
+    @Test
+    void cleanExpiredJob() {
+        PictureUploadJob finished = pictureUploadJobManager.createJob(1L, "finished.png");
+        finished.fail("上传失败");
+        PictureUploadJob unfinished = pictureUploadJobManager.createJob(1L, "unfinished.png");
+        unfinished.start();
+        long now = System.currentTimeMillis();
+
+        // 已结束的任务 30 分钟后清理，未结束的仍保留
+        pictureUploadJobManager.cleanExpiredJob(now + TimeUnit.MINUTES.toMillis(31));
+        Assertions.assertThrows(BusinessException.class,
+                () -> pictureUploadJobManager.getJob(finished.getJobId(), 1L));
+        Assertions.assertSame(unfinished, pictureUploadJobManager.getJob(unfinished.getJobId(), 1L));
+
+        // 未结束的任务超过最长保留时间后同样清理
+        pictureUploadJobManager.cleanExpiredJob(now + TimeUnit.HOURS.toMillis(25));
+        Assertions.assertThrows(BusinessException.class,
+                () -> pictureUploadJobManager.getJob(unfinished.getJobId(), 1L));
+    }
+}
@@ -0,0 +1,113 @@
+package com.da.gallery.manager;
+
+import com.da.gallery.config.DistributedCacheConfig;
+import com.da.gallery.config.UserCacheConfig;
+import com.da.gallery.manager.cache.LocalDistributedCache;
+import com.da.gallery.mapper.UserMapper;
+import com.da.gallery.model.entity.User;
+import com.da.gallery.model.vo.UserVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 用户封装批量加载测试（数据库使用 Mock）
+ */
+class UserVOCacheManagerTest {
+
+    private UserVOCacheManager userVOCacheManager;
+
+    private UserCacheConfig userCacheConfig;
+
+    private UserMapper userMapper;
+
+    @BeforeEach
+    void setUp() {
+        userMapper = Mockito.mock(UserMapper.class);
+        userCacheConfig = new UserCacheConfig();
+        LocalDistributedCache distributedCache = new LocalDistributedCache();
+        ReflectionTestUtils.setField(distributedCache, "distributedCacheConfig", new DistributedCacheConfig());
+        userVOCacheManager = new UserVOCacheManager();
+        ReflectionTestUtils.setField(userVOCacheManager, "userCacheConfig", userCacheConfig);
+        ReflectionTestUtils.setField(userVOCacheManager, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userVOCacheManager, "distributedCache", distributedCache);
+        ReflectionTestUtils.setField(userVOCacheManager, "meterRegistry", new SimpleMeterRegistry());
+        userVOCacheManager.init();
+        Mockito.when(userMapper.selectBatchIds(ArgumentMatchers.anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> idList = invocation.getArgument(0);
+            return idList.stream().filter(id -> id > 0).map(this::mockUser).collect(Collectors.toList());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        userVOCacheManager.destroy();
+    }
+
+    @Test
+    void loadAll() {
+        Map<Long, UserVO> userVOMap = userVOCacheManager.loadAll(Arrays.asList(101L, 102L, 102L, -1L, null));
+        Assertions.assertEquals(2, userVOMap.size());
+        Assertions.assertEquals("user101", userVOMap.get(101L).getUserName());
+        // 全部命中缓存，不再查询；调用方修改返回值不影响缓存
+        userVOMap.get(102L).setUserName("changed");
+        userVOCacheManager.loadAll(Arrays.asList(101L, 102L));
+        Assertions.assertEquals("user102", userVOCacheManager.load(102L).getUserName());
+        Mockito.verify(userMapper, Mockito.times(1)).selectBatchIds(ArgumentMatchers.anyCollection());
+
+        // 修改后只重新查询失效的用户
+        userVOCacheManager.invalidate(101L);
+        userVOCacheManager.loadAll(Arrays.asList(101L, 102L));
+        Mockito.verify(userMapper, Mockito.times(2)).selectBatchIds(ArgumentMatchers.anyCollection());
+        Mockito.verify(userMapper).selectBatchIds(ArgumentMatchers.argThat(idList -> idList.size() == 1));
+    }
+
+    @Test
+    void loadAllWithBatchWindow() throws Exception {
+        userCacheConfig.setBatchWindowMillis(200);
+        try {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            CompletableFuture<Map<Long, UserVO>> first = CompletableFuture.supplyAsync(() -> {
+                awaitQuietly(startLatch);
+                return userVOCacheManager.loadAll(Arrays.asList(201L, 202L));
+            });
+            CompletableFuture<Map<Long, UserVO>> second = CompletableFuture.supplyAsync(() -> {
+                awaitQuietly(startLatch);
+                return userVOCacheManager.loadAll(Arrays.asList(202L, 203L));
+            });
+            startLatch.countDown();
+            Assertions.assertEquals(2, first.get().size());
+            Assertions.assertEquals("user203", second.get().get(203L).getUserName());
+            // 窗口内两个请求合并为一次查询
+            Mockito.verify(userMapper, Mockito.times(1)).selectBatchIds(ArgumentMatchers.anyCollection());
+        } finally {
+            userCacheConfig.setBatchWindowMillis(0);
+        }
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private User mockUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUserName("user" + id);
+        return user;
+    }
+}
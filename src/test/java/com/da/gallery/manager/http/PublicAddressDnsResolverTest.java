@@ -0,0 +1,40 @@
+package com.da.gallery.manager.http;
+
+import com.da.gallery.config.PictureUploadConfig;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 公网地址解析器测试
+ */
+class PublicAddressDnsResolverTest {
+
+    @Test
+    void isPublicAddress() throws UnknownHostException {
+        for (String host : new String[]{"127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+                "100.64.0.1", "100.127.255.255", "0.0.0.0", "255.255.255.255", "224.0.0.1", "::1", "fe80::1",
+                "fc00::1", "fd12:3456::1", "::ffff:127.0.0.1", "::ffff:10.0.0.1", "::169.254.169.254",
+                "64:ff9b::a9fe:a9fe"}) {
+            Assertions.assertFalse(PublicAddressDnsResolver.isPublicAddress(InetAddress.getByName(host)), host);
+        }
+        for (String host : new String[]{"8.8.8.8", "100.128.0.1", "172.32.0.1", "2001:4860:4860::8888",
+                "::ffff:8.8.8.8"}) {
+            Assertions.assertTrue(PublicAddressDnsResolver.isPublicAddress(InetAddress.getByName(host)), host);
+        }
+    }
+
+    @Test
+    void resolve() throws UnknownHostException {
+        PictureUploadConfig pictureUploadConfig = new PictureUploadConfig();
+        PublicAddressDnsResolver resolver = new PublicAddressDnsResolver(pictureUploadConfig);
+        Assertions.assertThrows(PublicAddressDnsResolver.BlockedAddressException.class,
+                () -> resolver.resolve("localhost"));
+        Assertions.assertThrows(PublicAddressDnsResolver.BlockedAddressException.class,
+                () -> resolver.resolve("::ffff:192.168.0.1"));
+        // 本地调试允许内网地址
+        pictureUploadConfig.setUrlAllowPrivateAddress(true);
+        Assertions.assertEquals(1, resolver.resolve("127.0.0.1").length);
+    }
+}
@@ -0,0 +1,63 @@
+package com.da.gallery.manager.session;
+
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.constant.UserConstant;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.User;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Date;
+import javax.annotation.Resource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/**
+ * 匿名访问不创建会话（经过会话过滤器的压测）
+ */
+class AnonymousSessionTest extends BaseSpringBootTest {
+
+    @Resource
+    private MockMvc mockMvc;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void anonymousBrowsingCreatesNoSession() throws Exception {
+        Picture picture = new Picture();
+        picture.setId(1L);
+        picture.setUserId(2L);
+        picture.setCreateTime(new Date());
+        picture.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        Mockito.when(pictureMapper.selectById(1L)).thenReturn(picture);
+        double createdBefore = meterRegistry.counter("session.created").count();
+        for (int i = 0; i < 200; i++) {
+            // 公开详情（会判断是否管理员）和获取当前登录用户（未登录）
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/picture/get/vo").param("id", "1"))
+                    .andReturn();
+            Assertions.assertEquals(200, result.getResponse().getStatus());
+            Assertions.assertNull(result.getResponse().getHeader(HttpHeaders.SET_COOKIE));
+            result = mockMvc.perform(MockMvcRequestBuilders.get("/user/get/login")).andReturn();
+            Assertions.assertNull(result.getResponse().getHeader(HttpHeaders.SET_COOKIE));
+        }
+        Assertions.assertEquals(createdBefore, meterRegistry.counter("session.created").count());
+
+        // 登录才创建会话
+        User user = new User();
+        user.setId(2L);
+        user.setUserRole(UserConstant.DEFAULT_ROLE);
+        Mockito.when(userMapper.selectOne(ArgumentMatchers.any())).thenReturn(user);
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/user/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userAccount\":\"gallery\",\"userPassword\":\"12345678\"}")).andReturn();
+        Assertions.assertNotNull(result.getResponse().getHeader(HttpHeaders.SET_COOKIE));
+        Assertions.assertEquals(createdBefore + 1, meterRegistry.counter("session.created").count());
+    }
+}
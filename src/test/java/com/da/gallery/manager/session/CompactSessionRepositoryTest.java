@@ -0,0 +1,131 @@
+package com.da.gallery.manager.session;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.da.gallery.config.DistributedCacheConfig;
+import com.da.gallery.config.SessionStoreConfig;
+import com.da.gallery.constant.UserConstant;
+import com.da.gallery.manager.cache.DistributedCache;
+import com.da.gallery.manager.cache.LocalDistributedCache;
+import com.da.gallery.model.dto.user.LoginUserState;
+import com.da.gallery.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 紧凑会话存储测试（缓存使用本地实现）
+ */
+class CompactSessionRepositoryTest {
+
+    private CompactSessionRepository compactSessionRepository;
+
+    private DistributedCache distributedCache;
+
+    @BeforeEach
+    void setUp() {
+        LocalDistributedCache localDistributedCache = new LocalDistributedCache();
+        ReflectionTestUtils.setField(localDistributedCache, "distributedCacheConfig", new DistributedCacheConfig());
+        distributedCache = localDistributedCache;
+        compactSessionRepository = new CompactSessionRepository();
+        ReflectionTestUtils.setField(compactSessionRepository, "sessionStoreConfig", new SessionStoreConfig());
+        ReflectionTestUtils.setField(compactSessionRepository, "distributedCache", distributedCache);
+        ReflectionTestUtils.setField(compactSessionRepository, "meterRegistry", new SimpleMeterRegistry());
+        compactSessionRepository.init();
+    }
+
+    @Test
+    void saveAndFind() {
+        MapSession session = compactSessionRepository.createSession();
+        session.setAttribute(UserConstant.USER_LOGIN_STATE, new LoginUserState(1L, UserConstant.ADMIN_ROLE, 3L));
+        session.setAttribute("other", "value");
+        compactSessionRepository.save(session);
+        String value = distributedCache.get("session:" + session.getId());
+
+        MapSession found = compactSessionRepository.findById(session.getId());
+        Assertions.assertEquals(new LoginUserState(1L, UserConstant.ADMIN_ROLE, 3L),
+                found.getAttribute(UserConstant.USER_LOGIN_STATE));
+        Assertions.assertEquals("value", found.getAttribute("other"));
+
+        // 只刷新访问时间时不写回
+        found.setLastAccessedTime(found.getLastAccessedTime().plusSeconds(1));
+        compactSessionRepository.save(found);
+        Assertions.assertEquals(value, distributedCache.get("session:" + session.getId()));
+
+        // 内容变化时写回
+        found.removeAttribute("other");
+        compactSessionRepository.save(found);
+        Assertions.assertNotEquals(value, distributedCache.get("session:" + session.getId()));
+        Assertions.assertNull(compactSessionRepository.findById(session.getId()).getAttribute("other"));
+
+        compactSessionRepository.deleteById(session.getId());
+        Assertions.assertNull(compactSessionRepository.findById(session.getId()));
+    }
+
+    /**
+     * 紧凑编码的会话比原来会话中保存的完整用户（JDK 序列化）小得多
+     */
+    @Test
+    void compactPayload() {
+        User user = new User();
+        user.setId(1844674407370955161L);
+        user.setUserAccount("gallery_admin");
+        user.setUserPassword("b0baee9d279d34fa1dfd71aadb908c3f");
+        user.setUserName("管理员");
+        user.setUserAvatar("https://gallery.example.com/avatar/1844674407370955161.png");
+        user.setUserProfile("图库管理员");
+        user.setUserRole(UserConstant.ADMIN_ROLE);
+        user.setEditTime(new Date());
+        user.setCreateTime(new Date());
+        user.setUpdateTime(new Date());
+        user.setIsDelete(0);
+        int jdkBytes = ObjectUtil.serialize(user).length;
+
+        MapSession session = compactSessionRepository.createSession();
+        session.setAttribute(UserConstant.USER_LOGIN_STATE,
+                new LoginUserState(user.getId(), user.getUserRole(), 12L));
+        compactSessionRepository.save(session);
+        int compactBytes = distributedCache.get("session:" + session.getId())
+                .getBytes(StandardCharsets.UTF_8).length;
+        Assertions.assertTrue(compactBytes * 4 < jdkBytes);
+    }
+
+    /**
+     * 对比近缓存命中与未命中的读取耗时
+     */
+    @Test
+    @Tag("benchmark")
+    void compareLookup() {
+        MapSession session = compactSessionRepository.createSession();
+        session.setAttribute(UserConstant.USER_LOGIN_STATE,
+                new LoginUserState(1844674407370955161L, UserConstant.ADMIN_ROLE, 12L));
+        compactSessionRepository.save(session);
+
+        int times = 20000;
+        long hitNanos = time(() -> compactSessionRepository.findById(session.getId()), times);
+        // 每次先广播失效，模拟近缓存未命中时从分布式缓存读取并解码
+        long missNanos = time(() -> {
+            distributedCache.publish("session:invalidate", session.getId());
+            compactSessionRepository.findById(session.getId());
+        }, times);
+        // 本地缓存代替 Redis，未命中也没有网络开销，仍须多一次解码
+        Assertions.assertTrue(hitNanos < missNanos);
+    }
+
+    private long time(Runnable runnable, int times) {
+        // 预热
+        for (int i = 0; i < times; i++) {
+            runnable.run();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            runnable.run();
+        }
+        return System.nanoTime() - startTime;
+    }
+}
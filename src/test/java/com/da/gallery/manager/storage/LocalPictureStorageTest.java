@@ -0,0 +1,115 @@
+package com.da.gallery.manager.storage;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.da.gallery.config.PictureStorageConfig;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.model.enums.StorageFsyncModeEnum;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 本地磁盘存储测试
+ */
+class LocalPictureStorageTest {
+
+    private static final int ROUNDS = 50;
+
+    private PictureStorage pictureStorage;
+
+    private PictureStorageConfig pictureStorageConfig;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pictureStorageConfig = new PictureStorageConfig();
+        pictureStorageConfig.getLocal().setRoot("target/test-storage");
+        LocalPictureStorage localPictureStorage = new LocalPictureStorage();
+        ReflectionTestUtils.setField(localPictureStorage, "pictureStorageConfig", pictureStorageConfig);
+        localPictureStorage.init();
+        pictureStorage = localPictureStorage;
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        FileUtil.del("target/test-storage");
+    }
+
+    @Test
+    void putAndGet() throws Exception {
+        byte[] bytes = RandomUtil.randomBytes(100 * 1024);
+        String eTag = pictureStorage.put("/public/1/demo.png", new ByteArrayInputStream(bytes), bytes.length, "image/png");
+        Assertions.assertEquals(DigestUtil.md5Hex(bytes), eTag);
+        try (InputStream inputStream = pictureStorage.get("/public/1/demo.png")) {
+            Assertions.assertArrayEquals(bytes, IoUtil.readBytes(inputStream));
+        }
+        PictureStorageStat stat = pictureStorage.stat("/public/1/demo.png");
+        Assertions.assertEquals(bytes.length, stat.getSize());
+        Assertions.assertEquals("image/png", stat.getContentType());
+        String url = pictureStorage.getUrl("/public/1/demo.png");
+        Assertions.assertEquals("/public/1/demo.png", pictureStorage.getKey(url));
+        pictureStorage.delete("/public/1/demo.png");
+        Assertions.assertNull(pictureStorage.stat("/public/1/demo.png"));
+    }
+
+    @Test
+    void rejectIllegalKey() {
+        Assertions.assertThrows(BusinessException.class, () -> pictureStorage.stat("/../../etc/passwd"));
+        Assertions.assertThrows(BusinessException.class, () -> pictureStorage.stat("/.tmp/abc"));
+    }
+
+    @Test
+    void rejectTruncatedContent() {
+        byte[] bytes = RandomUtil.randomBytes(1024);
+        Assertions.assertThrows(RuntimeException.class, () -> pictureStorage.put("/public/1/truncated.png",
+                new ByteArrayInputStream(bytes), bytes.length + 1, "image/png"));
+        Assertions.assertNull(pictureStorage.stat("/public/1/truncated.png"));
+    }
+
+    @Test
+    void multipartUpload() throws Exception {
+        byte[] bytes = RandomUtil.randomBytes(3 * 1024 * 1024 + 100);
+        int partSize = 1024 * 1024;
+        String uploadId = pictureStorage.initiateMultipartUpload("/public/1/big.png");
+        SortedMap<Integer, String> partETagMap = new TreeMap<>();
+        // 乱序上传分片
+        for (int partNumber : new int[]{4, 2, 1, 3}) {
+            byte[] part = Arrays.copyOfRange(bytes, (partNumber - 1) * partSize,
+                    Math.min(bytes.length, partNumber * partSize));
+            partETagMap.put(partNumber, pictureStorage.uploadPart("/public/1/big.png", uploadId, partNumber,
+                    new ByteArrayInputStream(part), part.length));
+        }
+        pictureStorage.completeMultipartUpload("/public/1/big.png", uploadId, partETagMap);
+        try (InputStream inputStream = pictureStorage.get("/public/1/big.png")) {
+            Assertions.assertArrayEquals(bytes, IoUtil.readBytes(inputStream));
+        }
+    }
+
+    /**
+     * 不同刷盘策略下的批量写入
+     */
+    @Test
+    @Tag("benchmark")
+    void compareFsyncMode() {
+        byte[] bytes = RandomUtil.randomBytes(1024 * 1024);
+        for (StorageFsyncModeEnum fsyncModeEnum : StorageFsyncModeEnum.values()) {
+            pictureStorageConfig.getLocal().setFsync(fsyncModeEnum.getValue());
+            for (int i = 0; i < ROUNDS; i++) {
+                pictureStorage.put("/bench/" + i + ".png", new ByteArrayInputStream(bytes), bytes.length, "image/png");
+            }
+            // 各刷盘策略只影响耗时，写入结果相同
+            Assertions.assertEquals(bytes.length, pictureStorage.stat("/bench/" + (ROUNDS - 1) + ".png").getSize());
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.da.gallery.service;
+
+import cn.hutool.core.img.ImgUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.common.CursorPage;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.exception.BusinessException;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.PublicPicture;
+import com.da.gallery.model.entity.User;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import com.da.gallery.model.enums.PictureTagMatchModeEnum;
+import com.da.gallery.model.enums.PictureTotalModeEnum;
+import com.da.gallery.model.enums.PictureUploadJobStatusEnum;
+import com.da.gallery.model.enums.UserRoleEnum;
+import com.da.gallery.model.vo.PictureBatchUploadItemVO;
+import com.da.gallery.model.vo.PictureUploadJobVO;
+import com.da.gallery.model.vo.PictureVO;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PutObjectResult;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import javax.annotation.Resource;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * 图片服务测试（数据库和对象存储使用 Mock）
+ */
+class PictureServiceTest extends BaseSpringBootTest {
+
+    @Resource
+    private PictureService pictureService;
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Resource
+    private UserService userService;
+
+    private User loginUser;
+
+    @BeforeEach
+    void setUp() {
+        loginUser = new User();
+        loginUser.setId(1L);
+        loginUser.setUserRole(UserRoleEnum.USER.getValue());
+        Mockito.when(pictureMapper.insert(ArgumentMatchers.any(Picture.class))).thenReturn(1);
+        Mockito.when(cosManager.putObject(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class),
+                        ArgumentMatchers.any(ObjectMetadata.class)))
+                .thenAnswer(invocation -> {
+                    PutObjectResult putObjectResult = new PutObjectResult();
+                    putObjectResult.setETag(DigestUtil.md5Hex(IoUtil.readBytes((InputStream) invocation.getArgument(1))));
+                    return putObjectResult;
+                });
+    }
+
+    @Test
+    void uploadPictureAsync() throws InterruptedException {
+        PictureUploadJobVO jobVO = pictureService.uploadPictureAsync(mockPicture(), null, loginUser);
+        Assertions.assertNotEquals(PictureUploadJobStatusEnum.FAILED.getValue(), jobVO.getStatus());
+        for (int i = 0; i < 100 && jobVO.getFinishTime() == null; i++) {
+            Thread.sleep(50);
+            jobVO = pictureService.getPictureUploadJob(jobVO.getJobId(), loginUser);
+        }
+        Assertions.assertEquals(PictureUploadJobStatusEnum.SUCCEED.getValue(), jobVO.getStatus(), jobVO.getErrorMessage());
+        Assertions.assertEquals(640, jobVO.getPicture().getPicWidth());
+        Assertions.assertEquals(loginUser.getId(), jobVO.getPicture().getUserId());
+
+        // 其他用户不能查询
+        User otherUser = new User();
+        otherUser.setId(2L);
+        String jobId = jobVO.getJobId();
+        Assertions.assertThrows(BusinessException.class, () -> pictureService.getPictureUploadJob(jobId, otherUser));
+    }
+
+    @Test
+    void uploadPictureDeduplicatedThenDelete() {
+        // 用户 1 已有内容相同的图片，对象键在自己的目录下
+        Picture existPicture = new Picture();
+        existPicture.setUrl("https://example.com/public/1/exist.png");
+        existPicture.setPicWidth(640);
+        existPicture.setPicHeight(480);
+        Mockito.when(pictureMapper.selectOne(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            QueryWrapper<Picture> queryWrapper = invocation.getArgument(0);
+            boolean sameUser = queryWrapper.getSqlSegment().contains("userId")
+                    && queryWrapper.getParamNameValuePairs().containsValue(1L);
+            return sameUser ? existPicture : null;
+        });
+        PictureVO pictureVO = pictureService.uploadPicture(mockPicture(), null, loginUser);
+        Assertions.assertEquals(existPicture.getUrl(), pictureVO.getUrl());
+        Mockito.verify(cosManager, Mockito.never()).putObject(ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(InputStream.class), ArgumentMatchers.any(ObjectMetadata.class));
+
+        // 其他用户上传同样的内容不复用用户 1 的对象
+        User otherUser = new User();
+        otherUser.setId(2L);
+        otherUser.setUserRole(UserRoleEnum.USER.getValue());
+        PictureVO otherPictureVO = pictureService.uploadPicture(mockPicture(), null, otherUser);
+        Assertions.assertTrue(otherPictureVO.getUrl().contains("/public/2/"));
+
+        // 删除两张去重图片中的一张，共用的对象保留（Mapper 为 Mock，手动初始化逻辑删除需要的表信息）
+        if (TableInfoHelper.getTableInfo(Picture.class) == null) {
+            TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Picture.class);
+        }
+        Mockito.when(pictureMapper.deleteById(ArgumentMatchers.any(Long.class))).thenReturn(1);
+        Mockito.when(pictureMapper.deleteById(ArgumentMatchers.any(Picture.class))).thenReturn(1);
+        Assertions.assertTrue(pictureService.removeById(100L));
+        Mockito.verify(cosManager, Mockito.never()).deleteObject(ArgumentMatchers.anyString());
+    }
+
+    @Test
+    void uploadPictureBatchWithSameFileName() {
+        Mockito.when(pictureMapper.insertBatch(ArgumentMatchers.anyList()))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        // 两个同名但内容不同的文件
+        List<PictureBatchUploadItemVO> itemList = pictureService.uploadPictureBatch(
+                Arrays.asList(mockPicture("image.png", 640, 480), mockPicture("image.png", 320, 240)), loginUser);
+        Assertions.assertEquals(2, itemList.size());
+        Assertions.assertTrue(itemList.get(0).getSuccess());
+        Assertions.assertTrue(itemList.get(1).getSuccess());
+        Assertions.assertEquals(640, itemList.get(0).getPicture().getPicWidth());
+        Assertions.assertEquals(320, itemList.get(1).getPicture().getPicWidth());
+        ArgumentCaptor<List<Picture>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(pictureMapper).insertBatch(captor.capture());
+        Assertions.assertEquals(2, captor.getValue().size());
+        // 图片与读模型在同一事务中写入
+        Mockito.verify(transactionManager).getTransaction(ArgumentMatchers.any());
+
+        // 入库失败时删除本次上传的对象
+        Mockito.when(pictureMapper.insertBatch(ArgumentMatchers.anyList())).thenThrow(new RuntimeException("db error"));
+        itemList = pictureService.uploadPictureBatch(
+                Arrays.asList(mockPicture("image.png", 200, 100), mockPicture("image.png", 100, 50)), loginUser);
+        Assertions.assertFalse(itemList.get(0).getSuccess());
+        Assertions.assertFalse(itemList.get(1).getSuccess());
+        Mockito.verify(cosManager, Mockito.times(2)).deleteObject(ArgumentMatchers.anyString());
+    }
+
+    @Test
+    void listPictureVOByCursor() {
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any()))
+                .thenReturn(Arrays.asList(mockRecord(3L, 3000), mockRecord(2L, 2000), mockRecord(1L, 1000)));
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setPageSize(2);
+        pictureQueryRequest.setCursor("");
+        CursorPage<PictureVO> firstPage = (CursorPage<PictureVO>) pictureService.listPictureVOByPage(pictureQueryRequest,
+                PictureTotalModeEnum.CACHED, null);
+        Assertions.assertEquals(2, firstPage.getRecords().size());
+        Assertions.assertTrue(firstPage.isHasMore());
+        Assertions.assertNotNull(firstPage.getNextCursor());
+
+        // 下一页从上一页最后一条之后开始查
+        pictureQueryRequest.setCursor(firstPage.getNextCursor());
+        pictureService.listPictureVOByPage(pictureQueryRequest, PictureTotalModeEnum.CACHED, null);
+        ArgumentCaptor<QueryWrapper<Picture>> captor = ArgumentCaptor.forClass(QueryWrapper.class);
+        Mockito.verify(pictureMapper, Mockito.times(2)).selectList(captor.capture());
+        QueryWrapper<Picture> queryWrapper = captor.getValue();
+        Assertions.assertTrue(queryWrapper.getSqlSegment().contains("(createTime, id) <"));
+        Assertions.assertTrue(queryWrapper.getParamNameValuePairs().containsValue(2L));
+        // 不统计总数
+        Mockito.verify(pictureMapper, Mockito.never()).selectCount(ArgumentMatchers.any());
+
+        pictureQueryRequest.setCursor("not a cursor");
+        Assertions.assertThrows(BusinessException.class,
+                () -> pictureService.listPictureVOByPage(pictureQueryRequest, PictureTotalModeEnum.CACHED, null));
+    }
+
+    @Test
+    void listPictureByPageWithCachedCount() {
+        Mockito.when(pictureMapper.selectPage(ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            Page<Picture> page = invocation.getArgument(0);
+            page.setRecords(Arrays.asList(mockRecord(2L, 2000), mockRecord(1L, 1000)));
+            return page;
+        });
+        Mockito.when(pictureMapper.selectCount(ArgumentMatchers.any())).thenReturn(42L);
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setPageSize(2);
+        pictureQueryRequest.setCategory("cached-count");
+        Assertions.assertEquals(42, pictureService.listPictureByPage(pictureQueryRequest, PictureTotalModeEnum.CACHED).getTotal());
+        // 翻页、换排序不重新统计
+        pictureQueryRequest.setCurrent(2);
+        pictureQueryRequest.setSortField("createTime");
+        Assertions.assertEquals(42, pictureService.listPictureByPage(pictureQueryRequest, PictureTotalModeEnum.CACHED).getTotal());
+        Mockito.verify(pictureMapper, Mockito.times(1)).selectCount(ArgumentMatchers.any());
+
+        // 修改图片后重新统计
+        Mockito.when(pictureMapper.updateById(ArgumentMatchers.any(Picture.class))).thenReturn(1);
+        pictureService.updateById(mockRecord(1L, 1000));
+        pictureService.listPictureByPage(pictureQueryRequest, PictureTotalModeEnum.CACHED);
+        Mockito.verify(pictureMapper, Mockito.times(2)).selectCount(ArgumentMatchers.any());
+    }
+
+    @Test
+    void listPictureByPageWithoutCount() {
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any()))
+                .thenReturn(Arrays.asList(mockRecord(3L, 3000), mockRecord(2L, 2000), mockRecord(1L, 1000)));
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setPageSize(2);
+        CursorPage<Picture> picturePage = (CursorPage<Picture>) pictureService.listPictureByPage(pictureQueryRequest,
+                PictureTotalModeEnum.NONE);
+        Assertions.assertEquals(2, picturePage.getRecords().size());
+        Assertions.assertTrue(picturePage.isHasMore());
+        Mockito.verify(pictureMapper, Mockito.never()).selectCount(ArgumentMatchers.any());
+    }
+
+    @Test
+    void getPictureVOByIdWithCache() {
+        Picture picture = mockRecord(100L, 1000);
+        picture.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        Mockito.when(pictureMapper.selectById(100L)).thenReturn(picture);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        Assertions.assertEquals(100L, pictureService.getPictureVOById(100L, request).getId());
+        pictureService.getPictureVOById(100L, request);
+        Mockito.verify(pictureMapper, Mockito.times(1)).selectById(100L);
+
+        // 作者修改后，详情缓存命中时返回新的作者信息
+        User author = new User();
+        author.setId(1L);
+        author.setUserName("新昵称");
+        Mockito.when(userMapper.selectBatchIds(ArgumentMatchers.anyCollection()))
+                .thenReturn(Collections.singletonList(author));
+        Mockito.when(userMapper.updateById(ArgumentMatchers.any(User.class))).thenReturn(1);
+        userService.updateById(author);
+        Assertions.assertEquals("新昵称", pictureService.getPictureVOById(100L, request).getUserVO().getUserName());
+        Mockito.verify(pictureMapper, Mockito.times(1)).selectById(100L);
+
+        // 审核驳回后重新查询，普通用户不能再查看
+        Picture rejectPicture = mockRecord(100L, 1000);
+        rejectPicture.setReviewStatus(PictureReviewStatusEnum.REJECT.getValue());
+        Mockito.when(pictureMapper.selectById(100L)).thenReturn(rejectPicture);
+        Mockito.when(pictureMapper.updateById(ArgumentMatchers.any(Picture.class))).thenReturn(1);
+        pictureService.updateById(rejectPicture);
+        Assertions.assertThrows(BusinessException.class, () -> pictureService.getPictureVOById(100L, request));
+        Mockito.verify(pictureMapper, Mockito.times(2)).selectById(100L);
+    }
+
+    @Test
+    void listPictureVOByPublicPicture() {
+        Mockito.when(publicPictureMapper.selectPageByPictureWrapper(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    Page<PublicPicture> page = invocation.getArgument(0);
+                    PublicPicture publicPicture = new PublicPicture();
+                    publicPicture.setId(1L);
+                    publicPicture.setUserId(1L);
+                    publicPicture.setUserName("dada");
+                    page.setRecords(Collections.singletonList(publicPicture));
+                    return page;
+                });
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setName("public");
+        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        Page<PictureVO> pictureVOPage;
+        pictureQueryConfig.setPublicPictureEnabled(true);
+        try {
+            pictureVOPage = pictureService.listPictureVOByPage(pictureQueryRequest, PictureTotalModeEnum.CACHED, null);
+        } finally {
+            pictureQueryConfig.setPublicPictureEnabled(false);
+        }
+        Assertions.assertEquals(1, pictureVOPage.getTotal());
+        Assertions.assertEquals("dada", pictureVOPage.getRecords().get(0).getUserVO().getUserName());
+        // 读模型中都是审核通过的图片，不再按审核状态过滤，也不查图片表和用户表
+        ArgumentCaptor<QueryWrapper<Picture>> captor = ArgumentCaptor.forClass(QueryWrapper.class);
+        Mockito.verify(publicPictureMapper).selectPageByPictureWrapper(ArgumentMatchers.any(), captor.capture());
+        Assertions.assertFalse(captor.getValue().getSqlSegment().contains("reviewStatus"));
+        Mockito.verify(pictureMapper, Mockito.never()).selectPage(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verify(userMapper, Mockito.never()).selectBatchIds(ArgumentMatchers.anyCollection());
+    }
+
+    @Test
+    void getQueryWrapperWithTags() {
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setTagList(Arrays.asList("风景", " 风景 ", "高清"));
+        // 默认未回填标签表，按 tags 列模糊匹配
+        String sqlSegment = pictureService.getQueryWrapper(pictureQueryRequest).getSqlSegment();
+        Assertions.assertFalse(sqlSegment.contains("picture_tag"));
+        Assertions.assertEquals(2, StrUtil.count(sqlSegment, "tags LIKE"));
+        Assertions.assertFalse(sqlSegment.contains(" OR "));
+
+        pictureQueryRequest.setTagMatchMode(PictureTagMatchModeEnum.OR.getValue());
+        sqlSegment = pictureService.getQueryWrapper(pictureQueryRequest).getSqlSegment();
+        Assertions.assertEquals(2, StrUtil.count(sqlSegment, "tags LIKE"));
+        Assertions.assertTrue(sqlSegment.contains(" OR "));
+
+        pictureQueryConfig.setTagTableEnabled(true);
+        try {
+            pictureQueryRequest.setTagMatchMode(null);
+            sqlSegment = pictureService.getQueryWrapper(pictureQueryRequest).getSqlSegment();
+            Assertions.assertTrue(sqlSegment.contains("id IN (SELECT pictureId FROM picture_tag WHERE tag IN ("));
+            Assertions.assertTrue(sqlSegment.contains("GROUP BY pictureId HAVING COUNT(*) = 2"));
+            Assertions.assertFalse(sqlSegment.contains("tags LIKE"));
+
+            pictureQueryRequest.setTagMatchMode(PictureTagMatchModeEnum.OR.getValue());
+            sqlSegment = pictureService.getQueryWrapper(pictureQueryRequest).getSqlSegment();
+            Assertions.assertTrue(sqlSegment.contains("picture_tag"));
+            Assertions.assertFalse(sqlSegment.contains("HAVING"));
+        } finally {
+            pictureQueryConfig.setTagTableEnabled(false);
+        }
+    }
+
+    private Picture mockRecord(Long id, long createTime) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setUserId(1L);
+        picture.setCreateTime(new Date(createTime));
+        return picture;
+    }
+
+    private MockMultipartFile mockPicture() {
+        return mockPicture("demo.png", 640, 480);
+    }
+
+    private MockMultipartFile mockPicture(String fileName, int width, int height) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImgUtil.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        return new MockMultipartFile("file", fileName, "image/png", outputStream.toByteArray());
+    }
+}
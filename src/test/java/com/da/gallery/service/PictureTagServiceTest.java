@@ -0,0 +1,65 @@
+package com.da.gallery.service;
+
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.PictureTag;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * 图片标签服务测试（数据库使用 Mock）
+ */
+class PictureTagServiceTest extends BaseSpringBootTest {
+
+    @Resource
+    private PictureTagService pictureTagService;
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Test
+    void backfillPictureTags() {
+        Mockito.when(pictureMapper.selectList(ArgumentMatchers.any()))
+                .thenReturn(Arrays.asList(mockPicture(1L, "[\"风景\",\"高清\",\"风景\"]"), mockPicture(2L, "not json"),
+                        mockPicture(3L, "[\"人像\"]")));
+        Mockito.when(pictureTagMapper.insertIgnoreBatch(ArgumentMatchers.any())).thenAnswer(
+                invocation -> ((List<?>) invocation.getArgument(0)).size());
+        Assertions.assertEquals(3, pictureTagService.backfillPictureTags());
+
+        ArgumentCaptor<List<PictureTag>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(pictureTagMapper).insertIgnoreBatch(captor.capture());
+        List<String> rows = captor.getValue().stream()
+                .map(pictureTag -> pictureTag.getPictureId() + ":" + pictureTag.getTag())
+                .collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList("1:风景", "1:高清", "3:人像"), rows);
+    }
+
+    @Test
+    void replacePictureTags() {
+        // 默认未开启标签表写入，不访问标签表
+        pictureTagService.replacePictureTags(1L, "[\"风景\"]");
+        Mockito.verifyNoInteractions(pictureTagMapper);
+        pictureQueryConfig.setTagTableSyncEnabled(true);
+        try {
+            pictureTagService.replacePictureTags(1L, "[\"风景\"]");
+            Mockito.verify(pictureTagMapper).insertIgnoreBatch(ArgumentMatchers.anyList());
+        } finally {
+            pictureQueryConfig.setTagTableSyncEnabled(false);
+        }
+    }
+
+    private Picture mockPicture(Long id, String tags) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setTags(tags);
+        return picture;
+    }
+}
@@ -0,0 +1,116 @@
+package com.da.gallery.service;
+
+import com.da.gallery.BaseSpringBootTest;
+import com.da.gallery.config.PictureQueryConfig;
+import com.da.gallery.model.dto.picture.PictureQueryRequest;
+import com.da.gallery.model.entity.Picture;
+import com.da.gallery.model.entity.PublicPicture;
+import com.da.gallery.model.entity.User;
+import com.da.gallery.model.enums.PictureReviewStatusEnum;
+import com.da.gallery.model.vo.PictureVO;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Resource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * 公开图片读模型服务测试（数据库使用 Mock）
+ */
+class PublicPictureServiceTest extends BaseSpringBootTest {
+
+    @Resource
+    private PublicPictureService publicPictureService;
+
+    @Resource
+    private PictureQueryConfig pictureQueryConfig;
+
+    @Test
+    void syncPictures() {
+        Picture passPicture = mockPicture(1L, PictureReviewStatusEnum.PASS.getValue());
+        Picture rejectPicture = mockPicture(2L, PictureReviewStatusEnum.REJECT.getValue());
+        Mockito.when(pictureMapper.selectBatchIds(ArgumentMatchers.anyCollection()))
+                .thenReturn(Arrays.asList(passPicture, rejectPicture));
+        User user = new User();
+        user.setId(301L);
+        user.setUserName("dada");
+        user.setUserAvatar("avatar.png");
+        Mockito.when(userMapper.selectBatchIds(ArgumentMatchers.anyCollection()))
+                .thenReturn(Collections.singletonList(user));
+
+        // 默认未开启读模型写入，不访问读模型表
+        publicPictureService.syncPictures(Arrays.asList(1L, 2L, 3L));
+        Mockito.verifyNoInteractions(publicPictureMapper);
+
+        // 图片 3 已删除，查不到
+        pictureQueryConfig.setPublicPictureSyncEnabled(true);
+        try {
+            publicPictureService.syncPictures(Arrays.asList(1L, 2L, 3L));
+        } finally {
+            pictureQueryConfig.setPublicPictureSyncEnabled(false);
+        }
+        ArgumentCaptor<Collection<Long>> removeCaptor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(publicPictureMapper).deleteBatchIds(removeCaptor.capture());
+        Assertions.assertEquals(Arrays.asList(2L, 3L), removeCaptor.getValue());
+        ArgumentCaptor<List<PublicPicture>> upsertCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(publicPictureMapper).upsertBatch(upsertCaptor.capture());
+        PublicPicture publicPicture = upsertCaptor.getValue().get(0);
+        Assertions.assertEquals(1L, publicPicture.getId());
+        Assertions.assertEquals("dada", publicPicture.getUserName());
+
+        PictureVO pictureVO = publicPictureService.getPictureVO(publicPicture);
+        Assertions.assertEquals(Arrays.asList("山", "水"), pictureVO.getTagList());
+        Assertions.assertEquals("avatar.png", pictureVO.getUserVO().getUserAvatar());
+        Assertions.assertEquals(PictureReviewStatusEnum.PASS.getValue(), pictureVO.getReviewStatus());
+    }
+
+    @Test
+    void syncAuthorOfRemovedUser() {
+        Mockito.when(userMapper.selectBatchIds(ArgumentMatchers.anyCollection())).thenReturn(Collections.emptyList());
+        pictureQueryConfig.setPublicPictureSyncEnabled(true);
+        try {
+            // 用户已删除时清空作者信息
+            publicPictureService.syncAuthor(302L);
+            Mockito.verify(publicPictureMapper).updateAuthor(302L, null, null);
+        } finally {
+            pictureQueryConfig.setPublicPictureSyncEnabled(false);
+        }
+    }
+
+    @Test
+    void isPublicQuery() {
+        PictureQueryRequest pictureQueryRequest = new PictureQueryRequest();
+        pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        pictureQueryRequest.setSortField("createTime");
+        // 默认关闭，回填后开启
+        Assertions.assertFalse(publicPictureService.isPublicQuery(pictureQueryRequest));
+        pictureQueryConfig.setPublicPictureEnabled(true);
+        try {
+            assertPublicQuery(pictureQueryRequest);
+        } finally {
+            pictureQueryConfig.setPublicPictureEnabled(false);
+        }
+    }
+
+    private void assertPublicQuery(PictureQueryRequest pictureQueryRequest) {
+        Assertions.assertTrue(publicPictureService.isPublicQuery(pictureQueryRequest));
+        Assertions.assertNull(publicPictureService.toPublicQueryRequest(pictureQueryRequest).getReviewStatus());
+        // 读模型中没有审核信息
+        pictureQueryRequest.setSortField("reviewTime");
+        Assertions.assertFalse(publicPictureService.isPublicQuery(pictureQueryRequest));
+    }
+
+    private Picture mockPicture(Long id, int reviewStatus) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setUserId(301L);
+        picture.setTags("[\"山\",\"水\"]");
+        picture.setReviewStatus(reviewStatus);
+        return picture;
+    }
+}
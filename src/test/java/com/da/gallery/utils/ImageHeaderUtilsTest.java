@@ -0,0 +1,115 @@
+package com.da.gallery.utils;
+
+import com.da.gallery.utils.ImageHeaderUtils.ImageHeader;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 图片头解析测试
+ */
+public class ImageHeaderUtilsTest {
+
+    private static final int ROUNDS = 200;
+
+    @Test
+    void parsePng() throws IOException {
+        ImageHeader imageHeader = ImageHeaderUtils.parse(new ByteArrayInputStream(encode("png", 321, 123)));
+        Assertions.assertNotNull(imageHeader);
+        Assertions.assertEquals("png", imageHeader.getFormat());
+        Assertions.assertEquals(321, imageHeader.getWidth());
+        Assertions.assertEquals(123, imageHeader.getHeight());
+    }
+
+    @Test
+    void parseJpeg() throws IOException {
+        ImageHeader imageHeader = ImageHeaderUtils.parse(new ByteArrayInputStream(encode("jpg", 640, 480)));
+        Assertions.assertNotNull(imageHeader);
+        Assertions.assertEquals("jpg", imageHeader.getFormat());
+        Assertions.assertEquals(640, imageHeader.getWidth());
+        Assertions.assertEquals(480, imageHeader.getHeight());
+    }
+
+    @Test
+    void parseWebp() throws IOException {
+        // VP8X：画布宽高以 24 位小端 (值 - 1) 存储
+        ByteBuffer vp8x = ByteBuffer.allocate(10).order(ByteOrder.LITTLE_ENDIAN);
+        vp8x.put(new byte[4]);
+        vp8x.put((byte) 1919).put((byte) (1919 >> 8)).put((byte) 0);
+        vp8x.put((byte) 1079).put((byte) (1079 >> 8)).put((byte) 0);
+        assertWebp(webp("VP8X", vp8x.array()), 1920, 1080);
+        // VP8L：签名 0x2F 后 14 位宽 - 1、14 位高 - 1
+        ByteBuffer vp8l = ByteBuffer.allocate(5).order(ByteOrder.LITTLE_ENDIAN);
+        vp8l.put((byte) 0x2F).putInt((799) | (599 << 14));
+        assertWebp(webp("VP8L", vp8l.array()), 800, 600);
+        // VP8：3 字节帧标记 + 起始码 + 14 位宽高
+        ByteBuffer vp8 = ByteBuffer.allocate(10).order(ByteOrder.LITTLE_ENDIAN);
+        vp8.put(new byte[3]).put((byte) 0x9D).put((byte) 0x01).put((byte) 0x2A);
+        vp8.putShort((short) 1024).putShort((short) 768);
+        assertWebp(webp("VP8 ", vp8.array()), 1024, 768);
+    }
+
+    @Test
+    void parseUnknown() throws IOException {
+        Assertions.assertNull(ImageHeaderUtils.parse(new ByteArrayInputStream("GIF89a".getBytes(StandardCharsets.US_ASCII))));
+        Assertions.assertNull(ImageHeaderUtils.parse(new ByteArrayInputStream(new byte[]{(byte) 0x89, 'P', 'N'})));
+    }
+
+    /**
+     * 对比只解析文件头与 ImageIO 完整解码的耗时
+     */
+    @Test
+    @Tag("benchmark")
+    void compareWithImageIO() throws IOException {
+        byte[] bytes = encode("jpg", 1920, 1080);
+        // 预热
+        for (int i = 0; i < 10; i++) {
+            ImageHeaderUtils.parse(new ByteArrayInputStream(bytes));
+            ImageIO.read(new ByteArrayInputStream(bytes));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            ImageHeaderUtils.parse(new ByteArrayInputStream(bytes));
+        }
+        long headerCost = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            ImageIO.read(new ByteArrayInputStream(bytes));
+        }
+        long decodeCost = System.nanoTime() - start;
+        // 只解析文件头应比完整解码快一个数量级以上
+        Assertions.assertTrue(headerCost / ROUNDS * 10 < decodeCost / (ROUNDS / 10));
+    }
+
+    private void assertWebp(byte[] bytes, int width, int height) throws IOException {
+        ImageHeader imageHeader = ImageHeaderUtils.parse(new ByteArrayInputStream(bytes));
+        Assertions.assertNotNull(imageHeader);
+        Assertions.assertEquals("webp", imageHeader.getFormat());
+        Assertions.assertEquals(width, imageHeader.getWidth());
+        Assertions.assertEquals(height, imageHeader.getHeight());
+    }
+
+    private byte[] webp(String chunk, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(20 + payload.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(12 + payload.length);
+        buffer.put("WEBP".getBytes(StandardCharsets.US_ASCII));
+        buffer.put(chunk.getBytes(StandardCharsets.US_ASCII)).putInt(payload.length);
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    private byte[] encode(String format, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, format, outputStream);
+        return outputStream.toByteArray();
+    }
+}